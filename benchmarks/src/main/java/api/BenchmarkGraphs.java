@@ -0,0 +1,37 @@
+package api;
+
+/**
+ * The graphs of src/api/json_files, for the benchmarks (run from the project root).
+ */
+public class BenchmarkGraphs {
+
+    public static final String JSON_FILES = "src/api/json_files/";
+
+    /**
+     * Returns the path of the json file of the graph with the given name (e.g. "G_10_80_0").
+     */
+    public static String file(String graphName) {
+        return JSON_FILES + graphName + ".json";
+    }
+
+    /**
+     * Loads the graph with the given name, throws IllegalStateException if it can't be loaded.
+     */
+    public static DWGraph_DS load(String graphName) {
+        DWGraph_Algo algo = new DWGraph_Algo();
+        if (!algo.load(file(graphName)))
+            throw new IllegalStateException("can't load " + file(graphName) + " - run the benchmarks from the project root");
+        return (DWGraph_DS) algo.getGraph();
+    }
+
+    /**
+     * Returns the keys of all the nodes of the graph.
+     */
+    public static int[] keys(directed_weighted_graph graph) {
+        int[] keys = new int[graph.nodeSize()];
+        int i = 0;
+        for (node_data node : graph.getV())
+            keys[i++] = node.getKey();
+        return keys;
+    }
+}
@@ -0,0 +1,175 @@
+package api;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the graph algorithms and of load/save on the json_files graphs.
+ * the shortest path queries go over a fixed (seeded) list of node pairs, so every run asks the same questions.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DWGraph_AlgoBenchmark {
+
+    private static final int NUM_OF_PAIRS = 1024;
+    private static final int NUM_OF_AGENT_SOURCES = 4; //like the agents of a game, that search from a few nodes again and again
+
+    @Param({"G_10_80_0", "G_100_800_0", "G_1000_8000_0", "G_10000_80000_0"})
+    public String graphName;
+
+    private DWGraph_DS graph;
+    private DWGraph_Algo algo;
+    private DWGraph_Algo bidirectional; //no path tree cache, every query is a bidirectional dijkstra
+    private DWGraph_Algo aStar; //no path tree cache, every query is an A*
+    private DWGraph_Algo alt; //no path tree cache, every query is an A* with the landmarks bound
+    private DWGraph_Algo contractionHierarchy; //no path tree cache, every query is a contraction hierarchy search
+    private int[] pairs; //src,dest,src,dest...
+    private int[] agentSources;
+    private int next;
+    private File saveFile;
+
+    @Setup(Level.Trial)
+    public void loadGraph() throws IOException {
+        graph = BenchmarkGraphs.load(graphName);
+        algo = new DWGraph_Algo();
+        algo.init(graph);
+        bidirectional = pointSearchAlgo(DWGraph_Algo.SearchMode.BIDIRECTIONAL);
+        aStar = pointSearchAlgo(DWGraph_Algo.SearchMode.A_STAR);
+        alt = pointSearchAlgo(DWGraph_Algo.SearchMode.ALT);
+        alt.precomputeLandmarks(DWGraph_Algo.DEFAULT_LANDMARKS);
+        contractionHierarchy = pointSearchAlgo(DWGraph_Algo.SearchMode.DIJKSTRA);
+        contractionHierarchy.precomputeContractionHierarchy();
+
+        int[] keys = BenchmarkGraphs.keys(graph);
+        Random random = new Random(42);
+        pairs = new int[NUM_OF_PAIRS * 2];
+        for (int i = 0; i < pairs.length; i++)
+            pairs[i] = keys[random.nextInt(keys.length)];
+        agentSources = new int[NUM_OF_AGENT_SOURCES];
+        for (int i = 0; i < agentSources.length; i++)
+            agentSources[i] = keys[random.nextInt(keys.length)];
+
+        saveFile = File.createTempFile(graphName, ".json");
+        saveFile.deleteOnExit();
+    }
+
+    private DWGraph_Algo pointSearchAlgo(DWGraph_Algo.SearchMode mode) {
+        DWGraph_Algo pointSearch = new DWGraph_Algo();
+        pointSearch.init(graph);
+        pointSearch.setPathTreeCacheCapacity(0);
+        pointSearch.setSearchMode(mode);
+        return pointSearch;
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteSaveFile() {
+        saveFile.delete();
+    }
+
+    @Benchmark
+    public double shortestPathDist() {
+        int i = next;
+        next = (next + 2) % pairs.length;
+        return algo.shortestPathDist(pairs[i], pairs[i + 1]);
+    }
+
+    @Benchmark
+    public List<node_data> shortestPath() {
+        int i = next;
+        next = (next + 2) % pairs.length;
+        return algo.shortestPath(pairs[i], pairs[i + 1]);
+    }
+
+    @Benchmark
+    public double shortestPathDistBidirectional() {
+        int i = next;
+        next = (next + 2) % pairs.length;
+        return bidirectional.shortestPathDist(pairs[i], pairs[i + 1]);
+    }
+
+    @Benchmark
+    public double shortestPathDistAStar() {
+        int i = next;
+        next = (next + 2) % pairs.length;
+        return aStar.shortestPathDist(pairs[i], pairs[i + 1]);
+    }
+
+    @Benchmark
+    public double shortestPathDistAlt() {
+        int i = next;
+        next = (next + 2) % pairs.length;
+        return alt.shortestPathDist(pairs[i], pairs[i + 1]);
+    }
+
+    @Benchmark
+    public double shortestPathDistContractionHierarchy() {
+        int i = next;
+        next = (next + 2) % pairs.length;
+        return contractionHierarchy.shortestPathDist(pairs[i], pairs[i + 1]);
+    }
+
+    @Benchmark
+    public List<node_data> shortestPathContractionHierarchy() {
+        int i = next;
+        next = (next + 2) % pairs.length;
+        return contractionHierarchy.shortestPath(pairs[i], pairs[i + 1]);
+    }
+
+    @Benchmark
+    public DWGraph_ContractionHierarchy buildContractionHierarchy() {
+        return DWGraph_ContractionHierarchy.build(graph);
+    }
+
+    @Benchmark
+    public void precomputeLandmarks() {
+        DWGraph_Algo fresh = new DWGraph_Algo();
+        fresh.init(graph);
+        fresh.precomputeLandmarks(DWGraph_Algo.DEFAULT_LANDMARKS);
+    }
+
+    /**
+     * Queries from a few repeated sources, answered from the path tree cache after the second query of every source.
+     */
+    @Benchmark
+    public double shortestPathDistFromAgentSources() {
+        int i = next;
+        next = (next + 2) % pairs.length;
+        return algo.shortestPathDist(agentSources[(i >> 1) % NUM_OF_AGENT_SOURCES], pairs[i + 1]);
+    }
+
+    /**
+     * isConnected on a new algorithms object, so the answer is computed and not taken from the last check.
+     */
+    @Benchmark
+    public boolean isConnected() {
+        DWGraph_Algo fresh = new DWGraph_Algo();
+        fresh.init(graph);
+        return fresh.isConnected();
+    }
+
+    @Benchmark
+    public List<List<Integer>> connected_components() {
+        DWGraph_Algo fresh = new DWGraph_Algo();
+        fresh.init(graph);
+        return fresh.connected_components();
+    }
+
+    @Benchmark
+    public boolean load() {
+        return new DWGraph_Algo().load(BenchmarkGraphs.file(graphName));
+    }
+
+    @Benchmark
+    public boolean save() {
+        return algo.save(saveFile.getPath());
+    }
+}
@@ -0,0 +1,75 @@
+package api;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the graph mutations: connect and removeNode on the json_files graphs.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DWGraph_DSBenchmark {
+
+    @Param({"G_10_80_0", "G_100_800_0", "G_1000_8000_0", "G_10000_80000_0"})
+    public String graphName;
+
+    private DWGraph_DS graph;
+    private int[] keys;
+    private int next;
+
+    // the node removed by the last removeNode call, and its edges - put back before the next call
+    private NodeData removed;
+    private final List<edge_data> removedEdges = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void loadGraph() {
+        graph = BenchmarkGraphs.load(graphName);
+        keys = BenchmarkGraphs.keys(graph);
+    }
+
+    @Setup(Level.Invocation)
+    public void restoreRemovedNode() {
+        if (removed == null) return;
+        NodeData node = new NodeData(removed.getKey());
+        node.setLocation(removed.getLocation());
+        graph.addNode(node);
+        for (edge_data edge : removedEdges)
+            graph.connect(edge.getSrc(), edge.getDest(), edge.getWeight());
+        removed = null;
+        removedEdges.clear();
+    }
+
+    /**
+     * Connects (or re-weights) a pseudo random pair of nodes.
+     */
+    @Benchmark
+    public int connect() {
+        int src = keys[next];
+        int dest = keys[(int) ((next * 7919L + 13) % keys.length)];
+        next = (next + 1) % keys.length;
+        graph.connect(src, dest, 1 + next % 10);
+        return graph.getMC();
+    }
+
+    /**
+     * Removes the next node with all its edges (the node is put back before the next call, out of the measurement).
+     */
+    @Benchmark
+    public node_data removeNode() {
+        int key = keys[next];
+        next = (next + 1) % keys.length;
+        removed = (NodeData) graph.getNode(key);
+        removedEdges.addAll(removed.getNeighborEdges().values());
+        for (edge_data edge : removed.getEdgesConnectedToThisNode().values()) {
+            if (edge.getSrc() != key) removedEdges.add(edge); //a self loop is already in the neighbor edges
+        }
+        return graph.removeNode(key);
+    }
+}
@@ -0,0 +1,86 @@
+package gameClient;
+
+import api.DWGraph_Algo;
+import api.DWGraph_CSR;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the pokemons update of the game client, on canned pokemons of the data/ arenas:
+ * decoding the pokemons json, and finding the edge of a pokemon.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ArenaBenchmark {
+
+    @Param({"data/A0", "data/A3", "data/A5"})
+    public String arena;
+
+    @Param({"20"})
+    public int numOfPokemons;
+
+    private CannedGame game;
+    private Arena ar;
+    private List<CL_Pokemon> pokemons;
+    private final ServerJsonDecoder decoder = new ServerJsonDecoder();
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        game = new CannedGame(arena, numOfPokemons, 1, 42);
+        DWGraph_Algo algo = new DWGraph_Algo();
+        algo.loadJson(game.getGraph());
+        ar = new Arena();
+        ar.setGraph(DWGraph_CSR.of(algo.getGraph()));
+        ar.setGraphAlgo(algo);
+        pokemons = Arena.json2Pokemons(game.getPokemons());
+        ar.setPokemons(pokemons);
+    }
+
+    @Benchmark
+    public List<CL_Pokemon> json2Pokemons() {
+        return Arena.json2Pokemons(game.getPokemons());
+    }
+
+    @Benchmark
+    public List<CL_Pokemon> json2Pokemons_decoder() {
+        return Arena.json2Pokemons(game.getPokemons(), decoder);
+    }
+
+    /**
+     * The static updateEdge - checks the edges of the graph one by one.
+     */
+    @Benchmark
+    public Object updateEdge() {
+        CL_Pokemon pokemon = pokemons.get(next);
+        next = (next + 1) % pokemons.size();
+        Arena.updateEdge(pokemon, ar.getGraph());
+        return pokemon.get_edge();
+    }
+
+    /**
+     * The arena updateEdge - checks only the edges of the grid cell of the pokemon.
+     */
+    @Benchmark
+    public Object updateEdge_grid() {
+        CL_Pokemon pokemon = pokemons.get(next);
+        next = (next + 1) % pokemons.size();
+        ar.updateEdge(pokemon);
+        return pokemon.get_edge();
+    }
+
+    /**
+     * The edges of all the pokemons of one tick (the same pokemons as the last tick, so from the cache).
+     */
+    @Benchmark
+    public List<CL_Pokemon> updateEdges() {
+        ar.updateEdges(pokemons);
+        return pokemons;
+    }
+}
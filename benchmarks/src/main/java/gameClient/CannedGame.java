@@ -0,0 +1,151 @@
+package gameClient;
+
+import api.DWGraph_Algo;
+import api.directed_weighted_graph;
+import api.edge_data;
+import api.game_service;
+import api.geo_location;
+import api.node_data;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * A game_service that always returns the same canned payloads: the graph of one of the data/ arenas,
+ * seeded pokemons on its edges and agents standing on their start nodes. nothing moves, so every call
+ * of the benchmarked code sees the same world.
+ */
+public class CannedGame implements game_service {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String graphName;
+    private final String graphJson;
+    private final directed_weighted_graph graph;
+    private final String pokemonsJson;
+    private final int numOfPokemons;
+    private final int numOfAgents;
+    private final List<Integer> agentsStart = new ArrayList<>();
+
+    /**
+     * @param arena - the arena file, e.g. "data/A5" (relative to the project root)
+     */
+    public CannedGame(String arena, int numOfPokemons, int numOfAgents, long seed) {
+        try {
+            this.graphName = arena;
+            this.graphJson = new String(Files.readAllBytes(Paths.get(arena)));
+        } catch (IOException e) {
+            throw new IllegalStateException("can't read " + arena + " - run the benchmarks from the project root", e);
+        }
+        DWGraph_Algo algo = new DWGraph_Algo();
+        algo.loadJson(graphJson);
+        this.graph = algo.getGraph();
+        this.pokemonsJson = pokemonsJson(graph, numOfPokemons, new Random(seed));
+        this.numOfPokemons = numOfPokemons;
+        this.numOfAgents = numOfAgents;
+    }
+
+    /**
+     * Returns a pokemons json of the given number of pokemons, every pokemon on a random edge
+     * (type 1 if the edge goes up in keys, -1 if it goes down - like the game server).
+     */
+    public static String pokemonsJson(directed_weighted_graph graph, int numOfPokemons, Random random) {
+        List<edge_data> edges = new ArrayList<>();
+        for (node_data node : graph.getV())
+            edges.addAll(graph.getE(node.getKey()));
+
+        StringBuilder json = new StringBuilder("{\"Pokemons\":[");
+        for (int i = 0; i < numOfPokemons; i++) {
+            edge_data edge = edges.get(random.nextInt(edges.size()));
+            geo_location src = graph.getNode(edge.getSrc()).getLocation();
+            geo_location dest = graph.getNode(edge.getDest()).getLocation();
+            double ratio = 0.1 + 0.8 * random.nextDouble();
+            double x = src.x() + (dest.x() - src.x()) * ratio;
+            double y = src.y() + (dest.y() - src.y()) * ratio;
+            if (i > 0) json.append(',');
+            json.append("{\"Pokemon\":{\"value\":").append(5.0 + random.nextInt(10))
+                    .append(",\"type\":").append(edge.getSrc() < edge.getDest() ? 1 : -1)
+                    .append(",\"pos\":\"").append(x).append(',').append(y).append(",0.0\"}}");
+        }
+        return json.append("]}").toString();
+    }
+
+    @Override
+    public String getGraph() {
+        return graphJson;
+    }
+
+    @Override
+    public directed_weighted_graph getJava_Graph_Not_to_be_used() {
+        return graph;
+    }
+
+    @Override
+    public String getPokemons() {
+        return pokemonsJson;
+    }
+
+    @Override
+    public String getAgents() {
+        StringBuilder json = new StringBuilder("{\"Agents\":[");
+        for (int id = 0; id < agentsStart.size(); id++) {
+            int node = agentsStart.get(id);
+            if (id > 0) json.append(',');
+            json.append("{\"Agent\":{\"id\":").append(id).append(",\"value\":0.0,\"src\":").append(node)
+                    .append(",\"dest\":-1,\"speed\":1.0,\"pos\":\"").append(graph.getNode(node).getLocation()).append("\"}}");
+        }
+        return json.append("]}").toString();
+    }
+
+    @Override
+    public boolean addAgent(int start_node) {
+        if (agentsStart.size() == numOfAgents || graph.getNode(start_node) == null) return false;
+        agentsStart.add(start_node);
+        return true;
+    }
+
+    @Override
+    public long startGame() {
+        return 0;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return true;
+    }
+
+    @Override
+    public long stopGame() {
+        return 0;
+    }
+
+    @Override
+    public long chooseNextEdge(int id, int next_node) {
+        return 0;
+    }
+
+    @Override
+    public long timeToEnd() {
+        return 30000;
+    }
+
+    @Override
+    public String move() {
+        return getAgents();
+    }
+
+    @Override
+    public boolean login(long id) {
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "{\"GameServer\":{\"graph\":\"" + graphName + "\",\"pokemons\":" + numOfPokemons
+                + ",\"agents\":" + numOfAgents + ",\"moves\":0,\"grade\":0,\"game_level\":0,\"is_logged_in\":true,\"id\":0}}";
+    }
+}
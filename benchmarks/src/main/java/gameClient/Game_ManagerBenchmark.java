@@ -0,0 +1,44 @@
+package gameClient;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of one planning of the game client (Game_Manager.runAlgorithms) on a canned game:
+ * the pokemons and the agents are the same in every call.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class Game_ManagerBenchmark {
+
+    @Param({"data/A0", "data/A3", "data/A5"})
+    public String arena;
+
+    @Param({"1", "3"})
+    public int numOfAgents;
+
+    @Param({"6"})
+    public int numOfPokemons;
+
+    private Game_Manager manager;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        manager = new Game_Manager();
+        manager.setHeadless(true);
+        manager.setBackgroundPlanning(false); //runAlgorithms plans on the benchmark thread
+        manager.initGame(new CannedGame(arena, numOfPokemons, numOfAgents, 42));
+        manager.updateGameBoard(); //the first tick, creates the agents paths
+    }
+
+    @Benchmark
+    public Game_Manager runAlgorithms() {
+        manager.runAlgorithms();
+        return manager;
+    }
+}
@@ -0,0 +1,85 @@
+package gameClient;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the agents/pokemons decoding of one game tick:
+ * the org.json path (json tree + getString + Point3D(String)) against ServerJsonDecoder.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ServerJsonDecoderBenchmark {
+
+    @Param({"5"})
+    public int numOfAgents;
+
+    @Param({"20"})
+    public int numOfPokemons;
+
+    private String agentsJson;
+    private String pokemonsJson;
+    private final ServerJsonDecoder decoder = new ServerJsonDecoder();
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(1);
+        agentsJson = agentsJson(numOfAgents, random);
+        pokemonsJson = pokemonsJson(numOfPokemons, random);
+    }
+
+    @Benchmark
+    public int jsonTree() throws Exception {
+        int count = 0;
+        JSONArray agents = new JSONObject(agentsJson).getJSONArray("Agents");
+        for (int i = 0; i < agents.length(); i++) {
+            JSONObject agent = agents.getJSONObject(i).getJSONObject("Agent");
+            count += agent.getInt("id") + agent.getInt("src") + agent.getInt("dest");
+            count += (int) (agent.getDouble("value") + agent.getDouble("speed"));
+            count += (int) new gameClient.util.Point3D(agent.getString("pos")).x();
+        }
+        return count + Arena.json2Pokemons(pokemonsJson).size();
+    }
+
+    @Benchmark
+    public int decoder() {
+        return decoder.decodeAgents(agentsJson) + decoder.decodePokemons(pokemonsJson);
+    }
+
+    static String agentsJson(int numOfAgents, Random random) {
+        StringBuilder json = new StringBuilder("{\"Agents\":[");
+        for (int i = 0; i < numOfAgents; i++) {
+            if (i > 0) json.append(',');
+            json.append("{\"Agent\":{\"id\":").append(i)
+                    .append(",\"value\":").append(random.nextInt(100) + 0.0)
+                    .append(",\"src\":").append(random.nextInt(40))
+                    .append(",\"dest\":").append(random.nextInt(41) - 1)
+                    .append(",\"speed\":").append(1.0 + random.nextInt(5))
+                    .append(",\"pos\":\"").append(position(random)).append("\"}}");
+        }
+        return json.append("]}").toString();
+    }
+
+    static String pokemonsJson(int numOfPokemons, Random random) {
+        StringBuilder json = new StringBuilder("{\"Pokemons\":[");
+        for (int i = 0; i < numOfPokemons; i++) {
+            if (i > 0) json.append(',');
+            json.append("{\"Pokemon\":{\"value\":").append(5.0 + random.nextInt(10))
+                    .append(",\"type\":").append(random.nextBoolean() ? 1 : -1)
+                    .append(",\"pos\":\"").append(position(random)).append("\"}}");
+        }
+        return json.append("]}").toString();
+    }
+
+    private static String position(Random random) {
+        return (35.18 + random.nextDouble() * 0.03) + "," + (32.10 + random.nextDouble() * 0.01) + ",0.0";
+    }
+}
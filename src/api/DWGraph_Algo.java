@@ -1,27 +1,69 @@
 package api;
 
 import com.google.gson.*;
+import com.google.gson.stream.JsonReader;
 
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
+import java.io.IOException;
 import java.io.PrintWriter;
+import java.io.Reader;
+import java.io.StringReader;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 public class DWGraph_Algo implements dw_graph_algorithms {
 
-    DWGraph_DS graph; //represents a pointer to the original graph.
+    public static final int DEFAULT_PATH_TREE_CACHE_CAPACITY = 64; //the number of sources whose shortest path trees are kept
+    public static final int DEFAULT_LANDMARKS = 16; //the number of landmarks of the ALT search mode
+
+    /**
+     * The search of a shortestPath/shortestPathDist query that is not answered from a table or a cached tree.
+     */
+    public enum SearchMode {
+        DIJKSTRA, //a dijkstra from src until dest is visited
+        BIDIRECTIONAL, //a dijkstra from src and a dijkstra from dest on the incoming edges, until they meet
+        A_STAR, //a dijkstra from src that is led to dest by the euclidean distance of the node locations
+        ALT //a dijkstra from src that is led to dest by the distances to and from landmarks (see precomputeLandmarks)
+    }
+
+
+    directed_weighted_graph graph; //represents a pointer to the original graph (a DWGraph_DS, or a DWGraph_MappedCSR after loadBinary).
+    private DWGraph_Dijkstra dijkstra; //shortest path engine, reuses its buffers between queries.
+    private directed_weighted_graph dijkstraGraph; //the graph that the dijkstra engine was made for.
+    private DWGraph_AllPairs allPairs; //precomputed all-pairs table, null if it was not computed.
+    private boolean connected; //the last answer of isConnected
+    private directed_weighted_graph connectedGraph; //the graph of the last isConnected answer, null if none
+    private int connectedMC; //the MC of the graph in the last isConnected answer
+    private DWGraph_SCC scc; //the last strongly connected components that we computed, null if none.
+    private ThreadLocal<DWGraph_Dijkstra> workerDijkstra; //dijkstra engine of every worker thread, for the batched searches.
+    private directed_weighted_graph workerDijkstraGraph; //the graph that the worker engines were made for.
+    private SearchMode searchMode = SearchMode.DIJKSTRA;
+    private DWGraph_PointSearch pointSearch; //the bidirectional and A* engine, reuses its buffers between queries.
+    private directed_weighted_graph pointSearchGraph; //the graph that the point search engine was made for.
+    private DWGraph_Landmarks landmarks; //the landmarks of the ALT search mode, null if they were not computed.
+    private DWGraph_ContractionHierarchy contractionHierarchy; //precomputed contraction hierarchy, null if it was not computed.
+    private final DWGraph_PathTreeCache pathTrees = new DWGraph_PathTreeCache(DEFAULT_PATH_TREE_CACHE_CAPACITY); //the last used shortest path trees, by source
 
     /**
      * Init the graph on which this set of algorithms operates on.
+     * a read-only DWGraph_CSR snapshot is also accepted, in this case the algorithms work on the graph it was made from.
      */
     @Override
     public void init(directed_weighted_graph g) {
-        graph = (DWGraph_DS) g;
+        graph = g instanceof DWGraph_CSR ? ((DWGraph_CSR) g).owner() : (DWGraph_DS) g;
+        allPairs = null;
     }
 
     /**
      * Return the underlying graph of which this class works.
+     * after loadBinary it is a read-only DWGraph_MappedCSR - its mutators throw UnsupportedOperationException and its
+     * MC is always 0, copy() gives a mutable graph.
      */
     @Override
     public directed_weighted_graph getGraph() {
@@ -29,55 +71,65 @@ public class DWGraph_Algo implements dw_graph_algorithms {
     }
 
     /**
-     * Compute a deep copy of this weighted graph.
+     * Compute a deep copy of this weighted graph (a mutable DWGraph_DS, also when the graph was loaded with loadBinary).
      */
     @Override
     public directed_weighted_graph copy() {
-        return this.graph.deepCopy();
+        if (this.graph instanceof DWGraph_CSR) return ((DWGraph_CSR) this.graph).getSource().deepCopy();
+        return ((DWGraph_DS) this.graph).deepCopy();
     }
 
     /**
      * Returns true if and only if (iff) there is a valid path from each node to each
+     * other node. checked with one BFS on the outgoing edges and one BFS on the incoming edges from the same node,
+     * the answer is kept until the graph changes (by MC).
      */
     @Override
     public boolean isConnected() {
-        int numOfNodes = this.graph.getV().size(); //get number of nodes in the original graph
+        if (this.connectedGraph == this.graph && this.connectedMC == this.graph.getMC())
+            return this.connected; //the graph did not change since the last check
+
+        this.connected = checkConnected();
+        this.connectedGraph = this.graph;
+        this.connectedMC = this.graph.getMC();
+        return this.connected;
+    }
+
+    private boolean checkConnected() {
+        int numOfNodes = this.graph.nodeSize(); //get number of nodes in the original graph
         if (numOfNodes == 0 || numOfNodes == 1)
             return true; //if the number of nodes is less than 2, the graph is surely connected.
-        if (this.graph.edgeSize() < numOfNodes - 1)
-            return false; //if the number of edges is less than the number of nodes -1, the graph is surely no connected.
-
-        //if we reached here, we can't tell if the graph is connected by the number of edges & number of nodes
-        //so we check using BFS algorithm.
-        Iterator<node_data> itr = this.graph.getV().iterator(); //we make an iterator to get list of nodes keys, then we will set the starting node to each key.
-        int[] nodesKeysArr = new int[this.graph.nodeSize()];
-        int arrayIndex = 0;
-        while (itr.hasNext()) { // insert all the nodesKeys to the array
-            nodesKeysArr[arrayIndex++] = itr.next().getKey();
-        }
-        for (int nodeKey : nodesKeysArr) {
-            DWGraph_DS g = (DWGraph_DS) this.copy();
-            NodeData startingNode = (NodeData) g.getNode(nodeKey);
-            Queue<NodeData> q = new LinkedList<>();
-            q.add(startingNode); //add the first node to the queue
-            int numOfNodesInSubGraph = 1; //a counter for how many nodes we went through in BFS, in the end of the BFS we compare this to the graph size
-            startingNode.setInfo("BLACK"); //mark the node black, so we know we already visited this node.
-
-            while (!q.isEmpty()) {
-                NodeData currentNode = q.remove();
-                for (edge_data edge : currentNode.getNi().values()) { //iterate through all of the neighbors that we haven't visited yet.
-                    NodeData nodeNeighbor = (NodeData) g.getNode(edge.getDest());
-                    if (nodeNeighbor.getInfo() != "BLACK") { //if it's not black, than we haven't visited that node yet
-                        numOfNodesInSubGraph++;
-                        nodeNeighbor.setInfo("BLACK"); //mark the node black, so we know we already visited this node.
-                        q.add(nodeNeighbor);
-                    }
+        if (this.graph.edgeSize() < numOfNodes)
+            return false; //every node needs at least one outgoing edge, so with less edges than nodes the graph is surely not connected.
+
+        //the graph is strongly connected iff every node is reachable from node 0 and node 0 is reachable from every node.
+        DWGraph_CSR csr = DWGraph_CSR.of(this.graph);
+        return bfsCount(csr, true) == numOfNodes && bfsCount(csr, false) == numOfNodes;
+    }
+
+    /**
+     * BFS from the first node of the snapshot on the outgoing edges (forward = true) or on the incoming edges (forward = false).
+     * Returns the number of nodes we reached.
+     */
+    private int bfsCount(DWGraph_CSR csr, boolean forward) {
+        BitSet visited = new BitSet(csr.nodeSize());
+        int[] queue = new int[csr.nodeSize()];
+        int head = 0, tail = 0;
+        queue[tail++] = 0;
+        visited.set(0);
+        while (head < tail) {
+            int node = queue[head++];
+            int start = forward ? csr.outStart(node) : csr.inStart(node);
+            int end = forward ? csr.outStart(node + 1) : csr.inStart(node + 1);
+            for (int e = start; e < end; e++) {
+                int neighbor = forward ? csr.outTarget(e) : csr.inSource(e);
+                if (!visited.get(neighbor)) {
+                    visited.set(neighbor);
+                    queue[tail++] = neighbor;
                 }
             }
-            if (g.nodeSize() != numOfNodesInSubGraph)
-                return false; //if the number of nodes in the graph does not equals the number of nodes we visited using BFS - the graph is surely not connected.
         }
-        return true;
+        return tail;
     }
 
     /**
@@ -87,106 +139,297 @@ public class DWGraph_Algo implements dw_graph_algorithms {
     @Override
     public double shortestPathDist(int src, int dest) {
         if (src == dest) return 0;
-        DWGraph_DS g = (DWGraph_DS) this.copy();
-        PriorityQueue<EdgeData> pq = new PriorityQueue<>();
-
-        NodeData sourceNode = (NodeData) g.getNode(src); //get the source node
-        NodeData destNode = (NodeData) g.getNode(dest); //get the destination node
-
-        Collection<edge_data> neighborEdgesCollection = sourceNode.getNeighborEdges().values();
-        for (edge_data neighborEdge : neighborEdgesCollection) {
-            pq.add((EdgeData) neighborEdge); //add all edges that coming out from the source node to the priority queue
+        if (hasAllPairs()) return this.allPairs.shortestPathDist(src, dest);
+        if (hasContractionHierarchy()) return this.contractionHierarchy.shortestPathDist(src, dest);
+        DWGraph_PathTree tree = pathTree(src);
+        if (tree != null) return tree.shortestPathDist(dest);
+        switch (this.searchMode) {
+            case BIDIRECTIONAL:
+                return pointSearch().bidirectionalDist(src, dest);
+            case A_STAR:
+                return pointSearch().aStarDist(src, dest, null);
+            case ALT:
+                return pointSearch().aStarDist(src, dest, landmarks());
+            default:
+                return dijkstra().shortestPathDist(src, dest);
         }
-        sourceNode.setWeight(0); //set the weight of the source node to 0
-        sourceNode.setInfo("BLACK"); //mark that node as visited.
-
-        while (!pq.isEmpty()) { //loop through all edges in the priority queue
-            EdgeData prioritezedEdge = pq.poll(); //take out the lightest Edge from the priority queue
-            prioritezedEdge.setInfo("BLACK"); //mark that edge as visited.
-
-            double edgeWeight = prioritezedEdge.getWeight();
-
-            NodeData neighborNode = (NodeData) g.getNode(prioritezedEdge.getDest());
-            if (edgeWeight < neighborNode.getWeight()) //if we found a path with less weight - update the node weight
-                neighborNode.setWeight(edgeWeight); //update the weight of the neighbor node
-            if (neighborNode.getInfo() != "BLACK") { //if we haven't visited this node yet
-                Collection<edge_data> neighborNodeEdges = neighborNode.getNeighborEdges().values(); // get all edges of neighborNode
-                for (edge_data neighborNodeEdge : neighborNodeEdges) {
-                    int newSource = neighborNodeEdge.getSrc();
-                    int newDest = neighborNodeEdge.getDest();
-                    double newWeight = neighborNodeEdge.getWeight() + neighborNode.getWeight();
-                    String newInfo = neighborNodeEdge.getInfo();
-                    EdgeData updatedNeighborNodeEdge = new EdgeData(newSource, newDest, newWeight, newInfo); //make new Edge with updated weight
-                    pq.add(updatedNeighborNodeEdge); //add the edge to the queue
-                }
-                neighborNode.setInfo("BLACK"); //mark that node as visited.
-            }
-        }
-        return destNode.getWeight() != Double.MAX_VALUE ? destNode.getWeight() : -1; //return the destination weight or -1 if there is no path from src to dest.
     }
 
     /**
      * returns the the shortest path between src to dest - as an ordered List of nodes:
      * src--> n1-->n2-->...dest
+     * the weight of every node in the path is its distance from src, and the graph itself is not changed.
      */
     @Override
     public List<node_data> shortestPath(int src, int dest) {
-        DWGraph_DS g = (DWGraph_DS) this.copy();
-        PriorityQueue<EdgeData> pq = new PriorityQueue<>();
+        if (hasAllPairs()) return this.allPairs.shortestPath(src, dest);
+        if (hasContractionHierarchy()) return this.contractionHierarchy.shortestPath(src, dest);
+        DWGraph_PathTree tree = pathTree(src);
+        if (tree != null) return tree.shortestPath(dest);
+        switch (this.searchMode) {
+            case BIDIRECTIONAL:
+                return pointSearch().bidirectionalPath(src, dest);
+            case A_STAR:
+                return pointSearch().aStarPath(src, dest, null);
+            case ALT:
+                return pointSearch().aStarPath(src, dest, landmarks());
+            default:
+                return dijkstra().shortestPath(src, dest);
+        }
+    }
 
-        NodeData sourceNode = (NodeData) g.getNode(src); //get the source node
-        NodeData destNode = (NodeData) g.getNode(dest); //get the destination node
+    /**
+     * Returns the full shortest path tree from src - from the cache, or a new full dijkstra that is added to the cache
+     * if src missed lately too. Returns null if there is no tree for src (the caller searches up to dest).
+     */
+    private DWGraph_PathTree pathTree(int src) {
+        if (this.pathTrees.getCapacity() == 0) return null;
+        DWGraph_PathTree tree = this.pathTrees.get(this.graph, src);
+        if (tree != null || !this.pathTrees.isRepeatedMiss(this.graph, src)) return tree;
+        DWGraph_Dijkstra engine = dijkstra();
+        DWGraph_CSR csr = engine.snapshot();
+        int srcIndex = csr.indexOf(src);
+        if (srcIndex == -1) return null;
+        tree = new DWGraph_PathTree(engine, srcIndex, engine.searchAll(srcIndex));
+        this.pathTrees.put(this.graph, tree);
+        return tree;
+    }
 
-        if (src == dest) {
-            List<node_data> list = new LinkedList<>();
-            list.add(sourceNode);
-            return list;
+    /**
+     * Computes the full shortest path tree from every one of the given source nodes, one dijkstra per distinct source
+     * that is not in the path tree cache, in parallel on the common ForkJoinPool (every worker thread uses its own
+     * dijkstra buffers). The new trees are added to the cache.
+     * Returns a map from a source key to its tree, sources that are not in the graph are skipped.
+     * If the calling thread is interrupted, the searches that did not end are cancelled and only the trees that were
+     * collected until then are returned, with the interrupt flag still set.
+     * A search that failed throws its exception here.
+     */
+    public Map<Integer, DWGraph_PathTree> shortestPathsFrom(int[] sources) {
+        directed_weighted_graph g = this.graph;
+        DWGraph_CSR csr = DWGraph_CSR.of(g);
+        ThreadLocal<DWGraph_Dijkstra> engines = workerDijkstra();
+        List<Callable<DWGraph_PathTree>> tasks = new ArrayList<>();
+        HashMap<Integer, DWGraph_PathTree> trees = new HashMap<>();
+        HashSet<Integer> distinctSources = new HashSet<>();
+        for (int source : sources) {
+            int sourceIndex = csr.indexOf(source);
+            if (sourceIndex == -1 || !distinctSources.add(source)) continue;
+            DWGraph_PathTree cached = this.pathTrees.get(g, source);
+            if (cached != null) {
+                trees.put(source, cached);
+                continue;
+            }
+            tasks.add(() -> {
+                DWGraph_Dijkstra engine = engines.get();
+                int reached = engine.searchAll(sourceIndex);
+                return new DWGraph_PathTree(engine, sourceIndex, reached);
+            });
         }
 
-        Collection<edge_data> neighborEdgesCollection = sourceNode.getNeighborEdges().values();
-        for (edge_data neighborEdge : neighborEdgesCollection) {
-            pq.add((EdgeData) neighborEdge); //add all edges that coming out from the source node to the priority queue
+        List<Future<DWGraph_PathTree>> futures = new ArrayList<>(tasks.size());
+        for (Callable<DWGraph_PathTree> task : tasks) futures.add(ForkJoinPool.commonPool().submit(task));
+        try {
+            for (Future<DWGraph_PathTree> future : futures) {
+                DWGraph_PathTree tree = future.get();
+                trees.put(tree.getSource(), tree);
+                this.pathTrees.put(g, tree);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt(); //keep the interrupt for the caller (a cancelled planning checks it)
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw new IllegalStateException(cause);
+        } finally {
+            for (Future<DWGraph_PathTree> future : futures) future.cancel(true); //no-op on the searches that are done
         }
-        sourceNode.setWeight(0); //set the weight of the source node to 0
-        sourceNode.setInfo("BLACK"); //mark that node as visited.
+        return trees;
+    }
 
-        while (!pq.isEmpty()) { //loop through all edges in the priority queue
-            EdgeData prioritezedEdge = pq.poll(); //take out the lightest Edge from the priority queue
-            prioritezedEdge.setInfo("BLACK"); //mark that edge as visited.
+    /**
+     * Sets the search of the queries that are not answered from the all-pairs table or the path tree cache
+     * (DIJKSTRA by default). All the modes give the shortest paths, they differ in how many nodes they visit.
+     * For a search on every query (and no full trees), also set the path tree cache capacity to 0.
+     */
+    public void setSearchMode(SearchMode searchMode) {
+        this.searchMode = searchMode;
+    }
 
-            double edgeWeight = prioritezedEdge.getWeight();
+    public SearchMode getSearchMode() {
+        return this.searchMode;
+    }
 
-            NodeData neighborNode = (NodeData) g.getNode(prioritezedEdge.getDest());
-            if (edgeWeight < neighborNode.getWeight()) { //if we found a path with less weight - update the node weight
-                neighborNode.setWeight(edgeWeight); //update the weight of the neighbor node
-                neighborNode.setTag(prioritezedEdge.getSrc()); //set the parent of neighborNode
-            }
-            if (neighborNode.getInfo() != "BLACK") { //if we haven't visited this node yet
-                Collection<edge_data> neighborNodeEdges = neighborNode.getNeighborEdges().values(); // get all edges of neighborNode
-                for (edge_data neighborNodeEdge : neighborNodeEdges) {
-                    int newSource = neighborNodeEdge.getSrc();
-                    int newDest = neighborNodeEdge.getDest();
-                    double newWeight = neighborNodeEdge.getWeight() + neighborNode.getWeight();
-                    String newInfo = neighborNodeEdge.getInfo();
-                    EdgeData updatedNeighborNodeEdge = new EdgeData(newSource, newDest, newWeight, newInfo); //make new Edge with updated weight
-                    pq.add(updatedNeighborNodeEdge); //add the edge to the queue
-                }
-                neighborNode.setInfo("BLACK"); //mark that node as visited.
-            }
+    /**
+     * Chooses k landmarks and computes the distances from every landmark to every node and back (2 full dijkstras per
+     * landmark), for the lower bounds of the ALT search mode. The landmarks are used as long as the graph does not change.
+     * Meant for a big static graph, where an all-pairs table is too big - the landmarks take 2 * k doubles per node.
+     */
+    public void precomputeLandmarks(int k) {
+        if (k < 1) throw new IllegalArgumentException("k must be positive: " + k);
+        this.landmarks = DWGraph_Landmarks.build(this.graph, k);
+    }
+
+    /**
+     * Returns true if there are landmarks of the current graph that are up to date.
+     */
+    public boolean hasLandmarks() {
+        if (this.landmarks == null) return false;
+        if (this.landmarks.snapshot().owner() == this.graph && this.landmarks.isUpToDate()) return true;
+        this.landmarks = null; //the graph was changed or replaced - the landmarks are no longer valid
+        return false;
+    }
+
+    /**
+     * Returns the keys of the landmarks, an empty array if there are no landmarks of the current graph.
+     */
+    public int[] getLandmarks() {
+        return hasLandmarks() ? this.landmarks.getLandmarkKeys() : new int[0];
+    }
+
+    /**
+     * Saves the landmarks of the current graph to the given file, so a later run can load them instead of computing them.
+     * Returns false if there are no landmarks or the file was not saved.
+     */
+    public boolean saveLandmarks(String file) {
+        if (!hasLandmarks()) return false;
+        try {
+            this.landmarks.write(file);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
         }
+        return true;
+    }
+
+    /**
+     * Loads landmarks that were saved with saveLandmarks for the same graph (the same nodes, edges and weights).
+     * if the file was not loaded the landmarks remain "as is".
+     */
+    public boolean loadLandmarks(String file) {
+        try {
+            this.landmarks = DWGraph_Landmarks.read(file, DWGraph_CSR.of(this.graph));
+        } catch (IOException | IndexOutOfBoundsException e) {
+            e.printStackTrace(); //the file is missing, is not a valid landmarks file or was made for another graph
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * returns the landmarks of the current graph, DEFAULT_LANDMARKS new ones if there are none.
+     */
+    private DWGraph_Landmarks landmarks() {
+        if (!hasLandmarks()) precomputeLandmarks(DEFAULT_LANDMARKS);
+        return this.landmarks;
+    }
+
+    /**
+     * Returns the number of nodes that the point to point searches (the queries of every SearchMode and of the
+     * contraction hierarchy that were not answered from the table or the cache) visited so far.
+     */
+    public long getSearchSettledNodes() {
+        long settled = this.dijkstra != null ? this.dijkstra.getSettledNodes() : 0;
+        settled += this.contractionHierarchy != null ? this.contractionHierarchy.getSettledNodes() : 0;
+        return settled + (this.pointSearch != null ? this.pointSearch.getSettledNodes() : 0);
+    }
+
+    /**
+     * Sets the number of sources whose shortest path trees are kept (DEFAULT_PATH_TREE_CACHE_CAPACITY by default).
+     * A source gets a tree on its second miss, the first query from it runs a dijkstra up to dest.
+     * With 0 there is no cache, and every shortestPath/shortestPathDist query runs its own dijkstra up to dest.
+     */
+    public void setPathTreeCacheCapacity(int capacity) {
+        if (capacity < 0) throw new IllegalArgumentException("capacity must not be negative: " + capacity);
+        this.pathTrees.setCapacity(capacity);
+    }
+
+    /**
+     * Returns the number of path tree lookups that were answered from the cache.
+     */
+    public long getPathTreeCacheHits() {
+        return this.pathTrees.getHits();
+    }
 
-        NodeData nextParent = destNode;
-        if (nextParent.getTag() == -1) return null; //there's no path from src to dest.
-        Stack<node_data> pathReversed = new Stack<node_data>(); //represents the path from the source to the destination
-        while (nextParent.getTag() != -1) { //while we did not reach the src
-            pathReversed.add(nextParent); //add the node the the path.
-            nextParent = (NodeData) g.getNode(nextParent.getTag());
+    /**
+     * Returns the number of path tree lookups that were not answered from the cache.
+     */
+    public long getPathTreeCacheMisses() {
+        return this.pathTrees.getMisses();
+    }
+
+    /**
+     * returns the dijkstra engines of the worker threads for the current graph.
+     */
+    private synchronized ThreadLocal<DWGraph_Dijkstra> workerDijkstra() {
+        if (this.workerDijkstra == null || this.workerDijkstraGraph != this.graph) {
+            directed_weighted_graph g = this.graph;
+            this.workerDijkstra = ThreadLocal.withInitial(() -> new DWGraph_Dijkstra(g));
+            this.workerDijkstraGraph = g;
         }
-        pathReversed.add(nextParent); // add the last node
-        Stack<node_data> path = new Stack<node_data>(); //used to reverse the order of the path, so the source will be first and dest last.
-        while (pathReversed.size() > 0)
-            path.add(pathReversed.pop());
-        return path;
+        return this.workerDijkstra;
+    }
+
+    /**
+     * Precomputes the shortest paths between all pairs of nodes, so shortestPath and shortestPathDist
+     * will be answered from a table (with no search) as long as the graph does not change.
+     * Meant to be called once after loading a small static graph (like a game level).
+     * Returns false if the graph is too big for an all-pairs table (see DWGraph_AllPairs.MAX_NODES).
+     */
+    public boolean precomputeAllPairs() {
+        this.allPairs = DWGraph_AllPairs.build(this.graph);
+        return this.allPairs != null;
+    }
+
+    /**
+     * Returns true if there is an all-pairs table of the current graph that is up to date.
+     */
+    public boolean hasAllPairs() {
+        if (this.allPairs == null) return false;
+        if (this.allPairs.isUpToDate()) return true;
+        this.allPairs = null; //the graph was changed - the table is no longer valid
+        return false;
+    }
+
+    /**
+     * Builds a contraction hierarchy of the current graph (see DWGraph_ContractionHierarchy), so shortestPath and
+     * shortestPathDist will be answered by a small upward search from both ends as long as the graph does not change.
+     * Meant for a big static graph, where an all-pairs table is too big. An all-pairs table is still used first.
+     */
+    public void precomputeContractionHierarchy() {
+        this.contractionHierarchy = DWGraph_ContractionHierarchy.build(this.graph);
+    }
+
+    /**
+     * Returns true if there is a contraction hierarchy of the current graph that is up to date.
+     */
+    public boolean hasContractionHierarchy() {
+        if (this.contractionHierarchy == null) return false;
+        if (this.contractionHierarchy.getGraph() == this.graph && this.contractionHierarchy.isUpToDate()) return true;
+        this.contractionHierarchy = null; //the graph was changed or replaced - the hierarchy is no longer valid
+        return false;
+    }
+
+    /**
+     * returns the bidirectional and A* engine of the current graph, the engine is created again only when the graph is replaced.
+     */
+    private DWGraph_PointSearch pointSearch() {
+        if (this.pointSearch == null || this.pointSearchGraph != this.graph) {
+            this.pointSearch = new DWGraph_PointSearch(this.graph);
+            this.pointSearchGraph = this.graph;
+        }
+        return this.pointSearch;
+    }
+
+    /**
+     * returns the dijkstra engine of the current graph, the engine is created again only when the graph is replaced.
+     */
+    private DWGraph_Dijkstra dijkstra() {
+        if (this.dijkstra == null || this.dijkstraGraph != this.graph) {
+            this.dijkstra = new DWGraph_Dijkstra(this.graph);
+            this.dijkstraGraph = this.graph;
+        }
+        return this.dijkstra;
     }
 
 
@@ -209,7 +452,7 @@ public class DWGraph_Algo implements dw_graph_algorithms {
             nodeJson.addProperty("id", node.getKey());
             nodeJson.addProperty("pos", node.getLocation().toString());
             nodesJsonArray.add(nodeJson);
-            Iterator<edge_data> eitr = ((NodeData) node).getNeighborEdges().values().iterator();
+            Iterator<edge_data> eitr = graph.getE(node.getKey()).iterator();
             while (eitr.hasNext()) {
                 edge_data edge = eitr.next();
                 JsonObject edgeJson = new JsonObject();
@@ -246,163 +489,260 @@ public class DWGraph_Algo implements dw_graph_algorithms {
     @Override
     public boolean load(String file) {
 
-        try {
-            FileReader reader = new FileReader(file);
-
-            // JsonParser convert the reader to a JsonObject
-            JsonElement jsonElement = JsonParser.parseReader(reader).getAsJsonObject();
-            JsonObject jsonObject = jsonElement.getAsJsonObject();
-
-            DWGraph_DS loadedGraphFromJson = new DWGraph_DS();
-
-            // convert the nodes&edges in the Json file to an Array var
-            JsonArray nodesJsonArray = jsonObject.getAsJsonArray("Nodes");
-            JsonArray edgesJsonArray = jsonObject.getAsJsonArray("Edges");
-
-            // for the nodes
-            for (int i = 0; i < nodesJsonArray.size(); i++) {
-                // nodeJsonObject holds the nodesArray in 'i' index
-                JsonObject nodeJsonObject = nodesJsonArray.get(i).getAsJsonObject();
-                geo_location newLocation;
-                if (!nodeJsonObject.has("pos")) {
-                    Random r = new Random();
-                    double random_number_x = 35.185 + (35.215 - 35.185) * r.nextDouble();
-                    double random_number_y = 32.098 + (32.11 - 32.098) * r.nextDouble();
-                    newLocation = new Location(random_number_x, random_number_y, 0);
-                } else {
-                    String pos = nodeJsonObject.get("pos").getAsString();
-                    String[] posArrayString = pos.split(",");
-                    Double[] posArray = new Double[posArrayString.length];
-                    for (int j = 0; j < posArrayString.length; j++) {
-                        posArray[j] = Double.parseDouble(posArrayString[j]);
-                    }
-                    newLocation = new Location(posArray[0], posArray[1], posArray[2]);
-                }
-                int key = nodeJsonObject.get("id").getAsInt();
-                node_data newNode = new NodeData(key);
-                newNode.setLocation(newLocation);
-                loadedGraphFromJson.addNode(newNode);
-            }
-
-            // for the edges
-            for (int i = 0; i < edgesJsonArray.size(); i++) {
-                JsonObject edgeJsonObject = edgesJsonArray.get(i).getAsJsonObject();
-                int srcJson = edgeJsonObject.get("src").getAsInt();
-                int destJson = edgeJsonObject.get("dest").getAsInt();
-                double weightJson = edgeJsonObject.get("w").getAsDouble();
-                loadedGraphFromJson.connect(srcJson, destJson, weightJson);
-
-            }
-            System.out.println(loadedGraphFromJson.toString());
-            this.graph = loadedGraphFromJson;
-
+        try (Reader reader = new BufferedReader(new FileReader(file))) {
+            return load(reader);
         } catch (FileNotFoundException e) {
             e.printStackTrace();
             return false;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
         }
-        return true;
     }
 
-    public List<List<Integer>> connected_components () {
+    /**
+     * Loads a graph json from the given reader (the reader is not closed).
+     * like load(file) - if the graph was not loaded the original graph remains "as is".
+     */
+    public boolean load(Reader reader) {
 
-        List<List<Integer>> ans_list = new ArrayList<>();
-        List<Integer> check_for_components_in_nodes = new ArrayList<>(graph.getNodes().keySet());
-
-        while (!check_for_components_in_nodes.isEmpty()){
-            int node_key = check_for_components_in_nodes.get(0);
-            List<Integer> scc = connected_component(node_key);
-            ans_list.add(scc);
-            for ( int connected_node : scc){
-                // remove the nodes that we found their sccs from check_for_components_in_nodes
-                check_for_components_in_nodes.remove((Integer)connected_node);
-            }
+        try {
+            DWGraph_DS loadedGraphFromJson = readGraph(new JsonReader(reader));
+            this.graph = loadedGraphFromJson;
+            this.allPairs = null;
 
+        } catch (IOException | IllegalStateException | NumberFormatException e) {
+            e.printStackTrace(); //the json is not a valid graph json
+            return false;
         }
-        return ans_list;
+        return true;
     }
 
-    public List<Integer> connected_component(int id) {
-
-        List<Integer> list = new ArrayList<Integer>();
-
-        if (graph == null) return list;
-
-        node_data node = graph.getNode(id);
-
-        if (node == null) return list;
-
-        List<Integer> connected_from_node = bfs_from(node);
-        List<Integer> connected_to_node = bfs_to(node);
-
-        // keeps only the variables that are in the intersection of connected_from_node and connected_to_node
-        connected_from_node.retainAll(connected_to_node);
-
-        return connected_from_node;
-
+    /**
+     * Loads a graph from a json that is already in memory (like the graph string of the game server),
+     * with no temporary file.
+     */
+    public boolean loadJson(CharSequence json) {
+        return load(new StringReader(json.toString()));
     }
 
-
-    private List<Integer> bfs_from(node_data starting_node) {
-
-        Queue<node_data> queue = new LinkedList<node_data>();
-        queue.add(starting_node);
-
-        List<Integer> list_connected_from = new ArrayList<Integer>();
-        list_connected_from.add(starting_node.getKey());
-
-        HashMap<Integer, Boolean> visited = new HashMap<>();
-
-        for (int node_key : graph.getNodes().keySet()) {
-            visited.put(node_key, false);
+    /**
+     * Saves this graph to the given file in the compact binary graph format (see DWGraph_Binary).
+     * Returns true iff the file was successfully saved.
+     */
+    public boolean saveBinary(String file) {
+        try {
+            DWGraph_Binary.write(DWGraph_CSR.of(this.graph), file);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
         }
+        return true;
+    }
 
-        visited.put(starting_node.getKey(), true);
-
-        while (!queue.isEmpty()) {
+    /**
+     * Loads a graph that was saved with saveBinary. The graph is a read-only DWGraph_MappedCSR that reads its arrays
+     * straight from the memory mapped file, the algorithms run on it as is - nothing is copied until someone asks for
+     * a mutable graph (DWGraph_CSR.getSource() or copy()).
+     * like load - if the file was not loaded the original graph remains "as is".
+     */
+    public boolean loadBinary(String file) {
+        try {
+            DWGraph_CSR loadedGraph = DWGraph_Binary.read(file);
+            this.graph = loadedGraph;
+            this.allPairs = null;
+        } catch (IOException | IndexOutOfBoundsException e) {
+            e.printStackTrace(); //the file is missing or is not a valid binary graph
+            return false;
+        }
+        return true;
+    }
 
-            node_data node_from_queue = queue.poll();
-            for (edge_data edge_from_node : ((NodeData) node_from_queue).getNeighborEdges().values()) {
-                int edge_from_node_key = edge_from_node.getDest();
-                if (!visited.get(edge_from_node_key)) {
-                    queue.add(graph.getNode(edge_from_node_key));
-                    list_connected_from.add(edge_from_node_key);
-                    visited.put(edge_from_node_key, true);
+    /**
+     * Reads a graph json ({"Edges":[{"src":0,"w":1.5,"dest":1},...],"Nodes":[{"id":0,"pos":"x,y,z"},...]})
+     * token by token, without building a json tree. the nodes and edges are kept in primitive arrays until the
+     * whole json was read (the edges may come before the nodes), and then the graph is built with pre-sized HashMaps.
+     */
+    private static DWGraph_DS readGraph(JsonReader reader) throws IOException {
+        int numOfNodes = 0, numOfEdges = 0;
+        int[] nodeKeys = new int[16];
+        double[] nodePositions = new double[16 * 3]; //x,y,z of every node
+        boolean[] nodeHasPosition = new boolean[16];
+        int[] edgeSources = new int[16];
+        int[] edgeDests = new int[16];
+        double[] edgeWeights = new double[16];
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (name.equals("Nodes")) {
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    if (numOfNodes == nodeKeys.length) {
+                        nodeKeys = Arrays.copyOf(nodeKeys, numOfNodes * 2);
+                        nodePositions = Arrays.copyOf(nodePositions, numOfNodes * 2 * 3);
+                        nodeHasPosition = Arrays.copyOf(nodeHasPosition, numOfNodes * 2);
+                    }
+                    reader.beginObject();
+                    while (reader.hasNext()) {
+                        String field = reader.nextName();
+                        if (field.equals("id")) {
+                            nodeKeys[numOfNodes] = reader.nextInt();
+                        } else if (field.equals("pos")) {
+                            String pos = reader.nextString();
+                            NumberParser.parsePosition(pos, 0, pos.length(), nodePositions, numOfNodes * 3);
+                            nodeHasPosition[numOfNodes] = true;
+                        } else {
+                            reader.skipValue();
+                        }
+                    }
+                    reader.endObject();
+                    numOfNodes++;
+                }
+                reader.endArray();
+            } else if (name.equals("Edges")) {
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    if (numOfEdges == edgeSources.length) {
+                        edgeSources = Arrays.copyOf(edgeSources, numOfEdges * 2);
+                        edgeDests = Arrays.copyOf(edgeDests, numOfEdges * 2);
+                        edgeWeights = Arrays.copyOf(edgeWeights, numOfEdges * 2);
+                    }
+                    reader.beginObject();
+                    while (reader.hasNext()) {
+                        String field = reader.nextName();
+                        if (field.equals("src")) edgeSources[numOfEdges] = reader.nextInt();
+                        else if (field.equals("dest")) edgeDests[numOfEdges] = reader.nextInt();
+                        else if (field.equals("w")) edgeWeights[numOfEdges] = reader.nextDouble();
+                        else reader.skipValue();
+                    }
+                    reader.endObject();
+                    numOfEdges++;
                 }
+                reader.endArray();
+            } else {
+                reader.skipValue();
             }
         }
+        reader.endObject();
+
+        // count the degrees first, so every node HashMap is created with the right size
+        HashMap<Integer, Integer> indexOfKey = new HashMap<>(numOfNodes * 2);
+        for (int i = 0; i < numOfNodes; i++)
+            indexOfKey.put(nodeKeys[i], i);
+        int[] outDegree = new int[numOfNodes];
+        int[] inDegree = new int[numOfNodes];
+        for (int i = 0; i < numOfEdges; i++) {
+            Integer srcIndex = indexOfKey.get(edgeSources[i]);
+            Integer destIndex = indexOfKey.get(edgeDests[i]);
+            if (srcIndex == null || destIndex == null)
+                throw new IllegalStateException("edge " + edgeSources[i] + "->" + edgeDests[i] + " has a node that is not in the graph");
+            outDegree[srcIndex]++;
+            inDegree[destIndex]++;
+        }
 
-        return list_connected_from;
+        DWGraph_DS loadedGraph = new DWGraph_DS(numOfNodes);
+        Random r = null;
+        for (int i = 0; i < numOfNodes; i++) {
+            node_data newNode = new NodeData(nodeKeys[i], outDegree[i], inDegree[i]);
+            Location location = (Location) newNode.getLocation();
+            if (nodeHasPosition[i]) {
+                location.setX(nodePositions[i * 3]);
+                location.setY(nodePositions[i * 3 + 1]);
+                location.setZ(nodePositions[i * 3 + 2]);
+            } else {
+                if (r == null) r = new Random();
+                location.setX(35.185 + (35.215 - 35.185) * r.nextDouble());
+                location.setY(32.098 + (32.11 - 32.098) * r.nextDouble());
+            }
+            loadedGraph.addNode(newNode);
+        }
+        for (int i = 0; i < numOfEdges; i++)
+            loadedGraph.connect(edgeSources[i], edgeDests[i], edgeWeights[i]);
+        return loadedGraph;
     }
 
-    private List<Integer> bfs_to(node_data starting_node) {
+    /**
+     * Returns all the strongly connected components of the graph, computed in O(V+E).
+     * every component is a list of keys in BFS order from its first node.
+     */
+    public List<List<Integer>> connected_components () {
 
-        Queue<node_data> queue = new LinkedList<node_data>();
-        queue.add(starting_node);
+        List<List<Integer>> ans_list = new ArrayList<>();
+        if (graph == null) return ans_list;
+
+        DWGraph_SCC scc = stronglyConnectedComponents();
+        DWGraph_CSR csr = scc.getGraph();
+        boolean[] listed_components = new boolean[scc.getNumOfComponents()];
+        boolean[] visited = new boolean[csr.nodeSize()];
+        int[] queue = new int[csr.nodeSize()];
+
+        for (int node_index = 0; node_index < csr.nodeSize(); node_index++) {
+            int component = scc.getComponentIds()[node_index];
+            if (listed_components[component]) continue;
+            listed_components[component] = true;
+            ans_list.add(bfs_in_component(scc, node_index, visited, queue));
+        }
+        return ans_list;
+    }
 
-        List<Integer> list_connected_to = new ArrayList<Integer>();
-        list_connected_to.add(starting_node.getKey());
+    /**
+     * Returns the strongly connected component of the node with the given key, in BFS order from that node.
+     */
+    public List<Integer> connected_component(int id) {
 
-        HashMap<Integer, Boolean> visited = new HashMap<>();
+        List<Integer> list = new ArrayList<Integer>();
 
-        for (int node_key : graph.getNodes().keySet()) {
-            visited.put(node_key, false);
-        }
+        if (graph == null) return list;
+
+        DWGraph_SCC scc = stronglyConnectedComponents();
+        DWGraph_CSR csr = scc.getGraph();
+        int node_index = csr.indexOf(id);
+
+        if (node_index == -1) return list;
 
-        visited.put(starting_node.getKey(), true);
+        return bfs_in_component(scc, node_index, new boolean[csr.nodeSize()], new int[csr.nodeSize()]);
+    }
 
-        while (!queue.isEmpty()) {
+    /**
+     * Returns the strongly connected components of the graph (with a component id per node, for O(1) reachability checks).
+     * the components are computed again only if the graph has changed.
+     */
+    public DWGraph_SCC stronglyConnectedComponents() {
+        DWGraph_CSR csr = DWGraph_CSR.of(this.graph);
+        if (this.scc == null || this.scc.getGraph() != csr)
+            this.scc = new DWGraph_SCC(csr);
+        return this.scc;
+    }
 
-            node_data node_from_queue = queue.poll();
-            for (edge_data edge_from_node : ((NodeData) node_from_queue).getEdgesConnectedToThisNode().values()) {
-                int edge_from_node_key = edge_from_node.getSrc();
-                if (!visited.get(edge_from_node_key)) {
-                    queue.add(graph.getNode(edge_from_node_key));
-                    list_connected_to.add(edge_from_node_key);
-                    visited.put(edge_from_node_key, true);
+    /**
+     * BFS from the given node that only walks on nodes in its own component.
+     * (every shortest path between two nodes of a component stays inside the component, so the order is the
+     * same as a BFS on the whole graph that keeps only the nodes of the component)
+     */
+    private List<Integer> bfs_in_component(DWGraph_SCC scc, int starting_index, boolean[] visited, int[] queue) {
+
+        DWGraph_CSR csr = scc.getGraph();
+        int[] component_of = scc.getComponentIds();
+        int component = component_of[starting_index];
+
+        List<Integer> list_connected = new ArrayList<Integer>();
+        int head = 0, tail = 0;
+        queue[tail++] = starting_index;
+        visited[starting_index] = true;
+
+        while (head < tail) {
+            int node_index = queue[head++];
+            list_connected.add(csr.keyAt(node_index));
+            for (int e = csr.outStart(node_index); e < csr.outStart(node_index + 1); e++) {
+                int neighbor_index = csr.outTarget(e);
+                if (!visited[neighbor_index] && component_of[neighbor_index] == component) {
+                    visited[neighbor_index] = true;
+                    queue[tail++] = neighbor_index;
                 }
             }
         }
-        return list_connected_to;
+        return list_connected;
     }
 
 }
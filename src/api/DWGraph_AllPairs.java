@@ -0,0 +1,135 @@
+package api;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * This class represents a precomputed all-pairs shortest path table of a graph.
+ * For every ordered pair of nodes it keeps the distance and the next hop (the node after src on the shortest path),
+ * as flat arrays indexed by the dense indexes of the graph CSR snapshot (row = src, column = dest).
+ * Small graphs are computed with Floyd-Warshall, bigger graphs with one dijkstra per source node in parallel.
+ * After the table is built, distance queries are O(1) and path queries are O(path length) with no search at all.
+ * Note: the table is n*n, so it is meant for small graphs (like the game arenas) - see MAX_NODES.
+ */
+public class DWGraph_AllPairs {
+
+    public static final int MAX_NODES = 2000; //biggest graph we build a table for (2000*2000 entries, about 48MB)
+    public static final int FLOYD_WARSHALL_MAX_NODES = 200; //biggest graph we use Floyd-Warshall for, bigger graphs use dijkstra per source
+
+    private final DWGraph_CSR csr;
+    private final int n;
+    private final double[] dist; //dist[src*n+dest], Double.MAX_VALUE if there is no path
+    private final int[] next; //next[src*n+dest] = the dense index of the node after src on the path, -1 if there is no path
+
+    private DWGraph_AllPairs(DWGraph_CSR csr) {
+        this.csr = csr;
+        this.n = csr.nodeSize();
+        this.dist = new double[n * n];
+        this.next = new int[n * n];
+    }
+
+    /**
+     * Builds the all-pairs table of the given graph.
+     * Returns null if the graph has more than MAX_NODES nodes.
+     */
+    static DWGraph_AllPairs build(directed_weighted_graph graph) {
+        DWGraph_CSR csr = DWGraph_CSR.of(graph);
+        if (csr.nodeSize() > MAX_NODES) return null;
+        DWGraph_AllPairs table = new DWGraph_AllPairs(csr);
+        if (csr.nodeSize() <= FLOYD_WARSHALL_MAX_NODES)
+            table.floydWarshall();
+        else
+            table.repeatedDijkstra(graph);
+        return table;
+    }
+
+    private void floydWarshall() {
+        Arrays.fill(dist, Double.MAX_VALUE);
+        Arrays.fill(next, -1);
+        for (int i = 0; i < n; i++) {
+            dist[i * n + i] = 0;
+            next[i * n + i] = i;
+            for (int e = csr.outStart(i); e < csr.outStart(i + 1); e++) {
+                int j = csr.outTarget(e);
+                dist[i * n + j] = csr.outWeight(e);
+                next[i * n + j] = j;
+            }
+        }
+        for (int k = 0; k < n; k++) {
+            int rowK = k * n;
+            for (int i = 0; i < n; i++) {
+                int rowI = i * n;
+                double distIK = dist[rowI + k];
+                if (distIK == Double.MAX_VALUE) continue; //there is no path from i to k
+                int nextIK = next[rowI + k];
+                for (int j = 0; j < n; j++) {
+                    double distKJ = dist[rowK + j];
+                    if (distKJ != Double.MAX_VALUE && distIK + distKJ < dist[rowI + j]) {
+                        dist[rowI + j] = distIK + distKJ;
+                        next[rowI + j] = nextIK;
+                    }
+                }
+            }
+        }
+    }
+
+    private void repeatedDijkstra(directed_weighted_graph graph) {
+        ThreadLocal<DWGraph_Dijkstra> engines = ThreadLocal.withInitial(() -> new DWGraph_Dijkstra(graph)); //every thread gets its own buffers
+        IntStream.range(0, n).parallel().forEach(src -> {
+            DWGraph_Dijkstra engine = engines.get();
+            int row = src * n;
+            Arrays.fill(dist, row, row + n, Double.MAX_VALUE);
+            Arrays.fill(next, row, row + n, -1);
+            int reached = engine.searchAll(src);
+            for (int k = 0; k < reached; k++) { //a node is always visited after its parent, so the parent next hop is already set
+                int node = engine.settledAt(k);
+                int parent = engine.parentAt(node);
+                dist[row + node] = engine.distAt(node);
+                next[row + node] = parent == -1 ? node : parent == src ? node : next[row + parent];
+            }
+        });
+    }
+
+    /**
+     * Returns true if the graph was not changed since this table was built.
+     */
+    public boolean isUpToDate() {
+        return this.csr.isUpToDate();
+    }
+
+    /**
+     * returns the length of the shortest path between src to dest, -1 if there is no such path (or no such nodes)
+     */
+    public double shortestPathDist(int src, int dest) {
+        int srcIndex = csr.indexOf(src);
+        int destIndex = csr.indexOf(dest);
+        if (srcIndex == -1 || destIndex == -1) return -1;
+        double distance = dist[srcIndex * n + destIndex];
+        return distance != Double.MAX_VALUE ? distance : -1;
+    }
+
+    /**
+     * returns the shortest path between src to dest as an ordered list of nodes, null if there is no such path.
+     * like DWGraph_Algo.shortestPath - the weight of every node in the path is its distance from src and its tag is the parent key.
+     */
+    public List<node_data> shortestPath(int src, int dest) {
+        int srcIndex = csr.indexOf(src);
+        int destIndex = csr.indexOf(dest);
+        if (srcIndex == -1 || destIndex == -1 || next[srcIndex * n + destIndex] == -1) return null;
+
+        int row = srcIndex * n;
+        List<node_data> path = new ArrayList<>();
+        int parentKey = -1;
+        int current = srcIndex;
+        while (true) {
+            int key = csr.keyAt(current);
+            path.add(new NodeData((NodeData) csr.getNode(key), dist[row + current], parentKey));
+            if (current == destIndex) break;
+            parentKey = key;
+            current = next[current * n + destIndex]; //every sub path of a shortest path is a shortest path
+        }
+        return path;
+    }
+}
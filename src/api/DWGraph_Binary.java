@@ -0,0 +1,87 @@
+package api;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * This class reads and writes graphs in a compact binary format (big endian):
+ * <pre>
+ * int    MAGIC ("DWGB")
+ * int    VERSION
+ * int    n - number of nodes
+ * int    m - number of edges
+ * int    keys[n]            - the node keys, sorted
+ * double positions[3*n]     - x,y,z of every node
+ * int    outStart[n+1]      - the outgoing edges of node i are [outStart[i], outStart[i+1])
+ * int    outTarget[m]       - the index (not the key) of the destination node
+ * double outWeight[m]
+ * int    inStart[n+1]       - the incoming edges of node i are [inStart[i], inStart[i+1])
+ * int    inSource[m]        - the index of the source node
+ * double inWeight[m]
+ * </pre>
+ * The file is the CSR snapshot of the graph as is, so it is read as a DWGraph_MappedCSR straight from a read-only
+ * memory mapped file with no parsing, and the same file can be mapped by several processes at once.
+ */
+class DWGraph_Binary {
+
+    static final int MAGIC = 0x44574742; // "DWGB"
+    static final int VERSION = 2; //version 2 added the incoming edges
+    private static final int HEADER_BYTES = 4 * Integer.BYTES;
+
+    /**
+     * Writes the given graph snapshot to the file (the file is replaced if it exists).
+     */
+    static void write(DWGraph_CSR csr, String file) throws IOException {
+        int n = csr.nodeSize();
+        int m = csr.edgeSize();
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw"); FileChannel channel = raf.getChannel()) {
+            raf.setLength(0);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size(n, m));
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(n).putInt(m);
+            for (int i = 0; i < n; i++)
+                buffer.putInt(csr.keyAt(i));
+            for (int i = 0; i < n; i++) {
+                geo_location location = csr.getNode(csr.keyAt(i)).getLocation();
+                buffer.putDouble(location.x()).putDouble(location.y()).putDouble(location.z());
+            }
+            for (int i = 0; i <= n; i++)
+                buffer.putInt(csr.outStart(i));
+            for (int e = 0; e < m; e++)
+                buffer.putInt(csr.outTarget(e));
+            for (int e = 0; e < m; e++)
+                buffer.putDouble(csr.outWeight(e));
+            for (int i = 0; i <= n; i++)
+                buffer.putInt(csr.inStart(i));
+            for (int e = 0; e < m; e++)
+                buffer.putInt(csr.inSource(e));
+            for (int e = 0; e < m; e++)
+                buffer.putDouble(csr.inWeight(e));
+            buffer.force();
+        }
+    }
+
+    /**
+     * Maps a binary graph file read-only, the graph reads its arrays straight from the mapped buffer.
+     * throws IOException if the file is not a binary graph file of a supported version.
+     */
+    static DWGraph_CSR read(String file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+            if (channel.size() < HEADER_BYTES) throw new IOException(file + " is not a binary graph file");
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()); //stays valid after the channel is closed
+            if (buffer.getInt() != MAGIC) throw new IOException(file + " is not a binary graph file");
+            int version = buffer.getInt();
+            if (version != VERSION) throw new IOException("unsupported binary graph version " + version);
+            int n = buffer.getInt();
+            int m = buffer.getInt();
+            if (n < 0 || m < 0 || channel.size() < size(n, m)) throw new IOException(file + " is truncated");
+            return new DWGraph_MappedCSR(buffer, n, m);
+        }
+    }
+
+    private static long size(int n, int m) {
+        return HEADER_BYTES + (long) n * Integer.BYTES + 3L * n * Double.BYTES
+                + 2 * ((n + 1L) * Integer.BYTES + (long) m * Integer.BYTES + (long) m * Double.BYTES);
+    }
+}
@@ -0,0 +1,263 @@
+package api;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * This class represents a read-only snapshot of a DWGraph_DS in compressed sparse row (CSR) form.
+ * Every node gets a dense index (nodes are sorted by key), the outgoing edges of node i are in
+ * [outStart(i), outStart(i+1)) of the out arrays, and the incoming edges (the edgesConnectedToThisNode of the node)
+ * are in [inStart(i), inStart(i+1)) of the in arrays. The edges of each node are sorted by the index of the other node.
+ * The algorithms use the primitive arrays for cache friendly traversal, and the directed_weighted_graph methods
+ * return the original node_data and edge_data objects, so the snapshot can be used wherever the graph is used.
+ * Note: the snapshot does not follow changes of the original graph - use DWGraph_DS.freeze() to get an updated one.
+ * A graph that was loaded from a binary graph file is a DWGraph_MappedCSR, that reads the same arrays straight from
+ * the memory mapped file and has no DWGraph_DS behind it.
+ */
+public class DWGraph_CSR implements directed_weighted_graph {
+
+    private final DWGraph_DS source; //the graph that this snapshot was made from
+    private final int mc; //the MC of the source graph when the snapshot was made
+
+    private final int[] keys; //keys[i] = the key of the node with index i, sorted
+    private final node_data[] nodes;
+    private final double[] x;
+    private final double[] y;
+
+    private final int[] outStart;
+    private final int[] outTarget;
+    private final double[] outWeight;
+    private final edge_data[] outEdges;
+
+    private final int[] inStart;
+    private final int[] inSource;
+    private final double[] inWeight;
+
+    /**
+     * Constructor for a subclass that keeps the arrays elsewhere (and overrides all the accessors).
+     */
+    DWGraph_CSR() {
+        source = null;
+        mc = 0;
+        keys = null;
+        nodes = null;
+        x = y = null;
+        outStart = outTarget = null;
+        outWeight = null;
+        outEdges = null;
+        inStart = inSource = null;
+        inWeight = null;
+    }
+
+    DWGraph_CSR(DWGraph_DS graph) {
+        this.source = graph;
+        this.mc = graph.getMC();
+
+        int n = graph.nodeSize();
+        keys = new int[n];
+        int i = 0;
+        for (node_data node : graph.getV())
+            keys[i++] = node.getKey();
+        Arrays.sort(keys);
+
+        nodes = new node_data[n];
+        x = new double[n];
+        y = new double[n];
+        outStart = new int[n + 1];
+        inStart = new int[n + 1];
+        for (i = 0; i < n; i++) {
+            NodeData node = (NodeData) graph.getNode(keys[i]);
+            nodes[i] = node;
+            x[i] = node.getLocation().x();
+            y[i] = node.getLocation().y();
+            outStart[i + 1] = outStart[i] + node.getNeighborEdges().size();
+            inStart[i + 1] = inStart[i] + node.getEdgesConnectedToThisNode().size();
+        }
+
+        outTarget = new int[outStart[n]];
+        outWeight = new double[outStart[n]];
+        outEdges = new edge_data[outStart[n]];
+        inSource = new int[inStart[n]];
+        inWeight = new double[inStart[n]];
+        for (i = 0; i < n; i++) {
+            NodeData node = (NodeData) nodes[i];
+            fillEdges(node.getNeighborEdges().values(), outStart[i], outTarget, outWeight, outEdges, false);
+            fillEdges(node.getEdgesConnectedToThisNode().values(), inStart[i], inSource, inWeight, null, true);
+        }
+    }
+
+    /**
+     * Writes the given edges of one node to the arrays starting at the given position, sorted by the index of the other node.
+     * bySource = true for incoming edges (the other node is the source), false for outgoing edges (the other node is the dest).
+     */
+    private void fillEdges(Collection<edge_data> edges, int start, int[] other, double[] weight, edge_data[] edgeObjects, boolean bySource) {
+        edge_data[] edgesArray = edges.toArray(new edge_data[0]);
+        long[] order = new long[edgesArray.length];
+        for (int j = 0; j < edgesArray.length; j++) {
+            int otherKey = bySource ? edgesArray[j].getSrc() : edgesArray[j].getDest();
+            order[j] = ((long) indexOf(otherKey) << 32) | j; //sort by the index of the other node, and keep the position in the low bits
+        }
+        Arrays.sort(order);
+        for (int j = 0; j < order.length; j++) {
+            edge_data edge = edgesArray[(int) order[j]];
+            other[start + j] = (int) (order[j] >>> 32);
+            weight[start + j] = edge.getWeight();
+            if (edgeObjects != null) edgeObjects[start + j] = edge;
+        }
+    }
+
+    /**
+     * Returns the CSR snapshot of the given graph - the graph itself if it is a DWGraph_CSR.
+     */
+    public static DWGraph_CSR of(directed_weighted_graph graph) {
+        if (graph instanceof DWGraph_CSR) return (DWGraph_CSR) graph;
+        if (graph instanceof DWGraph_DS) return ((DWGraph_DS) graph).freeze();
+        throw new IllegalArgumentException("a CSR snapshot needs a DWGraph_DS or a DWGraph_CSR");
+    }
+
+    /**
+     * Returns the graph that this snapshot was made from.
+     */
+    public DWGraph_DS getSource() {
+        return this.source;
+    }
+
+    /**
+     * Returns the graph that the algorithms work on when they get this snapshot - the source graph, or the snapshot
+     * itself if it has no source (see DWGraph_MappedCSR).
+     */
+    directed_weighted_graph owner() {
+        return this.source;
+    }
+
+    /**
+     * Returns true if the source graph was not changed since this snapshot was made.
+     */
+    public boolean isUpToDate() {
+        return this.source.getMC() == this.mc;
+    }
+
+    /**
+     * Returns the dense index [0, nodeSize()) of the node with the given key, -1 if there is no such node.
+     */
+    public int indexOf(int key) {
+        int n = keys.length;
+        if (n == 0) return -1;
+        if (keys[n - 1] - keys[0] == n - 1) { //the keys are consecutive, no need to search
+            int index = key - keys[0];
+            return index >= 0 && index < n ? index : -1;
+        }
+        int index = Arrays.binarySearch(keys, key);
+        return index >= 0 ? index : -1;
+    }
+
+    /**
+     * Returns the key of the node with the given dense index.
+     */
+    public int keyAt(int index) {
+        return keys[index];
+    }
+
+    public double x(int index) {
+        return x[index];
+    }
+
+    public double y(int index) {
+        return y[index];
+    }
+
+    /**
+     * The outgoing edges of the node with index i are in [outStart(i), outStart(i+1)).
+     */
+    public int outStart(int index) {
+        return outStart[index];
+    }
+
+    public int outTarget(int edge) {
+        return outTarget[edge];
+    }
+
+    public double outWeight(int edge) {
+        return outWeight[edge];
+    }
+
+    /**
+     * The incoming edges of the node with index i are in [inStart(i), inStart(i+1)).
+     */
+    public int inStart(int index) {
+        return inStart[index];
+    }
+
+    public int inSource(int edge) {
+        return inSource[edge];
+    }
+
+    public double inWeight(int edge) {
+        return inWeight[edge];
+    }
+
+    @Override
+    public node_data getNode(int key) {
+        int index = indexOf(key);
+        return index == -1 ? null : nodes[index];
+    }
+
+    @Override
+    public edge_data getEdge(int src, int dest) {
+        int srcIndex = indexOf(src);
+        int destIndex = indexOf(dest);
+        if (srcIndex == -1 || destIndex == -1) return null;
+        int edge = Arrays.binarySearch(outTarget, outStart[srcIndex], outStart[srcIndex + 1], destIndex);
+        return edge >= 0 ? outEdges[edge] : null;
+    }
+
+    @Override
+    public Collection<node_data> getV() {
+        return Collections.unmodifiableList(Arrays.asList(nodes));
+    }
+
+    @Override
+    public Collection<edge_data> getE(int node_id) {
+        int index = indexOf(node_id);
+        if (index == -1) return Collections.emptyList();
+        List<edge_data> edges = Arrays.asList(outEdges).subList(outStart[index], outStart[index + 1]);
+        return Collections.unmodifiableList(edges);
+    }
+
+    @Override
+    public int nodeSize() {
+        return keys.length;
+    }
+
+    @Override
+    public int edgeSize() {
+        return outTarget.length;
+    }
+
+    @Override
+    public int getMC() {
+        return this.mc;
+    }
+
+    @Override
+    public void addNode(node_data n) {
+        throw new UnsupportedOperationException("DWGraph_CSR is a read-only snapshot");
+    }
+
+    @Override
+    public void connect(int src, int dest, double w) {
+        throw new UnsupportedOperationException("DWGraph_CSR is a read-only snapshot");
+    }
+
+    @Override
+    public node_data removeNode(int key) {
+        throw new UnsupportedOperationException("DWGraph_CSR is a read-only snapshot");
+    }
+
+    @Override
+    public edge_data removeEdge(int src, int dest) {
+        throw new UnsupportedOperationException("DWGraph_CSR is a read-only snapshot");
+    }
+}
@@ -0,0 +1,629 @@
+package api;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This class represents a contraction hierarchy (CH) of a static graph, for fast point to point queries.
+ * The nodes are contracted one by one, by the order of their edge difference (the shortcuts that the contraction adds
+ * minus the edges that it removes, plus the contracted neighbors and the level so the contraction spreads over the graph):
+ * contracting v removes it from the graph, and for every u->v->x that is the only shortest path from u to x (no witness
+ * path that avoids v was found) a shortcut u->x is added, so the distances between the remaining nodes do not change.
+ * A node's rank is its place in the contraction order, and the hierarchy keeps only the upward edges - the edges
+ * (original and shortcuts) from every node to higher ranked nodes, and the edges into every node from higher ranked nodes.
+ * A query runs a dijkstra upward from src and a dijkstra upward (on the incoming edges) from dest, the shortest path
+ * goes up to the highest ranked node of the path and down from it, so the best meeting node gives the distance.
+ * Every shortcut remembers the node it skips, so a path is unpacked back to the original edges.
+ * On a graph with no hierarchy (like the random json graphs) the shortcuts make the graph that is left denser and
+ * denser, so the contraction stops when its average degree doubles and the nodes that are left are the core - they
+ * share the top rank and keep all their edges, and a query searches the core with a bidirectional dijkstra.
+ * The upward edges are kept in CSR form, indexed by the dense indexes of the graph CSR snapshot.
+ * Note: the queries share the search buffers, so they are synchronized.
+ */
+public class DWGraph_ContractionHierarchy {
+
+    private static final int WITNESS_SETTLED_LIMIT = 500; //the witness search gives up after this many nodes (and adds the shortcut)
+    private static final int PRIORITY_SETTLED_LIMIT = 50; //the same, for the witness searches that only count the shortcuts
+    private static final int CORE_DEGREE_GROWTH = 2; //the contraction stops when the average degree of the nodes that are left doubles
+
+    private final DWGraph_CSR csr;
+    private final int n;
+    private final int[] rank;
+    private final int shortcuts;
+    private final int coreSize;
+    private final int coreRank; //the rank of all the core nodes (n if there is no core)
+
+    // up[v] = the edges v->x with rank[x] > rank[v], down[v] = the edges u->v with rank[u] > rank[v]
+    private final int[] upStart, upTarget, upMiddle; //middle = the node that a shortcut skips, -1 for an original edge
+    private final double[] upWeight;
+    private final int[] downStart, downSource, downMiddle;
+    private final double[] downWeight;
+
+    // per-query state of the forward (from src) and the backward (from dest) searches.
+    // a node state is valid only if its stamp == generation
+    private final double[] forwardDist, backwardDist;
+    private final int[] forwardParentEdge, backwardParentEdge; //the up (forward) or down (backward) edge that reached the node, -1 for src/dest
+    private final int[] forwardParent, backwardParent;
+    private final int[] forwardStamp, backwardStamp;
+    private int generation;
+    private final DWGraph_IndexedHeap forwardHeap, backwardHeap;
+    private final DWGraph_IndexedHeap forwardCoreHeap, backwardCoreHeap; //the core nodes that the searches reached
+    private double best; //the length of the best path that the searches found
+    private int meeting; //the node where the best path meets, -1 if none
+    private long settledNodes; //the number of nodes that all the queries visited
+
+    private DWGraph_ContractionHierarchy(DWGraph_CSR csr, int[] rank, EdgeList[] up, EdgeList[] down, int shortcuts,
+                                         int coreSize) {
+        this.csr = csr;
+        this.n = csr.nodeSize();
+        this.rank = rank;
+        this.shortcuts = shortcuts;
+        this.coreSize = coreSize;
+        this.coreRank = n - coreSize;
+
+        upStart = new int[n + 1];
+        downStart = new int[n + 1];
+        for (int v = 0; v < n; v++) {
+            upStart[v + 1] = upStart[v] + up[v].size;
+            downStart[v + 1] = downStart[v] + down[v].size;
+        }
+        upTarget = new int[upStart[n]];
+        upMiddle = new int[upStart[n]];
+        upWeight = new double[upStart[n]];
+        downSource = new int[downStart[n]];
+        downMiddle = new int[downStart[n]];
+        downWeight = new double[downStart[n]];
+        for (int v = 0; v < n; v++) {
+            System.arraycopy(up[v].other, 0, upTarget, upStart[v], up[v].size);
+            System.arraycopy(up[v].middle, 0, upMiddle, upStart[v], up[v].size);
+            System.arraycopy(up[v].weight, 0, upWeight, upStart[v], up[v].size);
+            System.arraycopy(down[v].other, 0, downSource, downStart[v], down[v].size);
+            System.arraycopy(down[v].middle, 0, downMiddle, downStart[v], down[v].size);
+            System.arraycopy(down[v].weight, 0, downWeight, downStart[v], down[v].size);
+        }
+
+        forwardDist = new double[n];
+        backwardDist = new double[n];
+        forwardParentEdge = new int[n];
+        backwardParentEdge = new int[n];
+        forwardParent = new int[n];
+        backwardParent = new int[n];
+        forwardStamp = new int[n];
+        backwardStamp = new int[n];
+        forwardHeap = new DWGraph_IndexedHeap(n);
+        backwardHeap = new DWGraph_IndexedHeap(n);
+        forwardCoreHeap = new DWGraph_IndexedHeap(n);
+        backwardCoreHeap = new DWGraph_IndexedHeap(n);
+    }
+
+    /**
+     * Builds the contraction hierarchy of the given graph (a DWGraph_DS or its DWGraph_CSR snapshot).
+     */
+    public static DWGraph_ContractionHierarchy build(directed_weighted_graph graph) {
+        return new Builder(DWGraph_CSR.of(graph)).build();
+    }
+
+    /**
+     * Returns true if the graph was not changed since the hierarchy was built.
+     */
+    public boolean isUpToDate() {
+        return this.csr.isUpToDate();
+    }
+
+    /**
+     * Returns the graph that the hierarchy was built for.
+     */
+    public directed_weighted_graph getGraph() {
+        return this.csr.owner();
+    }
+
+    /**
+     * Returns the number of shortcuts that the contraction added.
+     */
+    public int getShortcuts() {
+        return this.shortcuts;
+    }
+
+    /**
+     * Returns the number of nodes that were not contracted (the core), 0 if the whole graph was contracted.
+     */
+    public int getCoreSize() {
+        return this.coreSize;
+    }
+
+    /**
+     * Returns the number of nodes that all the queries visited.
+     */
+    public long getSettledNodes() {
+        return this.settledNodes;
+    }
+
+    /**
+     * Returns the rank of the node with the given key (its place in the contraction order), -1 if there is no such node.
+     */
+    public int getRank(int key) {
+        int index = csr.indexOf(key);
+        return index == -1 ? -1 : rank[index];
+    }
+
+    /**
+     * returns the length of the shortest path between src to dest, -1 if there is no such path (or no such nodes)
+     */
+    public synchronized double shortestPathDist(int src, int dest) {
+        int meeting = search(src, dest);
+        return meeting < 0 ? -1 : forwardDist[meeting] + backwardDist[meeting];
+    }
+
+    /**
+     * returns the shortest path between src to dest as an ordered list of nodes, null if there is no such path.
+     * like DWGraph_Algo.shortestPath - the weight of every node in the path is its distance from src and its tag is the parent key.
+     */
+    public synchronized List<node_data> shortestPath(int src, int dest) {
+        int meeting = search(src, dest);
+        if (meeting < 0) return null;
+
+        //the upward edges of the path, from src up to the meeting node and down to dest
+        List<Integer> forwardEdges = new ArrayList<>();
+        for (int i = meeting; forwardParentEdge[i] != -1; i = forwardParent[i])
+            forwardEdges.add(forwardParentEdge[i]);
+        int srcIndex = csr.indexOf(src);
+        List<node_data> path = new ArrayList<>();
+        path.add(new NodeData((NodeData) csr.getNode(src), 0, -1));
+        double[] distance = {0};
+        int from = srcIndex;
+        for (int k = forwardEdges.size() - 1; k >= 0; k--) {
+            int edge = forwardEdges.get(k);
+            unpack(from, upTarget[edge], upMiddle[edge], upWeight[edge], path, distance);
+            from = upTarget[edge];
+        }
+        for (int i = meeting; backwardParentEdge[i] != -1; i = backwardParent[i]) {
+            int edge = backwardParentEdge[i];
+            unpack(i, backwardParent[i], downMiddle[edge], downWeight[edge], path, distance);
+        }
+        return path;
+    }
+
+    /**
+     * Runs the upward searches from src and from dest, and then (if there is a core) a bidirectional dijkstra in the core.
+     * An upward search stops when its smallest key is not better than the best path that was found (unlike a
+     * bidirectional dijkstra, the first meeting is not enough - the searches go only up), and a node that is reached
+     * shorter from a higher node (stall on demand) is not expanded, as the shortest path does not go up through it.
+     * The upward searches do not expand the core nodes they reach - these nodes wait in the core heaps, with the
+     * distances from src and to dest, and the core search expands them until the two smallest keys add up to the best path.
+     * Returns the dense index of the node where the best path meets, or -1 if one of the nodes is missing or there is no path.
+     */
+    private int search(int src, int dest) {
+        int srcIndex = csr.indexOf(src);
+        int destIndex = csr.indexOf(dest);
+        if (srcIndex == -1 || destIndex == -1) return -1;
+        nextGeneration();
+        best = Double.MAX_VALUE;
+        meeting = -1;
+
+        forwardRelax(-1, srcIndex, 0, -1);
+        backwardRelax(-1, destIndex, 0, -1);
+        while (true) {
+            boolean forwardDone = forwardHeap.isEmpty() || forwardHeap.minKey() >= best;
+            boolean backwardDone = backwardHeap.isEmpty() || backwardHeap.minKey() >= best;
+            if (forwardDone && backwardDone) break;
+            if (!forwardDone && (backwardDone || forwardHeap.minKey() <= backwardHeap.minKey())) {
+                int current = forwardHeap.poll();
+                settledNodes++;
+                if (forwardStalled(current)) continue;
+                for (int e = upStart[current]; e < upStart[current + 1]; e++)
+                    forwardRelax(current, upTarget[e], forwardDist[current] + upWeight[e], e);
+            } else {
+                int current = backwardHeap.poll();
+                settledNodes++;
+                if (backwardStalled(current)) continue;
+                for (int e = downStart[current]; e < downStart[current + 1]; e++)
+                    backwardRelax(current, downSource[e], backwardDist[current] + downWeight[e], e);
+            }
+        }
+
+        //the core, every core node has all its core edges as up and down edges
+        while (!forwardCoreHeap.isEmpty() && !backwardCoreHeap.isEmpty()
+                && forwardCoreHeap.minKey() + backwardCoreHeap.minKey() < best) {
+            if (forwardCoreHeap.size() <= backwardCoreHeap.size()) {
+                int current = forwardCoreHeap.poll();
+                settledNodes++;
+                for (int e = upStart[current]; e < upStart[current + 1]; e++)
+                    forwardRelax(current, upTarget[e], forwardDist[current] + upWeight[e], e);
+            } else {
+                int current = backwardCoreHeap.poll();
+                settledNodes++;
+                for (int e = downStart[current]; e < downStart[current + 1]; e++)
+                    backwardRelax(current, downSource[e], backwardDist[current] + downWeight[e], e);
+            }
+        }
+        return meeting;
+    }
+
+    /**
+     * Returns true if a higher node that the forward search reached has an edge down to the node that makes it shorter.
+     */
+    private boolean forwardStalled(int node) {
+        for (int e = downStart[node]; e < downStart[node + 1]; e++) {
+            int higher = downSource[e];
+            if (forwardStamp[higher] == generation && forwardDist[higher] + downWeight[e] < forwardDist[node]) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns true if the node has an edge up to a higher node that the backward search reached, that makes it shorter.
+     */
+    private boolean backwardStalled(int node) {
+        for (int e = upStart[node]; e < upStart[node + 1]; e++) {
+            int higher = upTarget[e];
+            if (backwardStamp[higher] == generation && backwardDist[higher] + upWeight[e] < backwardDist[node]) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Reaches the neighbor from current (-1 for src) by the given up edge, if it is shorter than the distance it has.
+     * every shorter distance is also checked as a meeting of the two searches.
+     */
+    private void forwardRelax(int current, int neighbor, double newDist, int edge) {
+        DWGraph_IndexedHeap heap = rank[neighbor] >= coreRank ? forwardCoreHeap : forwardHeap;
+        if (forwardStamp[neighbor] != generation) {
+            forwardStamp[neighbor] = generation;
+            heap.add(neighbor, newDist);
+        } else if (heap.contains(neighbor) && newDist < forwardDist[neighbor]) {
+            heap.decreaseKey(neighbor, newDist);
+        } else return;
+        forwardDist[neighbor] = newDist;
+        forwardParent[neighbor] = current;
+        forwardParentEdge[neighbor] = edge;
+        if (backwardStamp[neighbor] == generation && newDist + backwardDist[neighbor] < best) {
+            best = newDist + backwardDist[neighbor];
+            meeting = neighbor;
+        }
+    }
+
+    /**
+     * Reaches the neighbor from current (-1 for dest) by the given down edge, if it is shorter than the distance it has.
+     */
+    private void backwardRelax(int current, int neighbor, double newDist, int edge) {
+        DWGraph_IndexedHeap heap = rank[neighbor] >= coreRank ? backwardCoreHeap : backwardHeap;
+        if (backwardStamp[neighbor] != generation) {
+            backwardStamp[neighbor] = generation;
+            heap.add(neighbor, newDist);
+        } else if (heap.contains(neighbor) && newDist < backwardDist[neighbor]) {
+            heap.decreaseKey(neighbor, newDist);
+        } else return;
+        backwardDist[neighbor] = newDist;
+        backwardParent[neighbor] = current;
+        backwardParentEdge[neighbor] = edge;
+        if (forwardStamp[neighbor] == generation && newDist + forwardDist[neighbor] < best) {
+            best = newDist + forwardDist[neighbor];
+            meeting = neighbor;
+        }
+    }
+
+    /**
+     * Adds the original nodes of the edge from->to (after from) to the path. a shortcut is the edge from->middle and
+     * the edge middle->to, both kept at middle (it was contracted before from and to), so they are unpacked in turn.
+     */
+    private void unpack(int from, int to, int middle, double weight, List<node_data> path, double[] distance) {
+        int[] stack = new int[16 * 3];
+        double[] stackWeight = new double[16];
+        int size = 0;
+        stack[0] = from;
+        stack[1] = to;
+        stack[2] = middle;
+        stackWeight[0] = weight;
+        size++;
+        while (size > 0) {
+            size--;
+            int a = stack[size * 3], b = stack[size * 3 + 1], m = stack[size * 3 + 2];
+            double w = stackWeight[size];
+            if (m == -1) { //an original edge
+                distance[0] += w;
+                path.add(new NodeData((NodeData) csr.getNode(csr.keyAt(b)), distance[0], csr.keyAt(a)));
+                continue;
+            }
+            if ((size + 2) * 3 > stack.length) {
+                stack = Arrays.copyOf(stack, stack.length * 2);
+                stackWeight = Arrays.copyOf(stackWeight, stackWeight.length * 2);
+            }
+            int second = upEdge(m, b), first = downEdge(m, a);
+            //the second half first, so the first half is unpacked first
+            stack[size * 3] = m;
+            stack[size * 3 + 1] = b;
+            stack[size * 3 + 2] = upMiddle[second];
+            stackWeight[size++] = upWeight[second];
+            stack[size * 3] = a;
+            stack[size * 3 + 1] = m;
+            stack[size * 3 + 2] = downMiddle[first];
+            stackWeight[size++] = downWeight[first];
+        }
+    }
+
+    /**
+     * Returns the up edge of node to target.
+     */
+    private int upEdge(int node, int target) {
+        for (int e = upStart[node]; e < upStart[node + 1]; e++) {
+            if (upTarget[e] == target) return e;
+        }
+        throw new IllegalStateException("missing edge " + node + "->" + target + " of a shortcut");
+    }
+
+    /**
+     * Returns the down edge of node from source.
+     */
+    private int downEdge(int node, int source) {
+        for (int e = downStart[node]; e < downStart[node + 1]; e++) {
+            if (downSource[e] == source) return e;
+        }
+        throw new IllegalStateException("missing edge " + source + "->" + node + " of a shortcut");
+    }
+
+    /**
+     * Starts a new query - all the nodes become unreached without clearing the arrays.
+     */
+    private void nextGeneration() {
+        forwardHeap.clear();
+        backwardHeap.clear();
+        forwardCoreHeap.clear();
+        backwardCoreHeap.clear();
+        if (++generation == Integer.MAX_VALUE) { //the stamps are about to overflow, so we clear them once
+            Arrays.fill(forwardStamp, 0);
+            Arrays.fill(backwardStamp, 0);
+            generation = 1;
+        }
+    }
+
+    /**
+     * This class represents the edges of one node while the graph is contracted, as growing primitive arrays.
+     */
+    private static class EdgeList {
+        int[] other = new int[4]; //the other node of every edge
+        double[] weight = new double[4];
+        int[] middle = new int[4];
+        int size;
+
+        void add(int otherNode, double edgeWeight, int middleNode) {
+            if (size == other.length) {
+                other = Arrays.copyOf(other, size * 2);
+                weight = Arrays.copyOf(weight, size * 2);
+                middle = Arrays.copyOf(middle, size * 2);
+            }
+            other[size] = otherNode;
+            weight[size] = edgeWeight;
+            middle[size++] = middleNode;
+        }
+
+        int indexOf(int otherNode) {
+            for (int i = 0; i < size; i++) {
+                if (other[i] == otherNode) return i;
+            }
+            return -1;
+        }
+
+        /**
+         * Removes the edge with the given other node (the last edge takes its place).
+         */
+        void remove(int otherNode) {
+            int i = indexOf(otherNode);
+            if (i == -1) return;
+            size--;
+            other[i] = other[size];
+            weight[i] = weight[size];
+            middle[i] = middle[size];
+        }
+    }
+
+    /**
+     * This class represents one contraction of a graph into a hierarchy.
+     */
+    private static class Builder {
+        private final DWGraph_CSR csr;
+        private final int n;
+        private final EdgeList[] out, in; //the edges of the graph that is left (with the shortcuts)
+        private final EdgeList[] up, down; //the edges of every contracted node to the nodes that were left
+        private final int[] shortcutsNeeded; //the number of shortcuts of every node in its last priority
+        private final int[] contractedNeighbors;
+        private final int[] level; //1 + the highest level of a contracted neighbor, so the hierarchy stays flat
+        private final int[] rank;
+        private final long maxCoreEdges; //CORE_DEGREE_GROWTH times the average degree of the graph
+        private long edges; //the number of edges of the graph that is left
+        private int shortcuts;
+
+        // the witness searches
+        private final double[] witnessDist;
+        private final int[] witnessStamp;
+        private final int[] targetStamp; //the out neighbors of the contracted node, that the witness search looks for
+        private int witnessGeneration;
+        private final DWGraph_IndexedHeap witnessHeap;
+
+        Builder(DWGraph_CSR csr) {
+            this.csr = csr;
+            this.n = csr.nodeSize();
+            out = new EdgeList[n];
+            in = new EdgeList[n];
+            up = new EdgeList[n];
+            down = new EdgeList[n];
+            for (int v = 0; v < n; v++) {
+                out[v] = new EdgeList();
+                in[v] = new EdgeList();
+                up[v] = new EdgeList();
+                down[v] = new EdgeList();
+            }
+            for (int v = 0; v < n; v++) {
+                for (int e = csr.outStart(v); e < csr.outStart(v + 1); e++) {
+                    if (csr.outTarget(e) != v) addEdge(v, csr.outTarget(e), csr.outWeight(e), -1); //a loop is never on a shortest path
+                }
+            }
+            maxCoreEdges = n == 0 ? 0 : Math.max(1, CORE_DEGREE_GROWTH * edges / n);
+            shortcutsNeeded = new int[n];
+            contractedNeighbors = new int[n];
+            level = new int[n];
+            rank = new int[n];
+            witnessDist = new double[n];
+            witnessStamp = new int[n];
+            targetStamp = new int[n];
+            witnessHeap = new DWGraph_IndexedHeap(n);
+        }
+
+        DWGraph_ContractionHierarchy build() {
+            DWGraph_IndexedHeap order = new DWGraph_IndexedHeap(n);
+            for (int v = 0; v < n; v++) {
+                shortcutsNeeded[v] = shortcuts(v, false);
+                order.add(v, priority(v));
+            }
+            int nextRank = 0;
+            while (!order.isEmpty() && edges <= maxCoreEdges * order.size()) {
+                int v = order.poll();
+                shortcutsNeeded[v] = shortcuts(v, false); //the shortcuts may have changed since they were counted (lazy update)
+                double priority = priority(v);
+                if (!order.isEmpty() && priority > order.minKey()) {
+                    order.add(v, priority);
+                    continue;
+                }
+                contract(v);
+                rank[v] = nextRank++;
+                for (int i = 0; i < up[v].size; i++)
+                    updateNeighbor(order, v, up[v].other[i]);
+                for (int i = 0; i < down[v].size; i++)
+                    updateNeighbor(order, v, down[v].other[i]);
+            }
+            //the core - the nodes that were left share the top rank, and keep all their edges both up and down
+            int core = order.size();
+            while (!order.isEmpty()) {
+                int v = order.poll();
+                up[v] = out[v];
+                down[v] = in[v];
+                rank[v] = nextRank;
+            }
+            return new DWGraph_ContractionHierarchy(csr, rank, up, down, shortcuts, core);
+        }
+
+        /**
+         * Updates the priority of a neighbor of the contracted node v, by its shortcuts from its last priority (counting
+         * them again for every neighbor costs most of the contraction, they are counted again when the node is polled).
+         */
+        private void updateNeighbor(DWGraph_IndexedHeap order, int v, int neighbor) {
+            if (!order.contains(neighbor)) return;
+            contractedNeighbors[neighbor]++;
+            level[neighbor] = Math.max(level[neighbor], level[v] + 1);
+            order.changeKey(neighbor, priority(neighbor));
+        }
+
+        /**
+         * The edge difference of contracting v (by its last shortcuts count), plus its contracted neighbors and its level.
+         */
+        private double priority(int v) {
+            return 2 * (shortcutsNeeded[v] - (out[v].size + in[v].size)) + contractedNeighbors[v] + level[v];
+        }
+
+        /**
+         * Removes v from the graph that is left - its edges become its up and down edges, and the shortcuts are added.
+         */
+        private void contract(int v) {
+            for (int i = 0; i < out[v].size; i++) {
+                up[v].add(out[v].other[i], out[v].weight[i], out[v].middle[i]);
+            }
+            for (int i = 0; i < in[v].size; i++) {
+                down[v].add(in[v].other[i], in[v].weight[i], in[v].middle[i]);
+            }
+            shortcuts(v, true);
+            for (int i = 0; i < up[v].size; i++)
+                in[up[v].other[i]].remove(v);
+            for (int i = 0; i < down[v].size; i++)
+                out[down[v].other[i]].remove(v);
+            edges -= up[v].size + down[v].size;
+            out[v] = in[v] = null;
+        }
+
+        /**
+         * Returns the number of shortcuts that contracting v needs, and adds them if add = true.
+         * a shortcut u->x is needed if the witness search from u (that avoids v) found no path to x that is as short as u->v->x.
+         */
+        private int shortcuts(int v, boolean add) {
+            int count = 0;
+            double maxOut = 0;
+            for (int j = 0; j < out[v].size; j++)
+                maxOut = Math.max(maxOut, out[v].weight[j]);
+            EdgeList vIn = in[v], vOut = out[v];
+            for (int i = 0; i < vIn.size; i++) {
+                int u = vIn.other[i];
+                double toV = vIn.weight[i];
+                witnessSearch(u, v, toV + maxOut, add ? WITNESS_SETTLED_LIMIT : PRIORITY_SETTLED_LIMIT);
+                for (int j = 0; j < vOut.size; j++) {
+                    int x = vOut.other[j];
+                    if (x == u) continue;
+                    double via = toV + vOut.weight[j];
+                    if (witnessStamp[x] == witnessGeneration && witnessDist[x] <= via) continue; //there is a witness path
+                    count++;
+                    if (add) addEdge(u, x, via, v);
+                }
+            }
+            if (add) shortcuts += count;
+            return count;
+        }
+        /**
+         * A dijkstra from u on the graph that is left without v, until all the out neighbors of v are settled, maxDist
+         * or settledLimit nodes.
+         */
+        private void witnessSearch(int u, int v, double maxDist, int settledLimit) {
+            witnessHeap.clear();
+            if (++witnessGeneration == Integer.MAX_VALUE) {
+                Arrays.fill(witnessStamp, 0);
+                Arrays.fill(targetStamp, 0);
+                witnessGeneration = 1;
+            }
+            int targets = 0;
+            for (int j = 0; j < out[v].size; j++) {
+                if (out[v].other[j] != u) {
+                    targetStamp[out[v].other[j]] = witnessGeneration;
+                    targets++;
+                }
+            }
+            witnessStamp[u] = witnessGeneration;
+            witnessDist[u] = 0;
+            witnessHeap.add(u, 0);
+            int settled = 0;
+            while (targets > 0 && !witnessHeap.isEmpty() && witnessHeap.minKey() <= maxDist && settled++ < settledLimit) {
+                int current = witnessHeap.poll();
+                if (targetStamp[current] == witnessGeneration) targets--;
+                EdgeList edges = out[current];
+                for (int i = 0; i < edges.size; i++) {
+                    int neighbor = edges.other[i];
+                    if (neighbor == v) continue;
+                    double newDist = witnessDist[current] + edges.weight[i];
+                    if (newDist > maxDist) continue; //too long for a witness
+                    if (witnessStamp[neighbor] != witnessGeneration) {
+                        witnessStamp[neighbor] = witnessGeneration;
+                        witnessDist[neighbor] = newDist;
+                        witnessHeap.add(neighbor, newDist);
+                    } else if (witnessHeap.contains(neighbor) && newDist < witnessDist[neighbor]) {
+                        witnessDist[neighbor] = newDist;
+                        witnessHeap.decreaseKey(neighbor, newDist);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Adds the edge u->x, or makes the existing edge u->x lighter.
+         */
+        private void addEdge(int u, int x, double weight, int middle) {
+            int i = out[u].indexOf(x);
+            if (i == -1) {
+                out[u].add(x, weight, middle);
+                in[x].add(u, weight, middle);
+                edges++;
+            } else if (weight < out[u].weight[i]) {
+                out[u].weight[i] = weight;
+                out[u].middle[i] = middle;
+                int j = in[x].indexOf(u);
+                in[x].weight[j] = weight;
+                in[x].middle[j] = middle;
+            }
+        }
+    }
+}
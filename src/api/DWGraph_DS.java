@@ -10,11 +10,19 @@ public class DWGraph_DS implements directed_weighted_graph {
     private int numOfEdges = 0;
     private int modeCount = 0; //represents number of changes.
     private HashMap<Integer, node_data> nodes;
+    private DWGraph_CSR frozen; //the last read-only snapshot of this graph, null if there is none yet.
 
     public DWGraph_DS() {
         this.nodes = new HashMap<Integer, node_data>();
     }
 
+    /**
+     * Creates an empty graph with room for the given number of nodes (so loading a big graph does not resize the HashMap).
+     */
+    public DWGraph_DS(int expectedNodes) {
+        this.nodes = new HashMap<Integer, node_data>(Math.max(16, (int) (expectedNodes / 0.75f) + 1));
+    }
+
     public DWGraph_DS(directed_weighted_graph graph) {
         this.numOfEdges = graph.edgeSize();
         this.modeCount = graph.getMC();
@@ -106,7 +114,7 @@ public class DWGraph_DS implements directed_weighted_graph {
             EdgeData edgeToRemove = (EdgeData) destItr.next();
             NodeData nodeConnectedFromThisNode = (NodeData) nodes.get(edgeToRemove.getDest()); //get the node that the edge is directed at (the destination node)
             nodeConnectedFromThisNode.getEdgesConnectedToThisNode().remove(nodeToRemove.getKey()); //remove the edge from the destination node
-            nodeToRemove.getNeighborEdges().remove(edgeToRemove.getDest()); //remove the edge from the source node
+            destItr.remove(); //remove the edge from the source node (through the iterator - we are iterating over these edges)
             this.modeCount++;
         }
 
@@ -169,11 +177,26 @@ public class DWGraph_DS implements directed_weighted_graph {
     }
 
     /**
-     * this method is for the Arena class in the searchForNearestAgent method
+     * this method is for the Arena class in the searchForNearestAgent method.
+     * copies the key, location, weight, info and tag of any node_data (also a node of a read-only DWGraph_CSR), without its edges.
      */
-    public node_data copyNode(node_data node) {
-        NodeData nodeUpCasted = (NodeData) node;
-        return new NodeData(nodeUpCasted);
+    public static node_data copyNode(node_data node) {
+        NodeData copy = new NodeData(node.getKey());
+        copy.setLocation(node.getLocation());
+        copy.setWeight(node.getWeight());
+        copy.setInfo(node.getInfo());
+        copy.setTag(node.getTag());
+        return copy;
+    }
+
+    /**
+     * Returns a read-only compressed sparse row (CSR) snapshot of this graph.
+     * the snapshot is built again only if the graph was changed (by MC) since the last call.
+     */
+    public synchronized DWGraph_CSR freeze() {
+        if (this.frozen == null || this.frozen.getMC() != this.modeCount)
+            this.frozen = new DWGraph_CSR(this);
+        return this.frozen;
     }
 
     public HashMap<Integer, node_data>getNodes() {
@@ -213,6 +236,35 @@ class NodeData implements node_data {
         }
     }
 
+    /**
+     * Constructor for a snapshot of a node in a shortest path result.
+     * it shares the key, location and edges of the original node, but has its own weight and tag,
+     * so the algorithms can return them without changing (or copying) the original graph.
+     */
+    NodeData(NodeData node, double weight, int tag) {
+        this.key = node.key;
+        this.info = node.info;
+        this.tag = tag;
+        this.weight = weight;
+        this.location = node.location;
+        this.neighborEdges = node.neighborEdges;
+        this.edgesConnectedToThisNode = node.edgesConnectedToThisNode;
+    }
+
+    /**
+     * Constructor for a new node when the number of its edges is known (like when loading a graph),
+     * so the edges HashMaps are created with the right size.
+     */
+    NodeData(int key, int outDegree, int inDegree) {
+        this.key = key;
+        this.neighborEdges = new HashMap<>(Math.max(4, (int) (outDegree / 0.75f) + 1));
+        this.edgesConnectedToThisNode = new HashMap<>(Math.max(4, (int) (inDegree / 0.75f) + 1));
+        this.weight = Double.MAX_VALUE;
+        this.info = "WHITE";
+        this.tag = -1;
+        this.location = new Location(0, 0, 0);
+    }
+
     // create a new node constructor
     public NodeData(int key) {
         this.key = key;
@@ -0,0 +1,195 @@
+package api;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This class represents a Dijkstra search engine over a graph that never copies or changes the graph.
+ * The search runs on the CSR snapshot of the graph (DWGraph_DS.freeze(), rebuilt only when the graph MC changes, or
+ * the graph itself if it is a DWGraph_CSR),
+ * and every query reuses the same primitive arrays (distance, parent, visited) and an indexed binary heap
+ * with decrease-key (DWGraph_IndexedHeap), so queries can run back to back without making garbage.
+ * Note: an engine is not thread safe - every thread should use its own engine.
+ */
+class DWGraph_Dijkstra {
+
+    private final directed_weighted_graph graph;
+    private DWGraph_CSR csr; //the snapshot of the graph that the buffers were made for, null = not made yet.
+
+    // per-query state, reused between queries. a node state is valid only if stamp[i] == generation
+    private double[] dist;
+    private int[] parent;
+    private int[] stamp;
+    private int generation;
+    private DWGraph_IndexedHeap heap; //the reached nodes that were not visited yet
+    private int[] settled; //the nodes in the order they were visited
+    private long settledNodes; //the number of nodes that all the point to point queries visited
+
+    DWGraph_Dijkstra(directed_weighted_graph graph) {
+        this.graph = graph;
+    }
+
+    /**
+     * returns the length of the shortest path between src to dest, -1 if there is no such path
+     */
+    double shortestPathDist(int src, int dest) {
+        int destIndex = search(src, dest);
+        if (destIndex < 0) return -1;
+        return dist[destIndex];
+    }
+
+    /**
+     * returns the shortest path between src to dest as an ordered list of nodes, null if there is no such path.
+     * every node in the list is a snapshot of the graph node, its weight is the distance from src and its tag is the parent key.
+     */
+    List<node_data> shortestPath(int src, int dest) {
+        int destIndex = search(src, dest);
+        if (destIndex < 0) return null;
+
+        int pathLength = 0;
+        for (int i = destIndex; i != -1; i = parent[i])
+            pathLength++;
+
+        ArrayList<node_data> path = new ArrayList<>(pathLength + 1); //+1 so callers can add a node without resizing
+        for (int i = 0; i < pathLength; i++)
+            path.add(null);
+        int position = pathLength - 1;
+        for (int i = destIndex; i != -1; i = parent[i]) {
+            int parentKey = parent[i] == -1 ? -1 : csr.keyAt(parent[i]);
+            path.set(position--, new NodeData((NodeData) csr.getNode(csr.keyAt(i)), dist[i], parentKey));
+        }
+        return path;
+    }
+
+    /**
+     * Runs dijkstra from src until dest is visited.
+     * Returns the dense index of dest, or -1 if one of the nodes is missing or there is no path.
+     */
+    private int search(int src, int dest) {
+        updateIndex();
+        int srcIndex = csr.indexOf(src);
+        int destIndex = csr.indexOf(dest);
+        if (srcIndex == -1 || destIndex == -1) return -1;
+        settledNodes += run(srcIndex, destIndex, false);
+        return stamp[destIndex] == generation && !heap.contains(destIndex) ? destIndex : -1;
+    }
+
+    /**
+     * Runs a full dijkstra (the whole shortest path tree) from the node with the given dense index.
+     * Returns the number of reached nodes, they can be read in the order they were visited with settledAt(k).
+     */
+    int searchAll(int srcIndex) {
+        updateIndex();
+        return run(srcIndex, -1, false);
+    }
+
+    /**
+     * Like searchAll, on the incoming edges - the distances are from every node to the node with the given dense index.
+     */
+    int searchAllBackward(int destIndex) {
+        updateIndex();
+        return run(destIndex, -1, true);
+    }
+
+    long getSettledNodes() {
+        return settledNodes;
+    }
+
+    /**
+     * Returns the snapshot of the graph that the last search ran on.
+     */
+    DWGraph_CSR snapshot() {
+        updateIndex();
+        return csr;
+    }
+
+    /**
+     * Returns the dense index of the k-th node that the last search visited (k = 0 is the source).
+     */
+    int settledAt(int k) {
+        return settled[k];
+    }
+
+    /**
+     * Returns the distance of the node with the given dense index from the source of the last search,
+     * Double.MAX_VALUE if the last search did not reach it. (the distance is final only for visited nodes)
+     */
+    double distAt(int index) {
+        return stamp[index] == generation ? dist[index] : Double.MAX_VALUE;
+    }
+
+    /**
+     * Returns the dense index of the parent of the given node in the last search, -1 for the source or a node that was not reached.
+     */
+    int parentAt(int index) {
+        return stamp[index] == generation ? parent[index] : -1;
+    }
+
+    /**
+     * The main loop of dijkstra - stops when destIndex is visited (destIndex = -1 for the whole tree).
+     * backward = true to go over the incoming edges instead of the outgoing edges.
+     * Returns the number of visited nodes.
+     */
+    private int run(int srcIndex, int destIndex, boolean backward) {
+        nextGeneration();
+        int settledCount = 0;
+        reach(srcIndex, 0, -1);
+
+        while (!heap.isEmpty()) {
+            int current = heap.poll();
+            settled[settledCount++] = current;
+            if (current == destIndex) break;
+            double currentDist = dist[current];
+            int start = backward ? csr.inStart(current) : csr.outStart(current);
+            int end = backward ? csr.inStart(current + 1) : csr.outStart(current + 1);
+            for (int e = start; e < end; e++) {
+                int neighbor = backward ? csr.inSource(e) : csr.outTarget(e);
+                double newDist = currentDist + (backward ? csr.inWeight(e) : csr.outWeight(e));
+                if (stamp[neighbor] != generation) {
+                    reach(neighbor, newDist, current); //first time we reach this node
+                } else if (newDist < dist[neighbor] && heap.contains(neighbor)) {
+                    dist[neighbor] = newDist; //we found a shorter path to a node that is still in the heap
+                    parent[neighbor] = current;
+                    heap.decreaseKey(neighbor, newDist);
+                }
+            }
+        }
+        return settledCount;
+    }
+
+    /**
+     * Takes a new snapshot of the graph (and new buffers) if the graph has changed since the last query.
+     */
+    private void updateIndex() {
+        DWGraph_CSR current = DWGraph_CSR.of(graph);
+        if (current == csr) return;
+        csr = current;
+
+        int n = csr.nodeSize();
+        dist = new double[n];
+        parent = new int[n];
+        stamp = new int[n];
+        generation = 0;
+        heap = new DWGraph_IndexedHeap(n);
+        settled = new int[n];
+    }
+
+    /**
+     * Starts a new query - all the nodes become unreached without clearing the arrays.
+     */
+    private void nextGeneration() {
+        heap.clear(); //a search that stopped at dest leaves nodes in the heap
+        if (++generation == Integer.MAX_VALUE) { //the stamps are about to overflow, so we clear them once
+            Arrays.fill(stamp, 0);
+            generation = 1;
+        }
+    }
+
+    private void reach(int node, double distance, int parentIndex) {
+        stamp[node] = generation;
+        dist[node] = distance;
+        parent[node] = parentIndex;
+        heap.add(node, distance);
+    }
+}
@@ -0,0 +1,124 @@
+package api;
+
+import java.util.Arrays;
+
+/**
+ * This class represents a binary min heap of dense node indexes by a double key, with decrease-key.
+ * The position of every node in the heap is kept in an array, so contains and decreaseKey don't search.
+ * Note: a heap is not thread safe, and clear() only costs the number of nodes that are still in the heap.
+ */
+class DWGraph_IndexedHeap {
+
+    private static final int NOT_IN_HEAP = -1;
+
+    private final int[] heap;
+    private final int[] position; //the position of every node in the heap, NOT_IN_HEAP if it is not in the heap
+    private final double[] key;
+    private int size;
+
+    DWGraph_IndexedHeap(int capacity) {
+        heap = new int[capacity];
+        position = new int[capacity];
+        key = new double[capacity];
+        Arrays.fill(position, NOT_IN_HEAP);
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean contains(int node) {
+        return position[node] != NOT_IN_HEAP;
+    }
+
+    /**
+     * Returns the smallest key in the heap, Double.MAX_VALUE if the heap is empty.
+     */
+    double minKey() {
+        return size > 0 ? key[heap[0]] : Double.MAX_VALUE;
+    }
+
+    /**
+     * Adds the node (that is not in the heap) with the given key.
+     */
+    void add(int node, double nodeKey) {
+        key[node] = nodeKey;
+        heap[size] = node;
+        position[node] = size;
+        siftUp(size++);
+    }
+
+    /**
+     * Sets a smaller key to a node that is in the heap.
+     */
+    void decreaseKey(int node, double nodeKey) {
+        key[node] = nodeKey;
+        siftUp(position[node]);
+    }
+
+    /**
+     * Sets a new key (smaller or bigger) to a node that is in the heap.
+     */
+    void changeKey(int node, double nodeKey) {
+        double oldKey = key[node];
+        key[node] = nodeKey;
+        if (nodeKey < oldKey) siftUp(position[node]);
+        else siftDown(position[node]);
+    }
+
+    /**
+     * Removes and returns the node with the smallest key.
+     */
+    int poll() {
+        int min = heap[0];
+        position[min] = NOT_IN_HEAP;
+        if (--size > 0) {
+            heap[0] = heap[size];
+            position[heap[0]] = 0;
+            siftDown(0);
+        }
+        return min;
+    }
+
+    /**
+     * Removes all the nodes from the heap.
+     */
+    void clear() {
+        for (int i = 0; i < size; i++)
+            position[heap[i]] = NOT_IN_HEAP;
+        size = 0;
+    }
+
+    private void siftUp(int pos) {
+        int node = heap[pos];
+        while (pos > 0) {
+            int parentPos = (pos - 1) >>> 1;
+            int parentNode = heap[parentPos];
+            if (key[parentNode] <= key[node]) break;
+            heap[pos] = parentNode;
+            position[parentNode] = pos;
+            pos = parentPos;
+        }
+        heap[pos] = node;
+        position[node] = pos;
+    }
+
+    private void siftDown(int pos) {
+        int node = heap[pos];
+        while (true) {
+            int child = 2 * pos + 1;
+            if (child >= size) break;
+            if (child + 1 < size && key[heap[child + 1]] < key[heap[child]]) child++;
+            if (key[node] <= key[heap[child]]) break;
+            heap[pos] = heap[child];
+            position[heap[pos]] = pos;
+            pos = child;
+        }
+        heap[pos] = node;
+        position[node] = pos;
+    }
+}
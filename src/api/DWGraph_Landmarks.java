@@ -0,0 +1,209 @@
+package api;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * This class represents the landmarks of ALT (A*, Landmarks, Triangle inequality): K nodes with the distances from
+ * every landmark to every node (forward) and from every node to every landmark (backward).
+ * By the triangle inequality, the distance from v to t is at least d(L,t) - d(L,v) and at least d(v,L) - d(t,L) for
+ * every landmark L, and the largest of these is the lower bound that leads A* to t. The bound is consistent, so the
+ * A* answers are exact. Distances that are Infinity (no path to or from the landmark) give no bound.
+ * The landmarks are chosen by the farthest heuristic - every landmark is the node that is the farthest (by the distance
+ * there and back) from all the landmarks that were already chosen, so they lie around the edges of the graph.
+ * The distances are kept by node (the K distances of a node are next to each other), indexed by the dense indexes of
+ * the graph CSR snapshot, and can be saved to a file so the preprocessing is done once per graph:
+ * <pre>
+ * int    MAGIC ("DWGL")
+ * int    VERSION
+ * int    n - number of nodes
+ * int    k - number of landmarks
+ * long   fingerprint of the graph (see fingerprint)
+ * int    landmarks[k]       - the dense indexes of the landmarks
+ * double forward[n*k]       - forward[v*k+l] = the distance from landmark l to node v
+ * double backward[n*k]      - backward[v*k+l] = the distance from node v to landmark l
+ * </pre>
+ */
+class DWGraph_Landmarks {
+
+    static final int MAGIC = 0x4457474C; // "DWGL"
+    static final int VERSION = 1;
+    private static final int HEADER_BYTES = 4 * Integer.BYTES + Long.BYTES;
+
+    private final DWGraph_CSR csr;
+    private final int k;
+    private final int[] landmarks;
+    private final double[] forward;
+    private final double[] backward;
+
+    private DWGraph_Landmarks(DWGraph_CSR csr, int[] landmarks, double[] forward, double[] backward) {
+        this.csr = csr;
+        this.k = landmarks.length;
+        this.landmarks = landmarks;
+        this.forward = forward;
+        this.backward = backward;
+    }
+
+    /**
+     * Chooses min(k, number of nodes) landmarks of the graph and computes their distances, 2 full dijkstras per landmark.
+     */
+    static DWGraph_Landmarks build(directed_weighted_graph graph, int k) {
+        DWGraph_Dijkstra engine = new DWGraph_Dijkstra(graph);
+        DWGraph_CSR csr = engine.snapshot();
+        int n = csr.nodeSize();
+        k = Math.min(k, n);
+        int[] landmarks = new int[k];
+        double[] forward = new double[n * k];
+        double[] backward = new double[n * k];
+
+        //the farthest node from every landmark so far, starting from the first node (that is not a landmark)
+        double[] closeness = new double[n]; //the distance there and back to the closest landmark (or to the first node)
+        Arrays.fill(closeness, Double.MAX_VALUE);
+        if (n > 0) addDistances(engine, 0, closeness, null, null, 0, 0);
+        for (int l = 0; l < k; l++) {
+            int farthest = 0;
+            for (int i = 1; i < n; i++) {
+                if (closeness[i] > closeness[farthest]) farthest = i;
+            }
+            landmarks[l] = farthest;
+            addDistances(engine, farthest, closeness, forward, backward, l, k);
+            closeness[farthest] = -1; //already a landmark
+        }
+        return new DWGraph_Landmarks(csr, landmarks, forward, backward);
+    }
+
+    /**
+     * Runs a full dijkstra from the node and to the node, keeps the distances as the distances of landmark l (if forward
+     * is not null), and lowers the closeness of every node to its distance there and back (Infinity = Double.MAX_VALUE).
+     */
+    private static void addDistances(DWGraph_Dijkstra engine, int node, double[] closeness, double[] forward,
+                                     double[] backward, int l, int k) {
+        int n = closeness.length;
+        double[] from = new double[n];
+        engine.searchAll(node);
+        for (int i = 0; i < n; i++)
+            from[i] = engine.distAt(i);
+        engine.searchAllBackward(node);
+        for (int i = 0; i < n; i++) {
+            double to = engine.distAt(i);
+            if (forward != null) {
+                forward[i * k + l] = from[i];
+                backward[i * k + l] = to;
+            }
+            double thereAndBack = from[i] == Double.MAX_VALUE || to == Double.MAX_VALUE ? Double.MAX_VALUE : from[i] + to;
+            if (closeness[i] >= 0) closeness[i] = Math.min(closeness[i], thereAndBack);
+        }
+    }
+
+    /**
+     * Returns the lower bound of the distance from every node to the node with the given dense index.
+     */
+    DWGraph_PointSearch.LowerBound bound(int destIndex) {
+        double[] destForward = new double[k], destBackward = new double[k];
+        System.arraycopy(forward, destIndex * k, destForward, 0, k);
+        System.arraycopy(backward, destIndex * k, destBackward, 0, k);
+        return index -> {
+            double best = 0;
+            int row = index * k;
+            for (int l = 0; l < k; l++) {
+                double fromLandmark = forward[row + l], toLandmark = backward[row + l];
+                if (fromLandmark != Double.MAX_VALUE && destForward[l] != Double.MAX_VALUE)
+                    best = Math.max(best, destForward[l] - fromLandmark);
+                if (toLandmark != Double.MAX_VALUE && destBackward[l] != Double.MAX_VALUE)
+                    best = Math.max(best, toLandmark - destBackward[l]);
+            }
+            return best;
+        };
+    }
+
+    /**
+     * Returns true if the graph was not changed since the landmarks were computed.
+     */
+    boolean isUpToDate() {
+        return this.csr.isUpToDate();
+    }
+
+    DWGraph_CSR snapshot() {
+        return this.csr;
+    }
+
+    /**
+     * Returns the keys of the landmarks, in the order they were chosen.
+     */
+    int[] getLandmarkKeys() {
+        int[] keys = new int[k];
+        for (int l = 0; l < k; l++)
+            keys[l] = csr.keyAt(landmarks[l]);
+        return keys;
+    }
+
+    /**
+     * Writes the landmarks to the file (the file is replaced if it exists).
+     */
+    void write(String file) throws IOException {
+        int n = csr.nodeSize();
+        long size = HEADER_BYTES + (long) k * Integer.BYTES + 2L * n * k * Double.BYTES;
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw"); FileChannel channel = raf.getChannel()) {
+            raf.setLength(0);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(n).putInt(k).putLong(fingerprint(csr));
+            for (int landmark : landmarks)
+                buffer.putInt(landmark);
+            for (double distance : forward)
+                buffer.putDouble(distance);
+            for (double distance : backward)
+                buffer.putDouble(distance);
+            buffer.force();
+        }
+    }
+
+    /**
+     * Reads landmarks that were written for the given graph snapshot.
+     * throws IOException if the file is not a landmarks file of a supported version, or was written for another graph.
+     */
+    static DWGraph_Landmarks read(String file, DWGraph_CSR csr) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+            if (channel.size() < HEADER_BYTES) throw new IOException(file + " is not a landmarks file");
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC) throw new IOException(file + " is not a landmarks file");
+            int version = buffer.getInt();
+            if (version != VERSION) throw new IOException("unsupported landmarks version " + version);
+            int n = buffer.getInt();
+            int k = buffer.getInt();
+            if (n != csr.nodeSize() || buffer.getLong() != fingerprint(csr))
+                throw new IOException(file + " was made for another graph");
+            long expectedSize = HEADER_BYTES + (long) k * Integer.BYTES + 2L * n * k * Double.BYTES;
+            if (k < 0 || channel.size() < expectedSize) throw new IOException(file + " is truncated");
+
+            int[] landmarks = new int[k];
+            for (int l = 0; l < k; l++)
+                landmarks[l] = buffer.getInt();
+            double[] forward = new double[n * k], backward = new double[n * k];
+            buffer.asDoubleBuffer().get(forward);
+            buffer.position(buffer.position() + forward.length * Double.BYTES);
+            buffer.asDoubleBuffer().get(backward);
+            return new DWGraph_Landmarks(csr, landmarks, forward, backward);
+        }
+    }
+
+    /**
+     * Returns a hash of the nodes, the edges and the weights of the snapshot, so a landmarks file is used only with
+     * the graph that it was made for.
+     */
+    static long fingerprint(DWGraph_CSR csr) {
+        long hash = 1125899906842597L;
+        int n = csr.nodeSize();
+        for (int i = 0; i < n; i++) {
+            hash = 31 * hash + csr.keyAt(i);
+            hash = 31 * hash + csr.outStart(i + 1);
+        }
+        for (int e = 0; e < csr.edgeSize(); e++) {
+            hash = 31 * hash + csr.outTarget(e);
+            hash = 31 * hash + Double.doubleToLongBits(csr.outWeight(e));
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,252 @@
+package api;
+
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.util.AbstractList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * This class represents a read-only graph that is read straight from the sections of a memory mapped binary graph
+ * file (see DWGraph_Binary) - the CSR arrays are views of the mapped buffer, so nothing is copied or parsed when the
+ * graph is loaded, and the pages of the file are shared by every process that maps it.
+ * The node_data and edge_data objects are made only when they are asked for (getNode, getEdge, getV, getE), and the
+ * mutable DWGraph_DS (getSource) only when someone needs to change the graph - it is a copy, changing it does not
+ * change this graph. Unlike a snapshot of a DWGraph_DS this graph never changes, so it is always up to date.
+ */
+class DWGraph_MappedCSR extends DWGraph_CSR {
+
+    private final int n;
+    private final int m;
+    private final boolean consecutiveKeys; //keys[i] = keys[0] + i, so indexOf needs no search
+    private final IntBuffer keys;
+    private final DoubleBuffer positions; //x,y,z of every node
+    private final IntBuffer outStart, outTarget;
+    private final DoubleBuffer outWeight;
+    private final IntBuffer inStart, inSource;
+    private final DoubleBuffer inWeight;
+
+    private final AtomicReferenceArray<node_data> nodes; //made when they are first asked for, the graph is read by several threads
+    private final AtomicReferenceArray<edge_data> outEdges;
+    private DWGraph_DS source; //the mutable copy, null until it is asked for
+
+    /**
+     * @param buffer - the mapped file, with the position right after the header (see DWGraph_Binary for the sections).
+     */
+    DWGraph_MappedCSR(ByteBuffer buffer, int n, int m) {
+        this.n = n;
+        this.m = m;
+        int at = buffer.position();
+        keys = section(buffer, at, n * Integer.BYTES).asIntBuffer();
+        at += n * Integer.BYTES;
+        positions = section(buffer, at, 3 * n * Double.BYTES).asDoubleBuffer();
+        at += 3 * n * Double.BYTES;
+        outStart = section(buffer, at, (n + 1) * Integer.BYTES).asIntBuffer();
+        at += (n + 1) * Integer.BYTES;
+        outTarget = section(buffer, at, m * Integer.BYTES).asIntBuffer();
+        at += m * Integer.BYTES;
+        outWeight = section(buffer, at, m * Double.BYTES).asDoubleBuffer();
+        at += m * Double.BYTES;
+        inStart = section(buffer, at, (n + 1) * Integer.BYTES).asIntBuffer();
+        at += (n + 1) * Integer.BYTES;
+        inSource = section(buffer, at, m * Integer.BYTES).asIntBuffer();
+        at += m * Integer.BYTES;
+        inWeight = section(buffer, at, m * Double.BYTES).asDoubleBuffer();
+
+        consecutiveKeys = n > 0 && keys.get(n - 1) - keys.get(0) == n - 1;
+        nodes = new AtomicReferenceArray<>(n);
+        outEdges = new AtomicReferenceArray<>(m);
+    }
+
+    private static ByteBuffer section(ByteBuffer buffer, int offset, int bytes) {
+        ByteBuffer section = buffer.duplicate();
+        section.position(offset);
+        section.limit(offset + bytes);
+        return section.slice();
+    }
+
+    /**
+     * Returns a mutable DWGraph_DS copy of this graph, the copy is made on the first call.
+     */
+    @Override
+    public synchronized DWGraph_DS getSource() {
+        if (this.source == null) this.source = toGraph();
+        return this.source;
+    }
+
+    private DWGraph_DS toGraph() {
+        DWGraph_DS graph = new DWGraph_DS(n);
+        for (int i = 0; i < n; i++) {
+            NodeData node = new NodeData(keys.get(i), outStart.get(i + 1) - outStart.get(i), inStart.get(i + 1) - inStart.get(i));
+            node.setLocation(new Location(positions.get(3 * i), positions.get(3 * i + 1), positions.get(3 * i + 2)));
+            graph.addNode(node);
+        }
+        for (int i = 0; i < n; i++) {
+            for (int e = outStart.get(i); e < outStart.get(i + 1); e++)
+                graph.connect(keys.get(i), keys.get(outTarget.get(e)), outWeight.get(e));
+        }
+        return graph;
+    }
+
+    @Override
+    directed_weighted_graph owner() {
+        return this;
+    }
+
+    @Override
+    public boolean isUpToDate() {
+        return true;
+    }
+
+    @Override
+    public int indexOf(int key) {
+        if (n == 0) return -1;
+        if (consecutiveKeys) {
+            int index = key - keys.get(0);
+            return index >= 0 && index < n ? index : -1;
+        }
+        int low = 0, high = n - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int middleKey = keys.get(middle);
+            if (middleKey < key) low = middle + 1;
+            else if (middleKey > key) high = middle - 1;
+            else return middle;
+        }
+        return -1;
+    }
+
+    @Override
+    public int keyAt(int index) {
+        return keys.get(index);
+    }
+
+    @Override
+    public double x(int index) {
+        return positions.get(3 * index);
+    }
+
+    @Override
+    public double y(int index) {
+        return positions.get(3 * index + 1);
+    }
+
+    @Override
+    public int outStart(int index) {
+        return outStart.get(index);
+    }
+
+    @Override
+    public int outTarget(int edge) {
+        return outTarget.get(edge);
+    }
+
+    @Override
+    public double outWeight(int edge) {
+        return outWeight.get(edge);
+    }
+
+    @Override
+    public int inStart(int index) {
+        return inStart.get(index);
+    }
+
+    @Override
+    public int inSource(int edge) {
+        return inSource.get(edge);
+    }
+
+    @Override
+    public double inWeight(int edge) {
+        return inWeight.get(edge);
+    }
+
+    @Override
+    public node_data getNode(int key) {
+        int index = indexOf(key);
+        return index == -1 ? null : nodeAt(index);
+    }
+
+    private node_data nodeAt(int index) {
+        node_data node = nodes.get(index);
+        if (node != null) return node;
+        NodeData made = new NodeData(keys.get(index));
+        made.setLocation(new Location(positions.get(3 * index), positions.get(3 * index + 1), positions.get(3 * index + 2)));
+        return nodes.compareAndSet(index, null, made) ? made : nodes.get(index);
+    }
+
+    private edge_data edgeAt(int index, int edge) {
+        edge_data edgeData = outEdges.get(edge);
+        if (edgeData != null) return edgeData;
+        EdgeData made = new EdgeData(keys.get(index), keys.get(outTarget.get(edge)), outWeight.get(edge));
+        return outEdges.compareAndSet(edge, null, made) ? made : outEdges.get(edge);
+    }
+
+    @Override
+    public edge_data getEdge(int src, int dest) {
+        int srcIndex = indexOf(src);
+        int destIndex = indexOf(dest);
+        if (srcIndex == -1 || destIndex == -1) return null;
+        int low = outStart.get(srcIndex), high = outStart.get(srcIndex + 1) - 1; //the edges are sorted by the dest index
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int target = outTarget.get(middle);
+            if (target < destIndex) low = middle + 1;
+            else if (target > destIndex) high = middle - 1;
+            else return edgeAt(srcIndex, middle);
+        }
+        return null;
+    }
+
+    @Override
+    public Collection<node_data> getV() {
+        return new AbstractList<node_data>() {
+            @Override
+            public node_data get(int index) {
+                return nodeAt(index);
+            }
+
+            @Override
+            public int size() {
+                return n;
+            }
+        };
+    }
+
+    @Override
+    public Collection<edge_data> getE(int node_id) {
+        int index = indexOf(node_id);
+        if (index == -1) return Collections.emptyList();
+        int start = outStart.get(index);
+        int size = outStart.get(index + 1) - start;
+        return new AbstractList<edge_data>() {
+            @Override
+            public edge_data get(int i) {
+                if (i < 0 || i >= size) throw new IndexOutOfBoundsException("edge " + i + " of " + size);
+                return edgeAt(index, start + i);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    @Override
+    public int nodeSize() {
+        return n;
+    }
+
+    @Override
+    public int edgeSize() {
+        return m;
+    }
+
+    @Override
+    public int getMC() {
+        return 0;
+    }
+}
@@ -0,0 +1,78 @@
+package api;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This class represents a shortest path tree from one source node - the result of a full dijkstra.
+ * It keeps the distance and the parent of every node as primitive arrays indexed by the dense indexes
+ * of the graph CSR snapshot, so any number of distance/path queries from the source are answered with no search.
+ */
+public class DWGraph_PathTree {
+
+    private final DWGraph_CSR csr;
+    private final int source; //the key of the source node
+    private final double[] dist; //Double.MAX_VALUE for nodes that can't be reached from the source
+    private final int[] parent; //dense index of the parent, -1 for the source and for nodes that can't be reached
+
+    /**
+     * Copies the tree of the last full search of the given engine.
+     */
+    DWGraph_PathTree(DWGraph_Dijkstra engine, int sourceIndex, int reached) {
+        this.csr = engine.snapshot();
+        this.source = csr.keyAt(sourceIndex);
+        int n = csr.nodeSize();
+        this.dist = new double[n];
+        this.parent = new int[n];
+        Arrays.fill(dist, Double.MAX_VALUE);
+        Arrays.fill(parent, -1);
+        for (int k = 0; k < reached; k++) {
+            int node = engine.settledAt(k);
+            dist[node] = engine.distAt(node);
+            parent[node] = engine.parentAt(node);
+        }
+    }
+
+    /**
+     * Returns the key of the source node of this tree.
+     */
+    public int getSource() {
+        return this.source;
+    }
+
+    /**
+     * Returns true if the graph was not changed since this tree was computed.
+     */
+    public boolean isUpToDate() {
+        return this.csr.isUpToDate();
+    }
+
+    /**
+     * returns the length of the shortest path from the source to dest, -1 if there is no such path
+     */
+    public double shortestPathDist(int dest) {
+        int destIndex = csr.indexOf(dest);
+        if (destIndex == -1 || dist[destIndex] == Double.MAX_VALUE) return -1;
+        return dist[destIndex];
+    }
+
+    /**
+     * returns the shortest path from the source to dest as an ordered list of nodes, null if there is no such path.
+     * like DWGraph_Algo.shortestPath - the weight of every node in the path is its distance from the source and its tag is the parent key.
+     */
+    public List<node_data> shortestPath(int dest) {
+        int destIndex = csr.indexOf(dest);
+        if (destIndex == -1 || dist[destIndex] == Double.MAX_VALUE) return null;
+
+        int pathLength = 0;
+        for (int i = destIndex; i != -1; i = parent[i])
+            pathLength++;
+        node_data[] path = new node_data[pathLength];
+        for (int i = destIndex; i != -1; i = parent[i]) {
+            int parentKey = parent[i] == -1 ? -1 : csr.keyAt(parent[i]);
+            path[--pathLength] = new NodeData((NodeData) csr.getNode(csr.keyAt(i)), dist[i], parentKey);
+        }
+        return new ArrayList<>(Arrays.asList(path));
+    }
+}
@@ -0,0 +1,107 @@
+package api;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * This class represents a bounded cache of shortest path trees by source key, the least recently used tree is
+ * removed when the cache is full. All the trees are of one graph at one MC - when the graph is replaced or changed,
+ * the whole cache is cleared on the next access.
+ * A full tree costs more than a search that stops at dest, so a source gets a tree only when it misses again while it
+ * is still in the list of the last missed sources (see isRepeatedMiss) - sources that are asked once never pay for it.
+ * The cache is thread safe, the trees themselves are read-only.
+ */
+class DWGraph_PathTreeCache {
+
+    private final LinkedHashMap<Integer, DWGraph_PathTree> trees;
+    private final LinkedHashMap<Integer, Boolean> missed; //the last sources that missed once, with no tree
+    private int capacity;
+    private directed_weighted_graph graph; //the graph of the trees in the cache, null if the cache is empty
+    private int mc; //the MC of the graph when the trees were computed
+    private long hits;
+    private long misses;
+
+    DWGraph_PathTreeCache(int capacity) {
+        this.capacity = capacity;
+        this.trees = new LinkedHashMap<Integer, DWGraph_PathTree>(16, 0.75f, true) { //by access order
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, DWGraph_PathTree> eldest) {
+                return size() > DWGraph_PathTreeCache.this.capacity;
+            }
+        };
+        this.missed = new LinkedHashMap<Integer, Boolean>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Boolean> eldest) {
+                return size() > DWGraph_PathTreeCache.this.capacity;
+            }
+        };
+    }
+
+    /**
+     * Returns the tree from the given source of the given graph, null if it is not in the cache (counted as a miss).
+     */
+    synchronized DWGraph_PathTree get(directed_weighted_graph g, int source) {
+        invalidate(g);
+        DWGraph_PathTree tree = trees.get(source);
+        if (tree != null) hits++;
+        else misses++;
+        return tree;
+    }
+
+    /**
+     * Returns true if the source already missed lately (its tree is worth computing), otherwise remembers the miss.
+     */
+    synchronized boolean isRepeatedMiss(directed_weighted_graph g, int source) {
+        invalidate(g);
+        if (missed.remove(source) != null) return true;
+        if (capacity > 0) missed.put(source, Boolean.TRUE);
+        return false;
+    }
+
+    /**
+     * Adds the tree, it must be of the current MC of the given graph.
+     */
+    synchronized void put(directed_weighted_graph g, DWGraph_PathTree tree) {
+        if (capacity == 0) return;
+        invalidate(g);
+        missed.remove(tree.getSource());
+        trees.put(tree.getSource(), tree);
+    }
+
+    /**
+     * Clears the cache if its trees are not of the given graph at its current MC.
+     */
+    private void invalidate(directed_weighted_graph g) {
+        if (this.graph == g && this.mc == g.getMC()) return;
+        trees.clear();
+        missed.clear();
+        this.graph = g;
+        this.mc = g.getMC();
+    }
+
+    synchronized void setCapacity(int capacity) {
+        this.capacity = capacity;
+        while (trees.size() > capacity) {
+            trees.remove(trees.keySet().iterator().next()); //the least recently used first
+        }
+        while (missed.size() > capacity) {
+            missed.remove(missed.keySet().iterator().next());
+        }
+    }
+
+    synchronized int getCapacity() {
+        return this.capacity;
+    }
+
+    synchronized int size() {
+        return this.trees.size();
+    }
+
+    synchronized long getHits() {
+        return this.hits;
+    }
+
+    synchronized long getMisses() {
+        return this.misses;
+    }
+}
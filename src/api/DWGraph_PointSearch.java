@@ -0,0 +1,294 @@
+package api;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This class represents the point to point searches of a graph, that stop as soon as the shortest path to dest
+ * is known instead of growing a full shortest path tree:
+ * 1. bidirectional dijkstra - one search from src on the outgoing edges and one from dest on the incoming edges
+ *    (the getNi and getEdgesConnectedToThisNode of the nodes, as the CSR arrays), until the two meet.
+ * 2. A* - a dijkstra from src that prefers the nodes closer to dest by a lower bound of their distance to dest.
+ *    the default lower bound is the euclidean distance of the node locations times the minimal weight/length ratio of
+ *    all the edges, so it never overestimates (every edge weighs at least ratio * its length) and the answer is exact.
+ *    with DWGraph_Landmarks the lower bound is the landmarks bound instead (ALT).
+ * Like DWGraph_Dijkstra, the searches run on the CSR snapshot of the graph and reuse their buffers between queries.
+ * Note: an engine is not thread safe - every thread should use its own engine.
+ */
+class DWGraph_PointSearch {
+
+    /**
+     * This interface represents a lower bound of the distance from a node to the dest of one query.
+     * it must be consistent - bound(u) <= w(u,v) + bound(v) for every edge u->v, and 0 at dest.
+     */
+    interface LowerBound {
+        double toDest(int index);
+    }
+
+    private static final double RATIO_SAFETY = 1 - 1e-9; //keeps the euclidean bound under the weights with floating point errors
+
+    private final directed_weighted_graph graph;
+    private DWGraph_CSR csr; //the snapshot of the graph that the buffers were made for, null = not made yet.
+    private double minRatio; //the minimal weight/length of the edges of the snapshot (0 if an edge weighs 0)
+
+    // per-query state of the forward (from src) and the backward (from dest) searches.
+    // a node state is valid only if its stamp == generation
+    private double[] forwardDist, backwardDist;
+    private int[] forwardParent, backwardParent; //backwardParent = the next node on the way to dest
+    private int[] forwardStamp, backwardStamp;
+    private double[] bound; //the lower bound of every node that A* reached
+    private int generation;
+    private DWGraph_IndexedHeap forwardHeap, backwardHeap;
+    private long settledNodes; //the number of nodes that all the queries visited
+
+    DWGraph_PointSearch(directed_weighted_graph graph) {
+        this.graph = graph;
+    }
+
+    /**
+     * Returns the length of the shortest path between src to dest by a bidirectional dijkstra, -1 if there is no such path.
+     */
+    double bidirectionalDist(int src, int dest) {
+        int meeting = bidirectional(src, dest);
+        return meeting < 0 ? -1 : forwardDist[meeting] + backwardDist[meeting];
+    }
+
+    /**
+     * Returns the shortest path between src to dest by a bidirectional dijkstra, null if there is no such path.
+     * like DWGraph_Algo.shortestPath - the weight of every node in the path is its distance from src and its tag is the parent key.
+     */
+    List<node_data> bidirectionalPath(int src, int dest) {
+        int meeting = bidirectional(src, dest);
+        if (meeting < 0) return null;
+
+        List<node_data> path = forwardPath(meeting);
+        double distance = forwardDist[meeting];
+        for (int i = meeting; backwardParent[i] != -1; i = backwardParent[i]) {
+            int next = backwardParent[i];
+            distance += edgeWeight(i, next);
+            path.add(new NodeData((NodeData) csr.getNode(csr.keyAt(next)), distance, csr.keyAt(i)));
+        }
+        return path;
+    }
+
+    /**
+     * Returns the length of the shortest path between src to dest by A*, -1 if there is no such path.
+     * @param landmarks - the landmarks of the graph for the lower bound, null for the euclidean lower bound.
+     */
+    double aStarDist(int src, int dest, DWGraph_Landmarks landmarks) {
+        int destIndex = aStar(src, dest, landmarks);
+        return destIndex < 0 ? -1 : forwardDist[destIndex];
+    }
+
+    /**
+     * Returns the shortest path between src to dest by A*, null if there is no such path.
+     * @param landmarks - the landmarks of the graph for the lower bound, null for the euclidean lower bound.
+     */
+    List<node_data> aStarPath(int src, int dest, DWGraph_Landmarks landmarks) {
+        int destIndex = aStar(src, dest, landmarks);
+        return destIndex < 0 ? null : forwardPath(destIndex);
+    }
+
+    /**
+     * Runs A* from src until dest is visited, with the landmarks lower bound (null = the euclidean one).
+     * Returns the dense index of dest, or -1 if one of the nodes is missing or there is no path.
+     */
+    private int aStar(int src, int dest, DWGraph_Landmarks landmarks) {
+        updateIndex();
+        int srcIndex = csr.indexOf(src);
+        int destIndex = csr.indexOf(dest);
+        if (srcIndex == -1 || destIndex == -1) return -1;
+        LowerBound lowerBound = landmarks != null ? landmarks.bound(destIndex) : euclideanBound(destIndex);
+        nextGeneration();
+
+        forwardReach(srcIndex, 0, -1);
+        bound[srcIndex] = lowerBound.toDest(srcIndex);
+        forwardHeap.add(srcIndex, bound[srcIndex]);
+        while (!forwardHeap.isEmpty()) {
+            int current = forwardHeap.poll();
+            settledNodes++;
+            if (current == destIndex) return destIndex;
+            double currentDist = forwardDist[current];
+            for (int e = csr.outStart(current); e < csr.outStart(current + 1); e++) {
+                int neighbor = csr.outTarget(e);
+                double newDist = currentDist + csr.outWeight(e);
+                if (forwardStamp[neighbor] != generation) {
+                    forwardReach(neighbor, newDist, current);
+                    bound[neighbor] = lowerBound.toDest(neighbor);
+                    forwardHeap.add(neighbor, newDist + bound[neighbor]);
+                } else if (forwardHeap.contains(neighbor) && newDist < forwardDist[neighbor]) {
+                    forwardDist[neighbor] = newDist;
+                    forwardParent[neighbor] = current;
+                    forwardHeap.decreaseKey(neighbor, newDist + bound[neighbor]);
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the path from the source of the last forward search to the given node (that it visited).
+     */
+    private List<node_data> forwardPath(int index) {
+        int pathLength = 0;
+        for (int i = index; i != -1; i = forwardParent[i])
+            pathLength++;
+
+        ArrayList<node_data> path = new ArrayList<>(pathLength + 1); //+1 so callers can add a node without resizing
+        for (int i = 0; i < pathLength; i++)
+            path.add(null);
+        int position = pathLength - 1;
+        for (int i = index; i != -1; i = forwardParent[i]) {
+            int parentKey = forwardParent[i] == -1 ? -1 : csr.keyAt(forwardParent[i]);
+            path.set(position--, new NodeData((NodeData) csr.getNode(csr.keyAt(i)), forwardDist[i], parentKey));
+        }
+        return path;
+    }
+
+    long getSettledNodes() {
+        return settledNodes;
+    }
+
+    /**
+     * Runs the forward and the backward searches, every step on the side with the smaller heap, until the smallest
+     * keys of the two heaps add up to the best path that was found - no path through an unvisited node can be shorter.
+     * Returns the dense index of the node where the best path meets, or -1 if one of the nodes is missing or there is no path.
+     */
+    private int bidirectional(int src, int dest) {
+        updateIndex();
+        int srcIndex = csr.indexOf(src);
+        int destIndex = csr.indexOf(dest);
+        if (srcIndex == -1 || destIndex == -1) return -1;
+        nextGeneration();
+
+        forwardReach(srcIndex, 0, -1);
+        forwardHeap.add(srcIndex, 0);
+        backwardReach(destIndex, 0, -1);
+        backwardHeap.add(destIndex, 0);
+        double best = srcIndex == destIndex ? 0 : Double.MAX_VALUE;
+        int meeting = srcIndex == destIndex ? srcIndex : -1;
+
+        while (!forwardHeap.isEmpty() && !backwardHeap.isEmpty()
+                && forwardHeap.minKey() + backwardHeap.minKey() < best) {
+            if (forwardHeap.size() <= backwardHeap.size()) {
+                int current = forwardHeap.poll();
+                settledNodes++;
+                double currentDist = forwardDist[current];
+                for (int e = csr.outStart(current); e < csr.outStart(current + 1); e++) {
+                    int neighbor = csr.outTarget(e);
+                    double newDist = currentDist + csr.outWeight(e);
+                    if (forwardStamp[neighbor] != generation) {
+                        forwardReach(neighbor, newDist, current);
+                        forwardHeap.add(neighbor, newDist);
+                    } else if (forwardHeap.contains(neighbor) && newDist < forwardDist[neighbor]) {
+                        forwardDist[neighbor] = newDist;
+                        forwardParent[neighbor] = current;
+                        forwardHeap.decreaseKey(neighbor, newDist);
+                    } else continue;
+                    if (backwardStamp[neighbor] == generation && newDist + backwardDist[neighbor] < best) {
+                        best = newDist + backwardDist[neighbor]; //the searches met at neighbor
+                        meeting = neighbor;
+                    }
+                }
+            } else {
+                int current = backwardHeap.poll();
+                settledNodes++;
+                double currentDist = backwardDist[current];
+                for (int e = csr.inStart(current); e < csr.inStart(current + 1); e++) {
+                    int neighbor = csr.inSource(e);
+                    double newDist = currentDist + csr.inWeight(e);
+                    if (backwardStamp[neighbor] != generation) {
+                        backwardReach(neighbor, newDist, current);
+                        backwardHeap.add(neighbor, newDist);
+                    } else if (backwardHeap.contains(neighbor) && newDist < backwardDist[neighbor]) {
+                        backwardDist[neighbor] = newDist;
+                        backwardParent[neighbor] = current;
+                        backwardHeap.decreaseKey(neighbor, newDist);
+                    } else continue;
+                    if (forwardStamp[neighbor] == generation && newDist + forwardDist[neighbor] < best) {
+                        best = newDist + forwardDist[neighbor];
+                        meeting = neighbor;
+                    }
+                }
+            }
+        }
+        return meeting;
+    }
+
+    /**
+     * Returns the euclidean lower bound of the distance to the node with the given dense index.
+     */
+    private LowerBound euclideanBound(int destIndex) {
+        double destX = csr.x(destIndex), destY = csr.y(destIndex);
+        double ratio = minRatio;
+        return index -> ratio * Math.hypot(csr.x(index) - destX, csr.y(index) - destY);
+    }
+
+    /**
+     * Returns the weight of the lightest edge from one node to the other (by dense indexes).
+     */
+    private double edgeWeight(int from, int to) {
+        double weight = Double.MAX_VALUE;
+        for (int e = csr.outStart(from); e < csr.outStart(from + 1); e++) {
+            if (csr.outTarget(e) == to) weight = Math.min(weight, csr.outWeight(e));
+        }
+        return weight;
+    }
+
+    private void forwardReach(int node, double distance, int parentIndex) {
+        forwardStamp[node] = generation;
+        forwardDist[node] = distance;
+        forwardParent[node] = parentIndex;
+    }
+
+    private void backwardReach(int node, double distance, int parentIndex) {
+        backwardStamp[node] = generation;
+        backwardDist[node] = distance;
+        backwardParent[node] = parentIndex;
+    }
+
+    /**
+     * Takes a new snapshot of the graph (and new buffers) if the graph has changed since the last query.
+     */
+    private void updateIndex() {
+        DWGraph_CSR current = DWGraph_CSR.of(graph);
+        if (current == csr) return;
+        csr = current;
+
+        int n = csr.nodeSize();
+        forwardDist = new double[n];
+        backwardDist = new double[n];
+        forwardParent = new int[n];
+        backwardParent = new int[n];
+        forwardStamp = new int[n];
+        backwardStamp = new int[n];
+        bound = new double[n];
+        generation = 0;
+        forwardHeap = new DWGraph_IndexedHeap(n);
+        backwardHeap = new DWGraph_IndexedHeap(n);
+
+        minRatio = Double.MAX_VALUE;
+        for (int i = 0; i < n; i++) {
+            for (int e = csr.outStart(i); e < csr.outStart(i + 1); e++) {
+                int target = csr.outTarget(e);
+                double length = Math.hypot(csr.x(i) - csr.x(target), csr.y(i) - csr.y(target));
+                if (length > 0) minRatio = Math.min(minRatio, csr.outWeight(e) / length);
+            }
+        }
+        minRatio = minRatio == Double.MAX_VALUE ? 0 : minRatio * RATIO_SAFETY; //no edge has a length - no bound
+    }
+
+    /**
+     * Starts a new query - all the nodes become unreached without clearing the arrays.
+     */
+    private void nextGeneration() {
+        forwardHeap.clear();
+        backwardHeap.clear();
+        if (++generation == Integer.MAX_VALUE) { //the stamps are about to overflow, so we clear them once
+            Arrays.fill(forwardStamp, 0);
+            Arrays.fill(backwardStamp, 0);
+            generation = 1;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package api;
+
+/**
+ * This class represents the strongly connected components of a graph, computed with an iterative
+ * (no recursion, so no stack overflow on big graphs) Tarjan algorithm over the graph CSR snapshot in O(V+E).
+ * Every node gets a component id, so checking if two nodes can reach each other is an O(1) lookup.
+ */
+public class DWGraph_SCC {
+
+    private final DWGraph_CSR csr;
+    private final int[] componentOf; //componentOf[i] = the component id of the node with dense index i
+    private final int numOfComponents;
+
+    DWGraph_SCC(DWGraph_CSR csr) {
+        this.csr = csr;
+        int n = csr.nodeSize();
+        this.componentOf = new int[n];
+
+        int[] order = new int[n]; //the order in which tarjan discovered the node, 0 = not discovered yet
+        int[] low = new int[n];
+        int[] sccStack = new int[n]; //the nodes that are not assigned to a component yet
+        int sccStackSize = 0;
+        boolean[] onSccStack = new boolean[n];
+        int[] callStack = new int[n]; //replaces the recursion - the nodes that are currently being explored
+        int[] nextEdge = new int[n]; //the next outgoing edge to check for every node in the call stack
+        int discovered = 0;
+        int components = 0;
+
+        for (int root = 0; root < n; root++) {
+            if (order[root] != 0) continue;
+            int callStackSize = 0;
+            callStack[callStackSize++] = root;
+            order[root] = low[root] = ++discovered;
+            nextEdge[root] = csr.outStart(root);
+            sccStack[sccStackSize++] = root;
+            onSccStack[root] = true;
+
+            while (callStackSize > 0) {
+                int node = callStack[callStackSize - 1];
+                if (nextEdge[node] < csr.outStart(node + 1)) {
+                    int neighbor = csr.outTarget(nextEdge[node]++);
+                    if (order[neighbor] == 0) { //"recursive call" on the neighbor
+                        order[neighbor] = low[neighbor] = ++discovered;
+                        nextEdge[neighbor] = csr.outStart(neighbor);
+                        sccStack[sccStackSize++] = neighbor;
+                        onSccStack[neighbor] = true;
+                        callStack[callStackSize++] = neighbor;
+                    } else if (onSccStack[neighbor]) {
+                        low[node] = Math.min(low[node], order[neighbor]);
+                    }
+                } else { //we finished all the edges of this node - "return" to its parent
+                    callStackSize--;
+                    if (low[node] == order[node]) { //node is the root of a component - pop it
+                        int member;
+                        do {
+                            member = sccStack[--sccStackSize];
+                            onSccStack[member] = false;
+                            componentOf[member] = components;
+                        } while (member != node);
+                        components++;
+                    }
+                    if (callStackSize > 0) {
+                        int parent = callStack[callStackSize - 1];
+                        low[parent] = Math.min(low[parent], low[node]);
+                    }
+                }
+            }
+        }
+        this.numOfComponents = components;
+    }
+
+    /**
+     * Returns the number of strongly connected components in the graph.
+     */
+    public int getNumOfComponents() {
+        return this.numOfComponents;
+    }
+
+    /**
+     * Returns the component id of the node with the given key, -1 if there is no such node.
+     */
+    public int componentOf(int key) {
+        int index = csr.indexOf(key);
+        return index == -1 ? -1 : componentOf[index];
+    }
+
+    /**
+     * Returns true iff there is a path from a to b and a path from b to a.
+     */
+    public boolean sameComponent(int a, int b) {
+        int componentA = componentOf(a);
+        return componentA != -1 && componentA == componentOf(b);
+    }
+
+    /**
+     * Returns the component id of every node, indexed by the dense index of the node in getGraph().
+     */
+    public int[] getComponentIds() {
+        return this.componentOf;
+    }
+
+    /**
+     * Returns the graph snapshot that the components were computed on.
+     */
+    public DWGraph_CSR getGraph() {
+        return this.csr;
+    }
+
+    /**
+     * Returns true if the graph was not changed since the components were computed.
+     */
+    public boolean isUpToDate() {
+        return this.csr.isUpToDate();
+    }
+}
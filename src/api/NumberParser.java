@@ -0,0 +1,61 @@
+package api;
+
+/**
+ * This class parses the numbers of the graph and game server jsons straight from the json text, with no substrings
+ * (used by the graph json reader of DWGraph_Algo and by the game client ServerJsonDecoder).
+ */
+public final class NumberParser {
+
+    private NumberParser() {
+    }
+
+    /**
+     * Parses a "x,y,z" position in pos[from, to) into out[offset], out[offset+1], out[offset+2] without splitting the string.
+     * (a missing z is 0)
+     */
+    public static void parsePosition(CharSequence pos, int from, int to, double[] out, int offset) {
+        int start = from;
+        for (int i = 0; i < 3; i++) {
+            int end = start;
+            while (end < to && pos.charAt(end) != ',') end++;
+            out[offset + i] = start < end ? parseDouble(pos, start, end) : 0;
+            start = Math.min(end + 1, to);
+        }
+    }
+
+    private static final double[] POWERS_OF_TEN = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+
+    /**
+     * Parses the double in s[start, end) with no allocation when the digits (without the point) fit in 53 bits
+     * and there is no exponent - then digits / 10^decimals is exactly rounded, like Double.parseDouble.
+     * any other number falls back to Double.parseDouble.
+     */
+    public static double parseDouble(CharSequence s, int start, int end) {
+        int i = start;
+        while (i < end && s.charAt(i) == ' ') i++;
+        while (end > i && s.charAt(end - 1) == ' ') end--;
+        boolean negative = i < end && s.charAt(i) == '-';
+        if (negative || (i < end && s.charAt(i) == '+')) i++;
+
+        long digits = 0;
+        int numOfDigits = 0, decimals = 0;
+        boolean afterPoint = false, fastPath = i < end;
+        for (; i < end && fastPath; i++) {
+            char c = s.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (digits != 0 || c != '0') numOfDigits++;
+                digits = digits * 10 + (c - '0');
+                if (afterPoint) decimals++;
+            } else if (c == '.' && !afterPoint) {
+                afterPoint = true;
+            } else {
+                fastPath = false; //an exponent or something else - let Double.parseDouble handle it
+            }
+        }
+        if (!fastPath || numOfDigits > 18 || digits > (1L << 53) || decimals >= POWERS_OF_TEN.length)
+            return Double.parseDouble(s.subSequence(start, end).toString().trim());
+        double value = digits / POWERS_OF_TEN[decimals];
+        return negative ? -value : value;
+    }
+}
@@ -22,6 +22,8 @@ public interface dw_graph_algorithms {
 
     /**
      * Return the underlying graph of which this class works.
+     * NOTE: an implementation may work on a read-only graph (like a graph that was loaded from a binary file),
+     * in this case the mutators of the returned graph throw UnsupportedOperationException - use copy() to change it.
      * @return
      */
     public directed_weighted_graph getGraph();
@@ -0,0 +1,123 @@
+package gameClient;
+
+import api.dw_graph_algorithms;
+import api.node_data;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * This class represents the planner of the game client - the agents routes to the pokemons, by stages, where every
+ * stage ends with a complete plan:
+ * 1. every agent gets one pokemon - by the Hungarian assignment, or the rare pokemon for its nearest agent.
+ * 2. more pokemons are inserted to the routes (RoutePlanner).
+ * 3. the routes are shortened by 2-opt.
+ * A request that is not a full plan (after a catch) keeps the routes of the last plan without the pokemons that are
+ * gone, and goes on from stage 2 - unless an agent has no route left.
+ * The planner keeps its routes between requests, so it must plan one request at a time.
+ */
+public class AgentsPlanner implements AnytimePlanner {
+
+    private final Arena arena;
+    private final TravelTimeModel model;
+    private final RoutePlanner routePlanner;
+
+    /**
+     * @param arena - the arena of the game, for its graph, its TravelTimeModel and its agents shortest path searches.
+     */
+    public AgentsPlanner(Arena arena, dw_graph_algorithms algo) {
+        this.arena = arena;
+        this.model = arena.getTravelTimeModel();
+        this.routePlanner = new RoutePlanner(arena.getGraph(), algo, model);
+    }
+
+    @Override
+    public void plan(Request request, long deadlineNanos, Consumer<Plan> bestSoFar) {
+        List<CL_Agent> agents = request.getAgents();
+        List<CL_Pokemon> pokemons = request.getPokemons();
+        if (!request.isFullPlan() && routePlanner.removeGoneStops(agents, pokemons)) {
+            bestSoFar.accept(toPlan(request, null)); //the routes of the last plan are still good
+            improveRoutes(request, null, deadlineNanos, bestSoFar);
+            return;
+        }
+
+        arena.updateAgentsPathTrees(agents); //one batch of searches answers all the agent to pokemon paths below
+        CL_Pokemon rarestPokemon = arena.getRarestPokemon(pokemons);
+        CL_Pokemon[] firstStops;
+        //there is no rare pokemon
+        if (rarestPokemon == null) {
+            for (CL_Pokemon pokemon : pokemons) {
+                arena.searchForNearestAgent(pokemon, agents);
+            }
+            firstStops = assignAgents(agents, pokemons, deadlineNanos);
+        }
+        //there is a rare pokemon
+        else {
+            CL_Agent nearestAgent = arena.searchForNearestAgent(rarestPokemon, agents);
+            firstStops = new CL_Pokemon[agents.size()];
+            if (nearestAgent != null) firstStops[agents.indexOf(nearestAgent)] = rarestPokemon;
+        }
+        routePlanner.setFirstStops(agents, firstStops);
+        bestSoFar.accept(toPlan(request, rarestPokemon));
+        improveRoutes(request, rarestPokemon, deadlineNanos, bestSoFar);
+    }
+
+    /**
+     * Inserts more pokemons to the routes and then shortens them, with a new plan after every stage that changed them.
+     */
+    private void improveRoutes(Request request, CL_Pokemon rarePokemon, long deadlineNanos, Consumer<Plan> bestSoFar) {
+        if (!RoutePlanner.hasTime(deadlineNanos)) return;
+        if (routePlanner.insertPokemons(request.getAgents(), request.getPokemons(), deadlineNanos))
+            bestSoFar.accept(toPlan(request, rarePokemon));
+        if (!RoutePlanner.hasTime(deadlineNanos)) return;
+        if (routePlanner.improveRoutes(request.getAgents(), deadlineNanos))
+            bestSoFar.accept(toPlan(request, rarePokemon));
+    }
+
+    private Plan toPlan(Request request, CL_Pokemon rarePokemon) {
+        Plan plan = new Plan(request, rarePokemon);
+        for (CL_Agent agent : request.getAgents()) {
+            plan.setPath(agent, routePlanner.getPath(agent));
+        }
+        return plan;
+    }
+
+    /**
+     * Gives every agent a different pokemon, so the total cost (see assignmentCost) of all the agents is minimal.
+     * An agent that got no pokemon (there are more agents than pokemons) gets its cheapest pokemon.
+     * The agents paths to the pokemons must already be set (by searchForNearestAgent).
+     * Returns the pokemon of every agent (in the order of the agents), null if the agent can't get to any pokemon.
+     */
+    private CL_Pokemon[] assignAgents(List<CL_Agent> agents, List<CL_Pokemon> pokemons, long deadlineNanos) {
+        double[][] cost = new double[agents.size()][pokemons.size()];
+        for (int i = 0; i < agents.size(); i++) {
+            for (int j = 0; j < pokemons.size(); j++) {
+                cost[i][j] = assignmentCost(agents.get(i), pokemons.get(j));
+            }
+        }
+        int[] assignment = HungarianAssignment.solve(cost, deadlineNanos);
+        CL_Pokemon[] ans = new CL_Pokemon[agents.size()];
+        for (int i = 0; i < agents.size(); i++) {
+            int pokemon = assignment[i];
+            if (pokemon == -1) {
+                for (int j = 0; j < pokemons.size(); j++) {
+                    if (Double.isFinite(cost[i][j]) && (pokemon == -1 || cost[i][j] < cost[i][pokemon])) pokemon = j;
+                }
+            }
+            if (pokemon != -1) ans[i] = pokemons.get(pokemon);
+        }
+        return ans;
+    }
+
+    /**
+     * Returns the cost of sending the agent to the pokemon - the time it takes the agent to get there (by the
+     * TravelTimeModel) per point of the pokemon, Infinity if the agent can't get there.
+     */
+    private double assignmentCost(CL_Agent agent, CL_Pokemon pokemon) {
+        List<node_data> path = agent.getPath(pokemon);
+        if (path == null || path.isEmpty()) return Double.POSITIVE_INFINITY;
+        //the last node of the path is the dest of the pokemon edge, with the distance to it
+        double distanceToSrc = path.get(path.size() - 1).getWeight() - pokemon.get_edge().getWeight();
+        return model.arrivalMillis(agent, pokemon, distanceToSrc) / pokemon.getValue();
+    }
+}
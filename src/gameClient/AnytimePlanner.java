@@ -0,0 +1,115 @@
+package gameClient;
+
+import api.node_data;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * This interface represents an anytime planner of the agents paths: it gives a complete plan as soon as it can, and
+ * then better plans while it has time. It must stop at the deadline or when its thread is interrupted, and the last
+ * plan that it gave is the plan of the request.
+ * A planner may run on a background thread (see AnytimePlanning), so it only uses the objects of the request - the
+ * agents of the request are copies that the game loop does not change.
+ */
+public interface AnytimePlanner {
+
+    /**
+     * Plans the paths of the request agents.
+     * @param deadlineNanos - the System.nanoTime() to stop planning at.
+     * @param bestSoFar     - gets every plan that is better than the last one.
+     */
+    void plan(Request request, long deadlineNanos, Consumer<Plan> bestSoFar);
+
+    /**
+     * This class represents the world to plan for - the agents and the pokemons at one tick of the game.
+     */
+    class Request {
+        private final long id;
+        private final List<CL_Agent> agents;
+        private final List<CL_Pokemon> pokemons;
+        private final boolean fullPlan;
+
+        /**
+         * @param agents   - the agents, they are copied.
+         * @param pokemons - the pokemons with their edges, they must not be changed after the request.
+         * @param fullPlan - true for a new plan for all the agents, false to only update the last plan to the pokemons.
+         */
+        public Request(long id, List<CL_Agent> agents, List<CL_Pokemon> pokemons, boolean fullPlan) {
+            this.id = id;
+            this.agents = new ArrayList<>();
+            for (CL_Agent agent : agents) {
+                this.agents.add(new CL_Agent(agent));
+            }
+            this.pokemons = Collections.unmodifiableList(new ArrayList<>(pokemons));
+            this.fullPlan = fullPlan;
+        }
+
+        public long getId() {
+            return this.id;
+        }
+
+        public List<CL_Agent> getAgents() {
+            return this.agents;
+        }
+
+        public List<CL_Pokemon> getPokemons() {
+            return this.pokemons;
+        }
+
+        public boolean isFullPlan() {
+            return this.fullPlan;
+        }
+    }
+
+    /**
+     * This class represents a complete plan - a path for every agent of the request, from the node that the agent
+     * planned from (the dest of its edge, or its node if it is not moving) - not included.
+     */
+    class Plan {
+        private final long requestId;
+        private final Map<Integer, List<node_data>> paths = new HashMap<>(); //by agent id
+        private final Map<Integer, Integer> fromNodes = new HashMap<>(); //the node that every path starts from, by agent id
+        private final CL_Pokemon rarePokemon;
+
+        public Plan(Request request, CL_Pokemon rarePokemon) {
+            this.requestId = request.getId();
+            this.rarePokemon = rarePokemon;
+        }
+
+        public void setPath(CL_Agent agent, List<node_data> path) {
+            this.paths.put(agent.getID(), path);
+            this.fromNodes.put(agent.getID(), agent.get_curr_edge() != null ? agent.get_curr_edge().getDest() : agent.getSrcNode());
+        }
+
+        /**
+         * Returns the path of the agent, null if the plan has no path for it.
+         */
+        public List<node_data> getPath(int agentId) {
+            return this.paths.get(agentId);
+        }
+
+        /**
+         * Returns the node that the path of the agent starts from, -1 if the plan has no path for it.
+         */
+        public int getFromNode(int agentId) {
+            Integer node = this.fromNodes.get(agentId);
+            return node != null ? node : -1;
+        }
+
+        public long getRequestId() {
+            return this.requestId;
+        }
+
+        /**
+         * Returns the rare pokemon that the plan sends an agent to, null if there is none.
+         */
+        public CL_Pokemon getRarePokemon() {
+            return this.rarePokemon;
+        }
+    }
+}
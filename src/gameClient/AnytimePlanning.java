@@ -0,0 +1,103 @@
+package gameClient;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * This class runs an AnytimePlanner for the game loop.
+ * In the background mode, every request is planned on one background thread, and a new request interrupts the
+ * request that is still planned (its world is out of date). The game loop never waits: it takes the latest complete
+ * plan whenever it wants (takeLatestPlan), and a request that is still planned gives its plans later.
+ * With no background thread (for a stepped GameClock, where the game time stands still while planning) every request
+ * is planned on the calling thread until the planner stops, so the plan is ready when request returns.
+ */
+public class AnytimePlanning {
+
+    private final AnytimePlanner planner;
+    private final ExecutorService executor; //null = plan on the calling thread
+    private final AtomicReference<AnytimePlanner.Plan> latestPlan = new AtomicReference<>();
+    private Future<?> running;
+    private long nextRequestId;
+    private volatile int planningCount; //the number of requests that were planned
+    private volatile long planningNanos; //the total planning time of all the requests
+    private volatile long maxPlanningNanos; //the planning time of the longest request
+
+    public AnytimePlanning(AnytimePlanner planner, boolean background) {
+        this.planner = planner;
+        this.executor = background ? Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "planner");
+            thread.setDaemon(true); //the planner never keeps the game process alive
+            return thread;
+        }) : null;
+    }
+
+    /**
+     * Returns a new request id - the plans of later requests have bigger ids.
+     */
+    public long nextRequestId() {
+        return nextRequestId++;
+    }
+
+    /**
+     * Plans the request until the deadline (by System.nanoTime()), in the background mode on the background thread.
+     */
+    public void request(AnytimePlanner.Request request, long deadlineNanos) {
+        Runnable task = () -> {
+            long start = System.nanoTime();
+            try {
+                planner.plan(request, deadlineNanos, latestPlan::set);
+            } catch (RuntimeException e) {
+                e.printStackTrace(); //the game goes on with the last plan
+            }
+            long time = System.nanoTime() - start;
+            planningCount++;
+            planningNanos += time;
+            maxPlanningNanos = Math.max(maxPlanningNanos, time);
+        };
+        if (executor == null) {
+            task.run();
+            return;
+        }
+        if (running != null) running.cancel(true); //the last request is out of date, its planner is interrupted
+        running = executor.submit(task);
+    }
+
+    /**
+     * Returns the latest complete plan that was not taken yet, null if there is no new plan. Never waits.
+     */
+    public AnytimePlanner.Plan takeLatestPlan() {
+        return latestPlan.getAndSet(null);
+    }
+
+    /**
+     * Returns true if a request is still planned in the background.
+     */
+    public boolean isPlanning() {
+        return running != null && !running.isDone();
+    }
+
+    /**
+     * Stops the background thread (the request that is planned is interrupted).
+     */
+    public void shutdown() {
+        if (executor != null) executor.shutdownNow();
+    }
+
+    public boolean isBackground() {
+        return this.executor != null;
+    }
+
+    public int getPlanningCount() {
+        return this.planningCount;
+    }
+
+    public long getPlanningNanos() {
+        return this.planningNanos;
+    }
+
+    public long getMaxPlanningNanos() {
+        return this.maxPlanningNanos;
+    }
+}
@@ -10,8 +10,10 @@ import org.json.JSONException;
 import org.json.JSONObject;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
  /**
  * This class represents a multi Agents Arena which move on a graph - grabs Pokemon's
@@ -25,14 +27,19 @@ public class Arena {
     private List<String> _info;
     private static Point3D MIN = new Point3D(0, 100, 0);
     private static Point3D MAX = new Point3D(0, 100, 0);
-    private List<Double> agentsValues;
     private long time;
     private int level;
+    private EdgeGrid _edgeGrid; //spatial index of the graph edges, for finding the edge of a pokemon
+    private HashMap<String, edge_location> _pokemonEdges; //the edges of the last pokemons, by "type@position"
+    private int _pokemonEdgesMC; //the MC of the graph when the pokemon edges were found
+    private directed_weighted_graph _pokemonEdgesGraph; //the graph that the pokemon edges were found on
+    private long _pokemonEdgeHits, _pokemonEdgeMisses; //the pokemons of updateEdges that were / were not in the cache
+    private Map<Integer, DWGraph_PathTree> agentsPathTrees; //shortest path trees from the nodes the agents plan from, null if not computed
+    private TravelTimeModel travelTimeModel; //null until the first use = a SpeedTravelTimeModel of the graph
 
     public Arena() {
         ;
         _info = new ArrayList<String>();
-        agentsValues = new ArrayList<>();
     }
 
     private Arena(directed_weighted_graph g, List<CL_Agent> r, List<CL_Pokemon> p) {
@@ -141,6 +148,24 @@ public class Arena {
         return ans;
     }
 
+    /**
+     * Same as json2Pokemons(fs), but the json is scanned by the given decoder (no json tree is built).
+     */
+    public static ArrayList<CL_Pokemon> json2Pokemons(String fs, ServerJsonDecoder decoder) {
+        ArrayList<CL_Pokemon> ans = new ArrayList<CL_Pokemon>();
+        try {
+            int count = decoder.decodePokemons(fs);
+            ans.ensureCapacity(count);
+            for (int i = 0; i < count; i++) {
+                ServerJsonDecoder.PokemonRecord pk = decoder.getPokemon(i);
+                ans.add(new CL_Pokemon(new Point3D(pk.x, pk.y, pk.z), pk.type, pk.value, null));
+            }
+        } catch (IllegalArgumentException e) {
+            e.printStackTrace();
+        }
+        return ans;
+    }
+
     /**
      * This method finds in which edge the pokemon exists and sets the pokemon's edge
      */
@@ -156,11 +181,79 @@ public class Arena {
                 boolean f = isOnEdge(ps.getLocation(), e, ps.getType(), g);
                 if (f) {
                     ps.set_edge(e);
+                    return; //the pokemon is on one edge only
                 }
             }
         }
     }
 
+    /**
+     * This method sets the edge (and the position along it) of all the given pokemons.
+     * the server keeps sending the same pokemons at the same positions, so the edges are cached by position and type,
+     * and only pokemons that are new since the last call are searched on the graph.
+     */
+    public void updateEdges(List<CL_Pokemon> pokemons) {
+        if (_pokemonEdges == null || _pokemonEdgesMC != _gg.getMC() || _pokemonEdgesGraph != _gg) { //the graph has changed - forget all the edges
+            _pokemonEdges = new HashMap<>();
+            _pokemonEdgesMC = _gg.getMC();
+            _pokemonEdgesGraph = _gg;
+        }
+        HashMap<String, edge_location> currentEdges = new HashMap<>();
+        for (CL_Pokemon pokemon : pokemons) {
+            String key = pokemon.getKey();
+            edge_location edgeLocation = _pokemonEdges.get(key);
+            if (edgeLocation != null) _pokemonEdgeHits++;
+            else { //a new pokemon
+                _pokemonEdgeMisses++;
+                updateEdge(pokemon);
+                if (pokemon.get_edge() == null) continue;
+                edgeLocation = new EdgeLocation(pokemon.get_edge(), edgeRatio(pokemon.getLocation(), pokemon.get_edge()));
+            }
+            pokemon.set_edge(edgeLocation.getEdge());
+            pokemon.set_edge_ratio(edgeLocation.getRatio());
+            currentEdges.put(key, edgeLocation);
+        }
+        _pokemonEdges = currentEdges; //keep only the pokemons that are still in the game
+    }
+
+    /**
+     * Returns the number of pokemons of updateEdges whose edge was taken from the cache.
+     */
+    public long getPokemonEdgeCacheHits() {
+        return _pokemonEdgeHits;
+    }
+
+    /**
+     * Returns the number of pokemons of updateEdges whose edge was searched on the graph.
+     */
+    public long getPokemonEdgeCacheMisses() {
+        return _pokemonEdgeMisses;
+    }
+
+    /**
+     * Returns the relative position [0,1] of p between the src and the dest of the edge.
+     */
+    private double edgeRatio(geo_location p, edge_data e) {
+        geo_location src = _gg.getNode(e.getSrc()).getLocation();
+        geo_location dest = _gg.getNode(e.getDest()).getLocation();
+        double length = src.distance(dest);
+        return length == 0 ? 0 : Math.min(1, src.distance(p) / length);
+    }
+
+    /**
+     * This method finds in which edge of the arena graph the pokemon exists and sets the pokemon's edge.
+     * it uses a spatial grid of the edges (built once per graph), so only the edges near the pokemon are checked
+     */
+    public void updateEdge(CL_Pokemon ps) {
+        if (_edgeGrid == null || !_edgeGrid.isUpToDate(_gg)) {
+            _edgeGrid = new EdgeGrid(_gg, EPS2);
+        }
+        edge_data e = _edgeGrid.find(ps.getLocation(), edge -> isOnEdge(ps.getLocation(), edge, ps.getType(), _gg));
+        if (e != null) {
+            ps.set_edge(e);
+        }
+    }
+
     private static boolean isOnEdge(geo_location p, geo_location src, geo_location dest) {
 
         boolean ans = false;
@@ -228,23 +321,12 @@ public class Arena {
         return ans;
     }
 
-    public boolean isPokemonCaught() {
-        boolean isCaught = false;
-        for (int i = 0; i < this.agentsValues.size(); i++) {
-            if (_agents.get(i).getValue() != agentsValues.get(i)) {
-                isCaught = true;
-                agentsValues.set(i, _agents.get(i).getValue());
-            }
-        }
-        return isCaught;
-    }
-
-    private CL_Pokemon[] getMostAndLeastRarePokemons() {
+    private CL_Pokemon[] getMostAndLeastRarePokemons(List<CL_Pokemon> pokemons) {
         CL_Pokemon[] MostAndLeastRarePokemons = new CL_Pokemon[2]; //index 0 is the most rare and index 1 is the least rare
         double[] MostAndLeastRarePokemonsValues = new double[2]; //index 0 is the most rare and index 1 is the least rare
         MostAndLeastRarePokemonsValues[0] = Double.MIN_VALUE;
         MostAndLeastRarePokemonsValues[1] = Double.MAX_VALUE;
-        for (CL_Pokemon pokemon : _pokemons) {
+        for (CL_Pokemon pokemon : pokemons) {
             if (pokemon.getValue() > MostAndLeastRarePokemonsValues[0]) {
                 MostAndLeastRarePokemons[0] = pokemon;
                 MostAndLeastRarePokemonsValues[0] = pokemon.getValue();
@@ -262,8 +344,15 @@ public class Arena {
      * rare pokemon = high value in relation of the other pokemons
      */
     public CL_Pokemon getRarestPokemon() {
-        final double rarePokemonThreshold = _pokemons.size() * 1.5;
-        CL_Pokemon[] mostAndLeastRarePokemons = getMostAndLeastRarePokemons();
+        return getRarestPokemon(_pokemons);
+    }
+
+    /**
+     * Same as getRarestPokemon(), for the given pokemons instead of the pokemons of the arena.
+     */
+    public CL_Pokemon getRarestPokemon(List<CL_Pokemon> pokemons) {
+        final double rarePokemonThreshold = pokemons.size() * 1.5;
+        CL_Pokemon[] mostAndLeastRarePokemons = getMostAndLeastRarePokemons(pokemons);
         CL_Pokemon rarestPokemon = mostAndLeastRarePokemons[0];
         CL_Pokemon leastRarePokemon = mostAndLeastRarePokemons[1];
         if (rarestPokemon.sameValueAs(leastRarePokemon))
@@ -271,40 +360,50 @@ public class Arena {
         return rarestPokemon.getValue() / leastRarePokemon.getValue() >= rarePokemonThreshold ? rarestPokemon : null;
     }
 
-    public void initAgentsValues(int numOfAgents) {
-        for (int i = 0; i < numOfAgents; i++) {
-            agentsValues.add(0.0);
-        }
-    }
-
     /**
      * This method Calculates all agents paths to a pokemon and saves them.
-     * Returns the agent that can reach the pokemon fastest
+     * Returns the agent that can reach the pokemon fastest (by the arena TravelTimeModel - its speed, where it is on its
+     * edge and where the pokemon is on its edge), null if no agent can reach it.
+     * The path of an agent that can't reach the pokemon is null.
      */
     public CL_Agent searchForNearestAgent(CL_Pokemon pokemon) {
+        return searchForNearestAgent(pokemon, this.getAgents());
+    }
+
+    /**
+     * Same as searchForNearestAgent(pokemon), for the given agents instead of the agents of the arena.
+     */
+    public CL_Agent searchForNearestAgent(CL_Pokemon pokemon, List<CL_Agent> agents) {
 
         edge_data pokemonEdge = pokemon.get_edge();
         int pokemonEdgeType = pokemon.getType();
 
-        double minDistance = Double.MAX_VALUE;
-        List<node_data> path = new ArrayList<>();
+        TravelTimeModel model = getTravelTimeModel();
+        double minArrival = Double.MAX_VALUE;
         CL_Agent nearestAgent = null;
-        for (CL_Agent agent : this.getAgents()) {
+        for (CL_Agent agent : agents) {
             int fromNode;
             fromNode = agent.get_curr_edge() != null ? agent.get_curr_edge().getDest() : agent.getSrcNode();
+            List<node_data> path = new ArrayList<>();
+            double distance = 0;
             if (fromNode != pokemonEdge.getSrc()) { //no need to do shortest path from node to self, so we just use a empty path
-                path = this._ggAlgo.shortestPath(fromNode, pokemonEdge.getSrc());
+                path = shortestPath(fromNode, pokemonEdge.getSrc());
+                if (path == null) { //no path - this agent can't get to the pokemon
+                    agent.setPath(pokemon, null);
+                    continue;
+                }
+                distance = path.get(path.size() - 1).getWeight();
             }
-            double distance = path.size() != 0 ? path.get(path.size() - 1).getWeight() : pokemonEdge.getWeight();
-            if (distance < minDistance) {
-                minDistance = distance;
+            double arrival = model.arrivalMillis(agent, pokemon, distance);
+            if (arrival < minArrival) {
+                minArrival = arrival;
                 nearestAgent = agent;
             }
             if (path.size() >= 1) {
                 path.remove(0);
             }
-            node_data lastNode = ((DWGraph_DS) (_gg)).copyNode(_gg.getNode(_gg.getNode(pokemonEdge.getDest()).getKey())); //copy the last node because we want to add weight to it and we don't want to do that on the original node
-            lastNode.setWeight(minDistance + pokemonEdge.getWeight());
+            node_data lastNode = DWGraph_DS.copyNode(_gg.getNode(pokemonEdge.getDest())); //copy the last node because we want to add weight to it and we don't want to do that on the original node
+            lastNode.setWeight(distance + pokemonEdge.getWeight()); //the distance of this agent to the end of the pokemon edge
             path.add(lastNode);
 
             agent.setPath(pokemon, path);
@@ -313,6 +412,52 @@ public class Arena {
 
     }
 
+    /**
+     * This method computes (in one parallel batch) the shortest path trees from the nodes that all agents plan from,
+     * so the following searchForNearestAgent calls don't need to search the graph again for every pokemon.
+     */
+    public void updateAgentsPathTrees() {
+        updateAgentsPathTrees(_agents);
+    }
+
+    /**
+     * Same as updateAgentsPathTrees(), for the given agents instead of the agents of the arena.
+     */
+    public void updateAgentsPathTrees(List<CL_Agent> agents) {
+        if (((DWGraph_Algo) _ggAlgo).hasAllPairs()) { //all the paths are already in the all-pairs table
+            agentsPathTrees = null;
+            return;
+        }
+        int[] sources = new int[agents.size()];
+        for (int i = 0; i < sources.length; i++) {
+            CL_Agent agent = agents.get(i);
+            sources[i] = agent.get_curr_edge() != null ? agent.get_curr_edge().getDest() : agent.getSrcNode();
+        }
+        agentsPathTrees = ((DWGraph_Algo) _ggAlgo).shortestPathsFrom(sources);
+    }
+
+    /**
+     * Returns the shortest path from src to dest - from the agents path trees if there is an updated one for src.
+     */
+    private List<node_data> shortestPath(int src, int dest) {
+        DWGraph_PathTree tree = agentsPathTrees != null ? agentsPathTrees.get(src) : null;
+        if (tree != null && tree.isUpToDate())
+            return tree.shortestPath(dest);
+        return this._ggAlgo.shortestPath(src, dest);
+    }
+
+    /**
+     * Returns the model of the agents travel times that the planning uses.
+     */
+    public TravelTimeModel getTravelTimeModel() {
+        if (travelTimeModel == null) travelTimeModel = new SpeedTravelTimeModel(_gg);
+        return travelTimeModel;
+    }
+
+    public void setTravelTimeModel(TravelTimeModel travelTimeModel) {
+        this.travelTimeModel = travelTimeModel;
+    }
+
     public void setGraphAlgo(DWGraph_Algo dwgAlgo) {
         this._ggAlgo = dwgAlgo;
     }
@@ -333,3 +478,29 @@ public class Arena {
         this.level = levelNumber;
     }
 }
+
+// ---------------------------------------------------------------------------------------------------------------------------------------------------------------
+
+/**
+ * This class represents a position on an edge - the edge and the relative position [0,1] from its src to its dest.
+ */
+class EdgeLocation implements edge_location {
+
+    private final edge_data edge;
+    private final double ratio;
+
+    public EdgeLocation(edge_data edge, double ratio) {
+        this.edge = edge;
+        this.ratio = ratio;
+    }
+
+    @Override
+    public edge_data getEdge() {
+        return this.edge;
+    }
+
+    @Override
+    public double getRatio() {
+        return this.ratio;
+    }
+}
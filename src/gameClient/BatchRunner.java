@@ -0,0 +1,219 @@
+package gameClient;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * This class plays many games in one process with no GUI: every level of the given levels with every seed of the given
+ * seeds, on the local GameSimulator, in parallel on a pool of worker threads (one game per task).
+ * The score, the number of moves and the planning times of every game are written to a CSV or a JSON report.
+ * Usage: java gameClient.BatchRunner [-levels 0-23] [-seeds 10] [-threads 8] [-speed 0] [-fixed true] [-out report.csv]
+ * -levels is a range or a comma separated list, -seeds M plays the seeds 0..M-1, -speed 0 runs the games on a stepped
+ * clock (as fast as possible, planning on the game thread) and -speed X on a clock X times faster than the real clock
+ * (planning on a background thread), -out ending with .json
+ * writes a JSON report, -fixed true moves every 100 milliseconds instead of by the MoveScheduler.
+ */
+public class BatchRunner {
+
+    /**
+     * This class represents the result of one game.
+     */
+    public static class GameResult {
+        public final int level;
+        public final long seed;
+        public final double grade;
+        public final int moves;
+        public final long avoidedMoves;
+        public final int planningCount;
+        public final double meanPlanningMillis;
+        public final double maxPlanningMillis;
+        public final double wallMillis;
+
+        GameResult(int level, long seed, double grade, int moves, long avoidedMoves, int planningCount, double meanPlanningMillis,
+                   double maxPlanningMillis, double wallMillis) {
+            this.level = level;
+            this.seed = seed;
+            this.grade = grade;
+            this.moves = moves;
+            this.avoidedMoves = avoidedMoves;
+            this.planningCount = planningCount;
+            this.meanPlanningMillis = meanPlanningMillis;
+            this.maxPlanningMillis = maxPlanningMillis;
+            this.wallMillis = wallMillis;
+        }
+    }
+
+    private final int threads;
+    private final double speed; //0 = stepped clock
+    private boolean fixedPeriod; //true = the games move every MoveScheduler.FIXED_PERIOD_MILLIS
+
+    /**
+     * @param threads - the number of games that are played at the same time.
+     * @param speed   - 0 for a stepped clock, otherwise how many times faster than the real clock the games run.
+     */
+    public BatchRunner(int threads, double speed) {
+        if (threads < 1) throw new IllegalArgumentException("threads must be positive: " + threads);
+        this.threads = threads;
+        this.speed = speed;
+    }
+
+    /**
+     * Sets if the games move every MoveScheduler.FIXED_PERIOD_MILLIS instead of by the MoveScheduler (false by default)
+     */
+    public void setFixedPeriod(boolean fixedPeriod) {
+        this.fixedPeriod = fixedPeriod;
+    }
+
+    /**
+     * Plays all the levels with all the seeds, returns the results ordered by level and then by seed.
+     */
+    public List<GameResult> run(int[] levels, long[] seeds) throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<GameResult>> futures = new ArrayList<>();
+            for (int level : levels) {
+                for (long seed : seeds) {
+                    futures.add(pool.submit(() -> play(level, seed)));
+                }
+            }
+            List<GameResult> results = new ArrayList<>();
+            for (Future<GameResult> future : futures) {
+                try {
+                    results.add(future.get());
+                } catch (ExecutionException e) {
+                    e.getCause().printStackTrace(); //the game failed, the other games are still reported
+                }
+            }
+            return results;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Plays one game on the simulator.
+     */
+    public GameResult play(int level, long seed) {
+        long start = System.nanoTime();
+        GameClock clock = speed <= 0 ? GameClock.stepped() : GameClock.accelerated(speed);
+        GameSimulator game = new GameSimulator(level, seed, clock);
+        Game_Manager manager = new Game_Manager();
+        manager.setGameData(0, level);
+        manager.setGame(game, clock);
+        manager.setHeadless(true);
+        manager.setBackgroundPlanning(speed > 0); //a stepped clock stands still while the game thread plans
+        if (fixedPeriod) manager.setMoveScheduler(null);
+        manager.play();
+
+        int planningCount = manager.getPlanningCount();
+        double meanPlanningMillis = planningCount == 0 ? 0 : manager.getPlanningNanos() / 1e6 / planningCount;
+        long avoidedMoves = manager.getMoveScheduler() == null ? 0 : manager.getMoveScheduler().getAvoidedMoves();
+        return new GameResult(level, seed, game.getGrade(), game.getMoves(), avoidedMoves, planningCount, meanPlanningMillis,
+                manager.getMaxPlanningNanos() / 1e6, (System.nanoTime() - start) / 1e6);
+    }
+
+    /**
+     * Writes the results to the given file - as JSON if the file name ends with .json, otherwise as CSV.
+     */
+    public static boolean writeReport(List<GameResult> results, String file) {
+        try (PrintWriter pw = new PrintWriter(new File(file))) {
+            if (file.endsWith(".json")) {
+                JsonArray games = new JsonArray();
+                for (GameResult result : results) {
+                    JsonObject game = new JsonObject();
+                    game.addProperty("level", result.level);
+                    game.addProperty("seed", result.seed);
+                    game.addProperty("grade", result.grade);
+                    game.addProperty("moves", result.moves);
+                    game.addProperty("avoidedMoves", result.avoidedMoves);
+                    game.addProperty("planningCount", result.planningCount);
+                    game.addProperty("meanPlanningMillis", result.meanPlanningMillis);
+                    game.addProperty("maxPlanningMillis", result.maxPlanningMillis);
+                    game.addProperty("wallMillis", result.wallMillis);
+                    games.add(game);
+                }
+                JsonObject report = new JsonObject();
+                report.add("Games", games);
+                pw.write(new GsonBuilder().setPrettyPrinting().create().toJson(report));
+            } else {
+                pw.println("level,seed,grade,moves,avoidedMoves,planningCount,meanPlanningMillis,maxPlanningMillis,wallMillis");
+                for (GameResult result : results) {
+                    pw.println(result.level + "," + result.seed + "," + result.grade + "," + result.moves + "," + result.avoidedMoves + ","
+                            + result.planningCount + "," + result.meanPlanningMillis + "," + result.maxPlanningMillis
+                            + "," + result.wallMillis);
+                }
+            }
+        } catch (FileNotFoundException e) {
+            e.printStackTrace();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Parses "0-23" or "0,3,7" to the list of levels.
+     */
+    static int[] parseLevels(String levels) {
+        if (levels.contains("-")) {
+            String[] range = levels.split("-");
+            int from = Integer.parseInt(range[0].trim()), to = Integer.parseInt(range[1].trim());
+            int[] ans = new int[Math.max(0, to - from + 1)];
+            for (int i = 0; i < ans.length; i++) ans[i] = from + i;
+            return ans;
+        }
+        String[] list = levels.split(",");
+        int[] ans = new int[list.length];
+        for (int i = 0; i < list.length; i++) ans[i] = Integer.parseInt(list[i].trim());
+        return ans;
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        String levels = "0-" + (GameSimulator.NUM_OF_LEVELS - 1);
+        int numOfSeeds = 10;
+        int threads = Runtime.getRuntime().availableProcessors();
+        double speed = 0;
+        String out = "report.csv";
+        boolean fixedPeriod = false;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "-levels": levels = args[i + 1]; break;
+                case "-seeds": numOfSeeds = Integer.parseInt(args[i + 1]); break;
+                case "-threads": threads = Integer.parseInt(args[i + 1]); break;
+                case "-speed": speed = Double.parseDouble(args[i + 1]); break;
+                case "-out": out = args[i + 1]; break;
+                case "-fixed": fixedPeriod = Boolean.parseBoolean(args[i + 1]); break;
+                default: throw new IllegalArgumentException("unknown option " + args[i]);
+            }
+        }
+        long[] seeds = new long[numOfSeeds];
+        for (int i = 0; i < seeds.length; i++) seeds[i] = i;
+
+        long start = System.nanoTime();
+        BatchRunner runner = new BatchRunner(threads, speed);
+        runner.setFixedPeriod(fixedPeriod);
+        List<GameResult> results = runner.run(parseLevels(levels), seeds);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        double totalGrade = 0;
+        long totalMoves = 0;
+        for (GameResult result : results) {
+            totalGrade += result.grade;
+            totalMoves += result.moves;
+        }
+        System.out.printf("%d games in %.1f seconds (%.0f games per minute), mean grade %.1f, mean moves %.1f%n",
+                results.size(), seconds, results.size() / seconds * 60, results.isEmpty() ? 0 : totalGrade / results.size(),
+                results.isEmpty() ? 0 : (double) totalMoves / results.size());
+        if (writeReport(results, out)) System.out.println("report: " + out);
+    }
+}
@@ -7,6 +7,7 @@ import api.node_data;
 import gameClient.util.Point3D;
 import org.json.JSONObject;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 
@@ -37,25 +38,51 @@ public class CL_Agent {
 		setSpeed(0);
 		pokemonsPaths = new HashMap<>();
 	}
+	/**
+	 * Copies the state of the given agent (its id, position, edge, speed and value), with no paths to pokemons.
+	 */
+	public CL_Agent(CL_Agent other) {
+		_gg = other._gg;
+		_id = other._id;
+		_pos = other._pos;
+		_speed = other._speed;
+		_curr_edge = other._curr_edge;
+		_curr_node = other._curr_node;
+		_curr_pokemon = other._curr_pokemon;
+		_value = other._value;
+		pokemonsPaths = new HashMap<>();
+	}
 	public void update(String json) {
 		JSONObject line;
 		try {
 			// "GameServer":{"graph":"A0","pokemons":3,"agents":1}}
 			line = new JSONObject(json);
 			JSONObject ttt = line.getJSONObject("Agent");
+			update(ttt);
+		}
+		catch(Exception e) {
+			e.printStackTrace();
+		}
+	}
+	/**
+	 * Updates this agent from an already parsed "Agent" json object, only the fields that changed are set.
+	 */
+	public void update(JSONObject ttt) {
+		try {
 			int id = ttt.getInt("id");
 			if(id==this.getID() || this.getID() == -1) {
 				if(this.getID() == -1) {_id = id;}
 				double speed = ttt.getDouble("speed");
 				String p = ttt.getString("pos");
-				Point3D pp = new Point3D(p);
 				int src = ttt.getInt("src");
 				int dest = ttt.getInt("dest");
 				double value = ttt.getDouble("value");
-				this._pos = pp;
-				this.setCurrNode(src);
+				if(!p.equals(_pos.toString())) {this._pos = new Point3D(p);}
+				if(src != this.getSrcNode() || dest != this.getNextNode()) {
+					this.setCurrNode(src);
+					this.setNextNode(dest);
+				}
 				this.setSpeed(speed);
-				this.setNextNode(dest);
 				this.setMoney(value);
 			}
 		}
@@ -63,6 +90,23 @@ public class CL_Agent {
 			e.printStackTrace();
 		}
 	}
+	/**
+	 * Updates this agent from a decoded agent record, only the fields that changed are set.
+	 */
+	public void update(ServerJsonDecoder.AgentRecord record) {
+		if(record.id==this.getID() || this.getID() == -1) {
+			if(this.getID() == -1) {_id = record.id;}
+			if(record.x != _pos.x() || record.y != _pos.y() || record.z != _pos.z()) {
+				this._pos = new Point3D(record.x, record.y, record.z);
+			}
+			if(record.src != this.getSrcNode() || record.dest != this.getNextNode()) {
+				this.setCurrNode(record.src);
+				this.setNextNode(record.dest);
+			}
+			this.setSpeed(record.speed);
+			this.setMoney(record.value);
+		}
+	}
 	//@Override
 	public int getSrcNode() {return this._curr_node.getKey();}
 	public String toJSON() {
@@ -142,19 +186,26 @@ public class CL_Agent {
 		this._curr_pokemon = curr_pokemon;
 	}
 	public void set_SDT(long ddtt) {
+		List<CL_Pokemon> pokemons = new ArrayList<>();
+		if(this._curr_pokemon!=null) {pokemons.add(this._curr_pokemon);}
+		set_SDT(ddtt, pokemons);
+	}
+	public void set_SDT(long ddtt, List<CL_Pokemon> pokemons) {
+		set_SDT(ddtt, pokemons, new SpeedTravelTimeModel(_gg));
+	}
+	/**
+	 * Sets the time (in milliseconds, by the given model) until the next thing that happens to this agent: it gets to
+	 * the first of the given pokemons that is ahead of it on its edge, or else it gets to the dest of its edge.
+	 * ddtt if the agent is not moving.
+	 */
+	public void set_SDT(long ddtt, List<CL_Pokemon> pokemons, TravelTimeModel model) {
 		long ddt = ddtt;
-		if(this._curr_edge!=null) {
-			double w = get_curr_edge().getWeight();
-			geo_location dest = _gg.getNode(get_curr_edge().getDest()).getLocation();
-			geo_location src = _gg.getNode(get_curr_edge().getSrc()).getLocation();
-			double de = src.distance(dest);
-			double dist = _pos.distance(dest);
-			if(this.get_curr_pokemon().get_edge()==this.get_curr_edge()) {
-				 dist = _curr_pokemon.getLocation().distance(this._pos);
+		if(this._curr_edge!=null && this.getSpeed()>0) {
+			double dt = model.millisToNode(this);
+			for(CL_Pokemon pokemon : pokemons) {
+				dt = Math.min(dt, model.millisOnEdge(this, pokemon));
 			}
-			double norm = dist/de;
-			double dt = w*norm / this.getSpeed();
-			ddt = (long)(1000.0*dt);
+			ddt = (long)Math.ceil(dt);
 		}
 		this.set_sg_dt(ddt);
 	}
@@ -10,6 +10,7 @@ public class CL_Pokemon {
 	private Point3D _pos;
 	private double min_dist;
 	private int min_ro;
+	private double _edge_ratio; // the relative position [0,1] of the pokemon from the src to the dest of its edge
 	
 	public CL_Pokemon(Point3D p, int t, double v, edge_data e) {
 		_type = t;
@@ -40,6 +41,14 @@ public class CL_Pokemon {
 		this._edge = _edge;
 	}
 
+	public double get_edge_ratio() {
+		return _edge_ratio;
+	}
+
+	public void set_edge_ratio(double edge_ratio) {
+		this._edge_ratio = edge_ratio;
+	}
+
 	public Point3D getLocation() {
 		return _pos;
 	}
@@ -63,6 +72,13 @@ public class CL_Pokemon {
 		this.min_ro = min_ro;
 	}
 
+	/**
+	 * Returns "type@position" - the same pokemon has the same key in all the pokemons json of the server.
+	 */
+	public String getKey() {
+		return _type + "@" + _pos;
+	}
+
 	public boolean sameValueAs(CL_Pokemon other) {
 		return this._value == other._value;
 	}
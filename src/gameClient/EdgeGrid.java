@@ -0,0 +1,144 @@
+package gameClient;
+
+import api.directed_weighted_graph;
+import api.edge_data;
+import api.geo_location;
+import api.node_data;
+
+import java.util.function.Predicate;
+
+/**
+ * This class represents a uniform grid spatial index over the edges of a graph.
+ * Every edge is put in all the grid cells that its bounding box touches (the box is padded by the tolerance
+ * of the "point on edge" test), so finding the edge that contains a point only checks the few edges of one cell
+ * instead of all the edges of the graph.
+ */
+public class EdgeGrid {
+
+    private static final int MAX_CELLS_PER_EDGE = 16; //on average, the grid is made coarser until the edges fit
+
+    private final directed_weighted_graph graph;
+    private final int mc; //the MC of the graph when the grid was built
+    private double minX, minY, cellWidth, cellHeight;
+    private int columns, rows;
+    private int[] cellStart; //the edges of cell c are cellEdges[cellStart[c], cellStart[c+1])
+    private edge_data[] cellEdges;
+
+    /**
+     * Builds the grid of the given graph.
+     * @param tolerance - the max value of (|src,p| + |p,dest| - |src,dest|) for a point p to be on the edge.
+     */
+    public EdgeGrid(directed_weighted_graph graph, double tolerance) {
+        this.graph = graph;
+        this.mc = graph.getMC();
+
+        int numOfEdges = graph.edgeSize();
+        double[] boxes = new double[numOfEdges * 4]; //minX,minY,maxX,maxY of every edge (after padding)
+        edge_data[] edges = new edge_data[numOfEdges];
+        int count = 0;
+        double x0 = Double.MAX_VALUE, y0 = Double.MAX_VALUE, x1 = -Double.MAX_VALUE, y1 = -Double.MAX_VALUE;
+        for (node_data node : graph.getV()) {
+            for (edge_data edge : graph.getE(node.getKey())) {
+                if (count == edges.length) break; //edgeSize was wrong, ignore the extra edges
+                geo_location src = graph.getNode(edge.getSrc()).getLocation();
+                geo_location dest = graph.getNode(edge.getDest()).getLocation();
+                double length = src.distance(dest);
+                // the points that pass the test are an ellipse around the edge - pad the box by its semi minor axis
+                double pad = Math.sqrt(((length + tolerance) * (length + tolerance) - length * length) / 4) + tolerance;
+                boxes[count * 4] = Math.min(src.x(), dest.x()) - pad;
+                boxes[count * 4 + 1] = Math.min(src.y(), dest.y()) - pad;
+                boxes[count * 4 + 2] = Math.max(src.x(), dest.x()) + pad;
+                boxes[count * 4 + 3] = Math.max(src.y(), dest.y()) + pad;
+                x0 = Math.min(x0, boxes[count * 4]);
+                y0 = Math.min(y0, boxes[count * 4 + 1]);
+                x1 = Math.max(x1, boxes[count * 4 + 2]);
+                y1 = Math.max(y1, boxes[count * 4 + 3]);
+                edges[count++] = edge;
+            }
+        }
+        if (count == 0) {
+            columns = rows = 1;
+            cellWidth = cellHeight = 1;
+            cellStart = new int[2];
+            cellEdges = new edge_data[0];
+            return;
+        }
+
+        // about one cell per edge, with fewer (bigger) cells when the edges are long and every edge would be in too
+        // many cells (like a random graph, where the edges cross the whole graph)
+        minX = x0;
+        minY = y0;
+        int side = Math.max(1, (int) Math.ceil(Math.sqrt(count)));
+        setSide(side, x1, y1);
+        while (side > 1 && cellsOfEdges(boxes, count) > MAX_CELLS_PER_EDGE * (long) count) {
+            side /= 2;
+            setSide(side, x1, y1);
+        }
+
+        // first count the edges of every cell, then fill them (like a CSR)
+        cellStart = new int[columns * rows + 1];
+        for (int pass = 0; pass < 2; pass++) {
+            int[] fill = pass == 1 ? cellStart.clone() : null;
+            for (int e = 0; e < count; e++) {
+                int c0 = column(boxes[e * 4]), c1 = column(boxes[e * 4 + 2]);
+                int r0 = row(boxes[e * 4 + 1]), r1 = row(boxes[e * 4 + 3]);
+                for (int r = r0; r <= r1; r++) {
+                    for (int c = c0; c <= c1; c++) {
+                        if (pass == 0) cellStart[r * columns + c + 1]++;
+                        else cellEdges[fill[r * columns + c]++] = edges[e];
+                    }
+                }
+            }
+            if (pass == 0) {
+                for (int cell = 0; cell < columns * rows; cell++)
+                    cellStart[cell + 1] += cellStart[cell];
+                cellEdges = new edge_data[cellStart[columns * rows]];
+            }
+        }
+    }
+
+    private void setSide(int side, double x1, double y1) {
+        columns = rows = side;
+        cellWidth = Math.max((x1 - minX) / columns, Double.MIN_NORMAL);
+        cellHeight = Math.max((y1 - minY) / rows, Double.MIN_NORMAL);
+    }
+
+    /**
+     * Returns the number of (edge, cell) pairs of the given edge boxes in the current grid.
+     */
+    private long cellsOfEdges(double[] boxes, int count) {
+        long cells = 0;
+        for (int e = 0; e < count; e++) {
+            cells += (long) (column(boxes[e * 4 + 2]) - column(boxes[e * 4]) + 1)
+                    * (row(boxes[e * 4 + 3]) - row(boxes[e * 4 + 1]) + 1);
+        }
+        return cells;
+    }
+
+    private int column(double x) {
+        return Math.min(columns - 1, Math.max(0, (int) ((x - minX) / cellWidth)));
+    }
+
+    private int row(double y) {
+        return Math.min(rows - 1, Math.max(0, (int) ((y - minY) / cellHeight)));
+    }
+
+    /**
+     * Returns the first edge of the cell of p that the given test accepts, null if there is none.
+     */
+    public edge_data find(geo_location p, Predicate<edge_data> isOnEdge) {
+        int cell = row(p.y()) * columns + column(p.x());
+        for (int i = cellStart[cell]; i < cellStart[cell + 1]; i++) {
+            if (isOnEdge.test(cellEdges[i]))
+                return cellEdges[i];
+        }
+        return null;
+    }
+
+    /**
+     * Returns true if this grid was built for the given graph and the graph was not changed since.
+     */
+    public boolean isUpToDate(directed_weighted_graph g) {
+        return this.graph == g && this.mc == g.getMC();
+    }
+}
@@ -12,12 +12,17 @@ public class Ex2 {
 
     public static void main(String[] args) {
 
-        // This is for the cmd operation
-        if (args.length == 2) {
+        // This is for the cmd operation: <ID> <level> [local [seed]] - local plays on the GameSimulator, with no server
+        if (args.length >= 2) {
             int ID = Integer.parseInt(args[0]);
             int levelNumber = Integer.parseInt(args[1]);
             Game_Manager gameManager = new Game_Manager();
             gameManager.setGameData(ID, levelNumber);
+            if (args.length >= 3 && args[2].equals("local")) {
+                long seed = args.length >= 4 ? Long.parseLong(args[3]) : 0;
+                GameClock clock = GameClock.wall();
+                gameManager.setGame(new GameSimulator(levelNumber, seed, clock), clock);
+            }
             new Thread(gameManager).start();
         } else {
             loginGUI = new LoginGUI();
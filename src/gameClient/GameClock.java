@@ -0,0 +1,65 @@
+package gameClient;
+
+/**
+ * This interface represents the clock that a game runs by.
+ * The game server runs by the wall clock, the local GameSimulator can also run by a faster clock,
+ * or by a stepped clock that only moves when the client sleeps (so a game takes no real time at all).
+ */
+public interface GameClock {
+
+    /**
+     * Returns the current time of this clock in milliseconds.
+     */
+    long currentTimeMillis();
+
+    /**
+     * Waits until this clock moved forward by the given milliseconds.
+     */
+    void sleep(long millis) throws InterruptedException;
+
+    /**
+     * Returns the real clock.
+     */
+    static GameClock wall() {
+        return accelerated(1);
+    }
+
+    /**
+     * Returns a clock that runs factor times faster than the real clock.
+     */
+    static GameClock accelerated(double factor) {
+        if (factor <= 0) throw new IllegalArgumentException("factor must be positive: " + factor);
+        long start = System.nanoTime();
+        return new GameClock() {
+            @Override
+            public long currentTimeMillis() {
+                return (long) ((System.nanoTime() - start) / 1_000_000.0 * factor);
+            }
+
+            @Override
+            public void sleep(long millis) throws InterruptedException {
+                long realMillis = (long) Math.ceil(millis / factor);
+                if (realMillis > 0) Thread.sleep(realMillis);
+            }
+        };
+    }
+
+    /**
+     * Returns a new clock that starts at 0 and only moves forward by the calls to sleep - sleep returns at once.
+     */
+    static GameClock stepped() {
+        return new GameClock() {
+            private long now;
+
+            @Override
+            public synchronized long currentTimeMillis() {
+                return now;
+            }
+
+            @Override
+            public synchronized void sleep(long millis) {
+                if (millis > 0) now += millis;
+            }
+        };
+    }
+}
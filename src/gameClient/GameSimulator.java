@@ -0,0 +1,349 @@
+package gameClient;
+
+import api.DWGraph_Algo;
+import api.directed_weighted_graph;
+import api.edge_data;
+import api.game_service;
+import api.geo_location;
+import api.node_data;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * This class represents a local game server - an in process game_service that plays the same levels as
+ * Game_Server_Ex2 (the arenas of data/A0-A5 with the same numbers of pokemons and agents) with no internet.
+ * Same rules as the server:
+ * - an agent goes over an edge in (edge weight / speed) seconds, its speed is 1, 2 from 50 points and 5 from 100 points.
+ * - the agents move and catch pokemons only when move() is called - a pokemon is caught by an agent that is on the
+ *   pokemon edge and within GRAB_DISTANCE of it, and a new pokemon (on a random edge) takes its place.
+ * Unlike the server, the game is deterministic: the pokemons come from the given seed, and the time comes from a
+ * GameClock, so with a stepped clock the same seed and the same client calls always give the same game.
+ */
+public class GameSimulator implements game_service {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final int NUM_OF_LEVELS = 24;
+    public static final long LEVEL_DURATION_MILLIS = 30_000;
+    public static final double GRAB_DISTANCE = 0.001;
+    private static final int[] AGENTS = {1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 3, 1, 2, 3, 1, 2, 3, 1, 2, 3, 1, 2, 3};
+
+    private final int level;
+    private final String graphFile;
+    private final String graphJson;
+    private final directed_weighted_graph graph;
+    private final edge_data[] edges; //all the edges, in a fixed order (for the seeded pokemons)
+    private final GameClock clock;
+    private final long durationMillis;
+    private final Random random;
+    private final int numOfPokemons;
+    private final int numOfAgents;
+
+    private final List<Agent> agents = new ArrayList<>();
+    private final List<Pokemon> pokemons = new ArrayList<>();
+    private long id;
+    private boolean loggedIn;
+    private boolean running;
+    private long endTime;
+    private long lastUpdate; //the clock time that the agents were moved to
+    private int moves;
+
+    /**
+     * This class represents an agent of the game.
+     */
+    private static class Agent {
+        int id;
+        int src;
+        edge_data edge; //null when the agent stands on src
+        edge_data arrivedBy; //the edge that the agent got to src by in the last move, null if it did not arrive
+        double progress; //the part of the edge that the agent passed [0,1)
+        long moveStart; //the clock time that the agent was sent to its edge
+        double speed = 1;
+        double value;
+        double x, y, z;
+    }
+
+    /**
+     * This class represents a pokemon of the game.
+     */
+    private static class Pokemon {
+        edge_data edge;
+        double value;
+        int type;
+        double x, y, z;
+    }
+
+    /**
+     * Creates the given level [0,23] that runs by the given clock for LEVEL_DURATION_MILLIS.
+     * the arena is read from data/A0-A5 (relative to the working directory, like the GameGUI images).
+     */
+    public GameSimulator(int level, long seed, GameClock clock) {
+        this(level, seed, clock, LEVEL_DURATION_MILLIS);
+    }
+
+    public GameSimulator(int level, long seed, GameClock clock, long durationMillis) {
+        if (level < 0 || level >= NUM_OF_LEVELS)
+            throw new IllegalArgumentException("there is no level " + level + ", the levels are [0," + (NUM_OF_LEVELS - 1) + "]");
+        this.level = level;
+        this.graphFile = "data/A" + level / 4;
+        try {
+            this.graphJson = new String(Files.readAllBytes(Paths.get(graphFile)));
+        } catch (IOException e) {
+            throw new IllegalArgumentException("can't read the arena " + graphFile, e);
+        }
+        DWGraph_Algo algo = new DWGraph_Algo();
+        if (!algo.loadJson(graphJson))
+            throw new IllegalArgumentException(graphFile + " is not a graph json");
+        this.graph = algo.getGraph();
+
+        List<edge_data> edgesList = new ArrayList<>();
+        for (node_data node : graph.getV())
+            edgesList.addAll(graph.getE(node.getKey()));
+        edgesList.sort(Comparator.comparingInt(edge_data::getSrc).thenComparingInt(edge_data::getDest));
+        this.edges = edgesList.toArray(new edge_data[0]);
+
+        this.clock = clock;
+        this.durationMillis = durationMillis;
+        this.random = new Random(seed);
+        this.numOfPokemons = level % 6 + 1;
+        this.numOfAgents = AGENTS[level];
+        while (pokemons.size() < numOfPokemons)
+            pokemons.add(randomPokemon());
+    }
+
+    /**
+     * Returns a new pokemon of value [5,15] on a random edge (type 1 if the edge goes up in keys, -1 if it goes down).
+     */
+    private Pokemon randomPokemon() {
+        Pokemon pokemon = new Pokemon();
+        pokemon.edge = edges[random.nextInt(edges.length)];
+        pokemon.value = 5 + random.nextInt(11);
+        pokemon.type = pokemon.edge.getSrc() < pokemon.edge.getDest() ? 1 : -1;
+        double ratio = 0.2 + 0.6 * random.nextDouble();
+        geo_location src = graph.getNode(pokemon.edge.getSrc()).getLocation();
+        geo_location dest = graph.getNode(pokemon.edge.getDest()).getLocation();
+        pokemon.x = src.x() + (dest.x() - src.x()) * ratio;
+        pokemon.y = src.y() + (dest.y() - src.y()) * ratio;
+        pokemon.z = src.z() + (dest.z() - src.z()) * ratio;
+        return pokemon;
+    }
+
+    /**
+     * Moves the agents along their edges up to the current time of the clock.
+     */
+    private void moveAgents() {
+        long now = Math.min(clock.currentTimeMillis(), endTime);
+        for (Agent agent : agents) {
+            agent.arrivedBy = null;
+            if (agent.edge == null) continue;
+            double seconds = (now - Math.max(lastUpdate, agent.moveStart)) / 1000.0; //from the move, or from the choose
+            agent.progress += agent.speed * seconds / agent.edge.getWeight();
+            if (agent.progress >= 1) { //the agent got to the dest node, it stops there
+                agent.src = agent.edge.getDest();
+                agent.arrivedBy = agent.edge;
+                agent.edge = null;
+                agent.progress = 0;
+                setPosition(agent, graph.getNode(agent.src).getLocation());
+            } else {
+                geo_location src = graph.getNode(agent.edge.getSrc()).getLocation();
+                geo_location dest = graph.getNode(agent.edge.getDest()).getLocation();
+                agent.x = src.x() + (dest.x() - src.x()) * agent.progress;
+                agent.y = src.y() + (dest.y() - src.y()) * agent.progress;
+                agent.z = src.z() + (dest.z() - src.z()) * agent.progress;
+            }
+        }
+        lastUpdate = now;
+    }
+
+    /**
+     * Gives every agent the pokemons on its edge that it is close to, and puts new pokemons in their place.
+     * an agent that got to the end of its edge in this move (and stands on the dest node) still catches the pokemons
+     * of that edge near the dest.
+     */
+    private void grabPokemons() {
+        for (Agent agent : agents) {
+            edge_data edge = agent.edge != null ? agent.edge : agent.arrivedBy;
+            if (edge == null) continue;
+            for (int i = 0; i < pokemons.size(); i++) {
+                Pokemon pokemon = pokemons.get(i);
+                if (pokemon.edge.getSrc() != edge.getSrc() || pokemon.edge.getDest() != edge.getDest()) continue;
+                double dx = agent.x - pokemon.x, dy = agent.y - pokemon.y, dz = agent.z - pokemon.z;
+                if (Math.sqrt(dx * dx + dy * dy + dz * dz) < GRAB_DISTANCE) {
+                    agent.value += pokemon.value;
+                    if (agent.speed < 2 && agent.value >= 50) agent.speed = 2;
+                    if (agent.speed < 5 && agent.value >= 100) agent.speed = 5;
+                    pokemons.set(i, randomPokemon());
+                }
+            }
+        }
+    }
+
+    private static void setPosition(Agent agent, geo_location location) {
+        agent.x = location.x();
+        agent.y = location.y();
+        agent.z = location.z();
+    }
+
+    private boolean isOver() {
+        return running && clock.currentTimeMillis() >= endTime;
+    }
+
+    @Override
+    public String getGraph() {
+        return graphJson;
+    }
+
+    @Override
+    public directed_weighted_graph getJava_Graph_Not_to_be_used() {
+        return graph;
+    }
+
+    @Override
+    public synchronized String getPokemons() {
+        StringBuilder json = new StringBuilder("{\"Pokemons\":[");
+        for (int i = 0; i < pokemons.size(); i++) {
+            Pokemon pokemon = pokemons.get(i);
+            if (i > 0) json.append(',');
+            json.append("{\"Pokemon\":{\"value\":").append(pokemon.value)
+                    .append(",\"type\":").append(pokemon.type)
+                    .append(",\"pos\":\"").append(pokemon.x).append(',').append(pokemon.y).append(',').append(pokemon.z)
+                    .append("\"}}");
+        }
+        return json.append("]}").toString();
+    }
+
+    @Override
+    public synchronized String getAgents() {
+        StringBuilder json = new StringBuilder("{\"Agents\":[");
+        for (int i = 0; i < agents.size(); i++) {
+            Agent agent = agents.get(i);
+            if (i > 0) json.append(',');
+            json.append("{\"Agent\":{\"id\":").append(agent.id)
+                    .append(",\"value\":").append(agent.value)
+                    .append(",\"src\":").append(agent.src)
+                    .append(",\"dest\":").append(agent.edge == null ? -1 : agent.edge.getDest())
+                    .append(",\"speed\":").append(agent.speed)
+                    .append(",\"pos\":\"").append(agent.x).append(',').append(agent.y).append(',').append(agent.z)
+                    .append("\"}}");
+        }
+        return json.append("]}").toString();
+    }
+
+    /**
+     * Adds an agent on the given node, only before the game started and only up to the number of agents of the level.
+     */
+    @Override
+    public synchronized boolean addAgent(int start_node) {
+        node_data node = graph.getNode(start_node);
+        if (running || node == null || agents.size() == numOfAgents) return false;
+        Agent agent = new Agent();
+        agent.id = agents.size();
+        agent.src = start_node;
+        setPosition(agent, node.getLocation());
+        agents.add(agent);
+        return true;
+    }
+
+    @Override
+    public synchronized long startGame() {
+        if (!running) {
+            running = true;
+            lastUpdate = clock.currentTimeMillis();
+            endTime = lastUpdate + durationMillis;
+        }
+        return timeToEnd();
+    }
+
+    @Override
+    public synchronized boolean isRunning() {
+        if (isOver()) stopGame();
+        return running;
+    }
+
+    @Override
+    public synchronized long stopGame() {
+        if (running) {
+            moveAgents();
+            running = false;
+            endTime = Math.min(endTime, clock.currentTimeMillis());
+        }
+        return 0;
+    }
+
+    /**
+     * Sends a standing agent to the given neighbor node, returns the time of the clock (like the server),
+     * or -1 if the agent can't go there.
+     */
+    @Override
+    public synchronized long chooseNextEdge(int id, int next_node) {
+        if (!isRunning() || id < 0 || id >= agents.size()) return -1;
+        Agent agent = agents.get(id);
+        if (agent.edge != null) return -1; //the agent is on an edge
+        edge_data edge = graph.getEdge(agent.src, next_node);
+        if (edge == null) return -1;
+        agent.edge = edge;
+        agent.progress = 0;
+        agent.moveStart = clock.currentTimeMillis();
+        return agent.moveStart;
+    }
+
+    /**
+     * Returns the time left to the end of the game in milliseconds, -1 before the game started.
+     */
+    @Override
+    public synchronized long timeToEnd() {
+        if (endTime == 0 && !running) return -1;
+        return Math.max(0, endTime - clock.currentTimeMillis());
+    }
+
+    /**
+     * Moves the agents to the current time and lets them catch pokemons, returns the agents json.
+     */
+    @Override
+    public synchronized String move() {
+        if (isRunning()) {
+            moveAgents();
+            grabPokemons();
+            moves++;
+        }
+        return getAgents();
+    }
+
+    @Override
+    public synchronized boolean login(long id) {
+        this.id = id;
+        this.loggedIn = true;
+        return true;
+    }
+
+    /**
+     * Returns the total value that all the agents caught.
+     */
+    public synchronized double getGrade() {
+        double grade = 0;
+        for (Agent agent : agents)
+            grade += agent.value;
+        return grade;
+    }
+
+    public synchronized int getMoves() {
+        return this.moves;
+    }
+
+    public GameClock getClock() {
+        return this.clock;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "{\"GameServer\":{\"pokemons\":" + numOfPokemons + ",\"is_logged_in\":" + loggedIn + ",\"moves\":" + moves
+                + ",\"grade\":" + getGrade() + ",\"game_level\":" + level + ",\"max_user_level\":-1,\"id\":" + id
+                + ",\"graph\":\"" + graphFile + "\",\"agents\":" + numOfAgents + "}}";
+    }
+}
@@ -2,6 +2,7 @@ package gameClient;
 
 import Server.Game_Server_Ex2;
 import api.DWGraph_Algo;
+import api.DWGraph_CSR;
 import api.DWGraph_DS;
 import api.game_service;
 import api.node_data;
@@ -14,8 +15,12 @@ import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
-public class Game_Manager implements Runnable  {
+public class Game_Manager implements Runnable, WorldState.Listener  {
+
+    public static final long DEFAULT_PLANNING_MARGIN_MILLIS = 20; //planning ends this long before the next move
+    private static final long PLAN_POLL_MILLIS = 2; //how often the game loop checks for a plan while planning in the background
 
     private int ID;
     private int levelNumber;
@@ -26,56 +31,202 @@ public class Game_Manager implements Runnable  {
     private int counter = 0;
     private long levelTime;
     private GameGUI gameGUI;
+    private WorldState worldState;
+    private boolean needsPlanning; //true when something happened since the last planning that needs a new plan
+    private boolean needsRoutesUpdate; //true when a pokemon was caught or appeared - the routes are updated to the new pokemons
+    private AnytimePlanning planning;
+    private boolean backgroundPlanning = true; //false = plan on the game thread (for a stepped clock)
+    private long planningMarginMillis = DEFAULT_PLANNING_MARGIN_MILLIS;
+    private long fullPlanRequestId = -1; //the last request of a full plan
+    private long lastPlanRequestId = -1; //the request of the last plan that was applied
+    private TravelTimeModel travelTimeModel; //null = a SpeedTravelTimeModel of the level graph
+    private final ServerJsonDecoder jsonDecoder = new ServerJsonDecoder(); //reused for every pokemons json of the game
+    private boolean headless = false; //true = no GameGUI and no printing, for running many games in one process
+    private game_service localGame; //a game to play instead of the game server, null = the game server
+    private GameClock clock = GameClock.wall();
+    private MoveScheduler moveScheduler = new MoveScheduler(); //null = move every MoveScheduler.FIXED_PERIOD_MILLIS
+    private int moveCalls; //the number of game.move() calls
+    private boolean saveGraphFile = false; //true = also write the level graph to graph.json (in the background) for debugging
 
     public void setGameData(int ID, int levelNumber) {
         this.ID = ID;
         this.levelNumber = levelNumber;
     }
 
+    /**
+     * Sets a game to play instead of the game server (like a GameSimulator), and the clock that the game runs by
+     */
+    public void setGame(game_service game, GameClock clock) {
+        this.localGame = game;
+        this.clock = clock;
+    }
+
     public void run() {
-        initGame();
+        play();
+        System.exit(0);
+    }
+
+    /**
+     * Plays the whole game (until the game is over), and returns.
+     * Returns false if the level could not be started (the graph of the level is broken).
+     */
+    public boolean play() {
+        if (!initGame()) return false;
         startGame();
         while(game.isRunning()) {
             updateGameBoard();
             try {
-                Thread.sleep(100);
+                waitForNextMove(nextMoveDelay());
             } catch (InterruptedException e) {
                 e.printStackTrace();
+                Thread.currentThread().interrupt();
+                game.stopGame();
             }
         }
 
-        System.out.println("Level Ended");
-        System.out.println(game);
-        System.exit(0);
+        planning.shutdown();
+        if (!headless) {
+            System.out.println("Level Ended");
+            System.out.println(game);
+            if (moveScheduler != null)
+                System.out.println("move() calls: " + moveCalls + ", avoided: " + moveScheduler.getAvoidedMoves());
+        }
+        return true;
+    }
+
+    /**
+     * Waits the given time to the next move. A plan that gets ready (in the background) in the meantime is applied at
+     * once, so the agents that wait for it go on with no move() call.
+     */
+    private void waitForNextMove(long delayMillis) throws InterruptedException {
+        long end = clock.currentTimeMillis() + delayMillis;
+        long left = delayMillis;
+        while (left > 0) {
+            clock.sleep(planning.isPlanning() ? Math.min(left, PLAN_POLL_MILLIS) : left);
+            if (applyLatestPlan()) dispatchAgents();
+            left = end - clock.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Returns the time to wait until the next move - until the next thing that happens in the game.
+     */
+    private long nextMoveDelay() {
+        if (moveScheduler == null) return MoveScheduler.FIXED_PERIOD_MILLIS;
+        boolean waitsForPlan = needsPlanning || needsRoutesUpdate || planning.isPlanning();
+        return moveScheduler.nextDelay(_ar.getAgents(), _ar.getPokemons(), waitsForPlan, game.timeToEnd());
+    }
+
+    /**
+     * Sets the scheduler of the game moves, null to move every MoveScheduler.FIXED_PERIOD_MILLIS.
+     */
+    public void setMoveScheduler(MoveScheduler moveScheduler) {
+        this.moveScheduler = moveScheduler;
+    }
+
+    public MoveScheduler getMoveScheduler() {
+        return this.moveScheduler;
+    }
+
+    /**
+     * Sets if the planning runs on a background thread (true by default), so the game loop never waits for it.
+     * With a stepped GameClock it should be false - the game time does not go on while the game thread plans.
+     */
+    public void setBackgroundPlanning(boolean backgroundPlanning) {
+        this.backgroundPlanning = backgroundPlanning;
+    }
+
+    /**
+     * Sets how long before the next move the planning must end (DEFAULT_PLANNING_MARGIN_MILLIS by default).
+     */
+    public void setPlanningMargin(long planningMarginMillis) {
+        this.planningMarginMillis = planningMarginMillis;
+    }
+
+    /**
+     * Sets the model of the agents travel times, that the planning and the moves scheduling use (a SpeedTravelTimeModel
+     * of the level graph by default). Must be set before the game starts.
+     */
+    public void setTravelTimeModel(TravelTimeModel travelTimeModel) {
+        this.travelTimeModel = travelTimeModel;
+    }
+
+    /**
+     * Sets if the graph of the level is also written to graph.json, on a background thread (false by default)
+     */
+    public void setSaveGraphFile(boolean saveGraphFile) {
+        this.saveGraphFile = saveGraphFile;
+    }
+
+    /**
+     * Sets if the game runs with no GameGUI window and no printing (false by default)
+     */
+    public void setHeadless(boolean headless) {
+        this.headless = headless;
+    }
+
+    /**
+     * Returns the game that is played (null before the game started).
+     */
+    public game_service getGame() {
+        return this.game;
+    }
+
+    public int getMoveCalls() {
+        return this.moveCalls;
+    }
+
+    public int getPlanningCount() {
+        return planning != null ? planning.getPlanningCount() : 0;
+    }
+
+    public long getPlanningNanos() {
+        return planning != null ? planning.getPlanningNanos() : 0;
     }
 
-    private void initGame() {
-        game = Game_Server_Ex2.getServer(levelNumber); // you have [0,23] games
-        game.login(ID);
+    public long getMaxPlanningNanos() {
+        return planning != null ? planning.getMaxPlanningNanos() : 0;
+    }
+
+    private boolean initGame() {
+        game_service server = localGame != null ? localGame : Game_Server_Ex2.getServer(levelNumber); // you have [0,23] games
+        server.login(ID);
+        return initGame(server);
+    }
+
+    /**
+     * This method loads the level of the given (logged in) game and adds the agents to it.
+     * Returns false if the graph of the level could not be loaded - then the game is not started.
+     */
+    boolean initGame(game_service game) {
+        this.game = game;
         String g = game.getGraph();
         String ps = game.getPokemons();
         DWGraph_DS dwg = new DWGraph_DS();
         DWGraph_Algo dwgAlgo = new DWGraph_Algo();
         dwgAlgo.init(dwg);
 
-        try {
-            PrintWriter pw = new PrintWriter(new File("graph.json"));
-            pw.write(g);
-            pw.close();
-
-        } catch (FileNotFoundException e) {
-            e.printStackTrace();
+        if (!dwgAlgo.loadJson(g)) { //build the graph straight from the server string, with no temp file
+            if (!headless) System.out.println("The graph of level " + levelNumber + " is broken, the level can not be played");
+            return false;
         }
-
-        dwgAlgo.load("graph.json");
+        if (saveGraphFile) {
+            saveGraphFileAsync(g);
+        }
+        dwgAlgo.precomputeAllPairs(); //the level graph never changes, so all the paths are computed once here
         // initiating Arena
         _ar = new Arena();
-        _ar.setGraph(dwgAlgo.getGraph());
+        _ar.setGraph(DWGraph_CSR.of(dwgAlgo.getGraph())); //the graph does not change during the game, so the arena uses the read-only snapshot
         _ar.setPokemons(Arena.json2Pokemons(ps));
         _ar.setGraphAlgo(dwgAlgo);
         _ar.setLevel(levelNumber);
+        if (travelTimeModel != null) _ar.setTravelTimeModel(travelTimeModel);
+        if (moveScheduler != null) moveScheduler.setTravelTimeModel(_ar.getTravelTimeModel());
+        planning = new AnytimePlanning(new AgentsPlanner(_ar, dwgAlgo), backgroundPlanning);
 
-        gameGUI = new GameGUI(_ar);
+        if (!headless) {
+            gameGUI = new GameGUI(_ar);
+        }
 
         String infoGameString = game.toString(); // returns all the data on the game level
         JSONObject line;
@@ -83,15 +234,15 @@ public class Game_Manager implements Runnable  {
             line = new JSONObject(infoGameString);// line holds the data on the game level as jsonObject
             JSONObject ttt = line.getJSONObject("GameServer");
             int amountAgents = ttt.getInt("agents"); // how much agents there is in this level
-            System.out.println(infoGameString);
-            System.out.println(game.getPokemons());
+            if (!headless) {
+                System.out.println(infoGameString);
+                System.out.println(game.getPokemons());
+            }
             int src_node = 0;  // arbitrary node, you should start at one of the pokemon
             List<CL_Pokemon> cl_ps = _ar.getPokemons();
 
-            // This loop going through all the Pokemon's in the game and set on which edge they present
-            for (int i = 0; i < cl_ps.size(); i++) {
-                Arena.updateEdge(cl_ps.get(i), dwgAlgo.getGraph());
-            }
+            // set on which edge all the Pokemon's in the game present
+            _ar.updateEdges(cl_ps);
             // This loop going through all the Agent's in the game and set on which edge they present
             for (int i = 0; i < amountAgents; i++) {
                 int ind = i % cl_ps.size();
@@ -107,12 +258,25 @@ public class Game_Manager implements Runnable  {
             e.printStackTrace();
         }
         initAgents();
+        return true;
+    }
+    /**
+     * This method writes the graph json to graph.json on a background thread, so the game does not wait for the disk
+     */
+    private void saveGraphFileAsync(String graphJson) {
+        CompletableFuture.runAsync(() -> {
+            try (PrintWriter pw = new PrintWriter(new File("graph.json"))) {
+                pw.write(graphJson);
+            } catch (FileNotFoundException e) {
+                e.printStackTrace();
+            }
+        });
     }
+
     private void initAgents() {
-        String getAgentsJson = game.getAgents();
-        List<CL_Agent> agents = Arena.getAgents(getAgentsJson, _ar.getGraph());
-        _ar.setAgents(agents); //update agents in the arena for the GUI
-        _ar.initAgentsValues(_ar.getAgents().size());
+        worldState = new WorldState(_ar.getGraph(), this);
+        worldState.updateAgents(game.getAgents());
+        _ar.setAgents(worldState.getAgents()); //the arena (and the GUI) keeps the same agents list for the whole game
     }
 
     private void startGame() {
@@ -121,11 +285,12 @@ public class Game_Manager implements Runnable  {
         levelTime = game.timeToEnd();
     }
 
-    private void updateGameBoard() {
+    void updateGameBoard() {
         _ar.setTime(game.timeToEnd());
-        String getAgentsJson = game.getAgents();
-        List<CL_Agent> agents = Arena.getAgents(getAgentsJson, _ar.getGraph());
-        _ar.setAgents(agents); //update agents in the arena for the GUI
+        //the agents json of the move updates the agents in place, and reports the changes to this manager
+        worldState.updateAgents(game.move());
+        moveCalls++;
+        updatePokemons(); //the new pokemons are reported the same way
 
         if (nextAgentsNodes == null) {
             nextAgentsNodes = new HashMap<>();
@@ -135,96 +300,100 @@ public class Game_Manager implements Runnable  {
         }
 
         //we want to perform an algorithm only after catching a Pokemon or if an agent is idle
-        //if we caught a pokemon
-        if (_ar.isPokemonCaught()) {
-            runAlgorithms();
-        } else {
-            for (CL_Agent agent : _ar.getAgents()) {
-                if (agent.get_curr_edge() == null && nextAgentsNodes.get(agent.getID()).size() == 0) { //if we found an agent that is idle
-                    runAlgorithms();
-                    break;
-
-                }
-            }
+        if (needsPlanning || needsRoutesUpdate) {
+            requestPlan(needsPlanning);
         }
+        applyLatestPlan(); //with background planning, the plan of an earlier tick (if it is ready)
+        dispatchAgents();
+    }
 
+    /**
+     * Sends the agents that stand on a node to the next node of their path - right after a move, the agents that got
+     * to a node in this move go on at once (not on the next move).
+     */
+    private void dispatchAgents() {
         for (CL_Agent agent : _ar.getAgents()) {
             List<node_data> agentPath = nextAgentsNodes.get(agent.getID());
-            if (agentPath.size() != 0) {
-                if (agent.get_curr_edge() == null)
-                    game.chooseNextEdge(agent.getID(), CL_Agent.move(agentPath));
+            if (agentPath != null && agentPath.size() != 0) {
+                if (agent.get_curr_edge() == null) {
+                    int nextNode = CL_Agent.move(agentPath);
+                    if (game.chooseNextEdge(agent.getID(), nextNode) != -1)
+                        agent.setNextNode(nextNode); //the agent is on its way, the scheduler plans by its new edge
+                }
             }
         }
-
-        game.move();
     }
 
-    private void runAlgorithms() {
-
-        String getPokemonsJson = game.getPokemons();
-        List<CL_Pokemon> pokemons = Arena.json2Pokemons(getPokemonsJson);
-        _ar.setPokemons(pokemons); // update pokemon's in the arena for the GUI
-
-        // This loop going through all the Pokemon's in the game and set on which edge they present
-        for (int i = 0; i < pokemons.size(); i++) {
-            Arena.updateEdge(pokemons.get(i), _ar.getGraph());
-        }
-
-        CL_Pokemon rarestPokemon = _ar.getRarestPokemon();
-        //there is no rare pokemon
-        if (rarestPokemon == null) {
-            //loop through all Pokemon's
-            for (int i=0; i< pokemons.size(); i++) {
-                CL_Pokemon currPokemon = pokemons.get(i);
-                _ar.searchForNearestAgent(currPokemon);
-            }
+    @Override
+    public void onPokemonCaught(CL_Agent agent, double value) {
+        needsRoutesUpdate = true; //the agents keep their routes, only the caught and the new pokemons change them
+    }
 
-            HashMap<Integer, List<List<node_data>>> nearestAgentToPokemon = new HashMap<>();
+    @Override
+    public void onNewPokemon(CL_Pokemon pokemon) {
+        needsRoutesUpdate = true;
+    }
 
-            for (CL_Agent agent : _ar.getAgents()) {
-                nearestAgentToPokemon.put(agent.getID(), new ArrayList<>());
-            }
+    @Override
+    public void onAgentArrived(CL_Agent agent, int node) {
+        List<node_data> agentPath = nextAgentsNodes != null ? nextAgentsNodes.get(agent.getID()) : null;
+        if (agentPath == null || agentPath.size() == 0) //the agent is idle
+            needsPlanning = true;
+    }
 
-            //loop through all Pokemon's
-            for (int i=0; i< pokemons.size(); i++) {
-                CL_Pokemon currPokemon = pokemons.get(i);
-                List<List<node_data>> minPaths = new ArrayList<>();
-                List<node_data> minPath = null;
-                CL_Agent minAgent = null;
-                double minDistance = Double.MAX_VALUE;
-                for (CL_Agent agent : _ar.getAgents()) {
-                    List<node_data> pokemonPath = agent.getPath(currPokemon);
-                    double pathDistance = pokemonPath.get(pokemonPath.size()-1).getWeight();
-                    if (pathDistance <= minDistance) {
-                        minDistance = pathDistance;
-                        minPath = pokemonPath;
-                        minAgent = agent;
-                    }
-                    nearestAgentToPokemon.get(minAgent.getID()).add(minPath);
-                }
-            }
+    /**
+     * Plans new paths for all the agents, and applies them if the plan is ready.
+     */
+    void runAlgorithms() {
+        requestPlan(true);
+        applyLatestPlan();
+    }
 
-            double minDistance = Double.MAX_VALUE;
-            List<node_data> minPath = null;
-            for (CL_Agent agent : _ar.getAgents()) {
-                List<List<node_data>> pathsFromPokemons = nearestAgentToPokemon.get(agent.getID());
-                for (List<node_data> pathFromPokemon : pathsFromPokemons) {
-                    double pathDistance = pathFromPokemon.get(pathFromPokemon.size() - 1).getWeight();
-                    if (pathDistance <= minDistance) {
-                        minDistance = pathDistance;
-                        minPath = pathFromPokemon;
-                    }
-                }
-                nextAgentsNodes.put(agent.getID(), minPath);
-            }
+    /**
+     * Asks the planner for a plan of the current agents and pokemons, that ends planningMarginMillis before the next move.
+     * @param fullPlan - true for new routes for all the agents, false to update the routes to the current pokemons.
+     */
+    private void requestPlan(boolean fullPlan) {
+        needsPlanning = false;
+        needsRoutesUpdate = false;
+        fullPlan = fullPlan || fullPlanRequestId > lastPlanRequestId; //an unfinished full plan is not replaced by an update
+        List<CL_Pokemon> pokemons = _ar.getPokemons(); //updated on every tick (see updateGameBoard)
+        long id = planning.nextRequestId();
+        if (fullPlan) fullPlanRequestId = id;
+        long nextMoveMillis = moveScheduler != null ? moveScheduler.getMinIntervalMillis() : MoveScheduler.FIXED_PERIOD_MILLIS;
+        long budgetNanos = Math.max(1, nextMoveMillis - planningMarginMillis) * 1_000_000;
+        planning.request(new AnytimePlanner.Request(id, _ar.getAgents(), pokemons, fullPlan), System.nanoTime() + budgetNanos);
+    }
 
+    /**
+     * Gives the agents the paths of the latest complete plan, if there is a new one. An agent that went on since the
+     * plan was requested keeps its path, and the routes are updated again.
+     * Returns true if there was a new plan.
+     */
+    private boolean applyLatestPlan() {
+        AnytimePlanner.Plan plan = planning.takeLatestPlan();
+        if (plan == null) return false;
+        if (!headless && plan.getRarePokemon() != null && plan.getRequestId() != lastPlanRequestId)
+            System.out.println("Found rare pokemon! value: " + plan.getRarePokemon().getValue());
+        lastPlanRequestId = plan.getRequestId();
+        for (CL_Agent agent : _ar.getAgents()) {
+            List<node_data> path = plan.getPath(agent.getID());
+            if (path == null) continue;
+            int fromNode = agent.get_curr_edge() != null ? agent.get_curr_edge().getDest() : agent.getSrcNode();
+            if (fromNode == plan.getFromNode(agent.getID())) nextAgentsNodes.put(agent.getID(), path);
+            else needsRoutesUpdate = true; //the path is from a node that the agent already left
         }
+        return true;
+    }
 
-        //there is a rare pokemon
-        else {
-            System.out.println("Found rare pokemon! value: " + rarestPokemon.getValue());
-            CL_Agent nearestAgent = _ar.searchForNearestAgent(rarestPokemon);
-            nextAgentsNodes.put(nearestAgent.getID(), nearestAgent.getPath(rarestPokemon));
-        }
+    /**
+     * Gets the pokemons from the game, sets them in the arena (with their edges) and reports the new ones.
+     */
+    private void updatePokemons() {
+        List<CL_Pokemon> pokemons = Arena.json2Pokemons(game.getPokemons(), jsonDecoder);
+        // set on which edge all the Pokemon's in the game present (only new pokemons are searched on the graph)
+        _ar.updateEdges(pokemons);
+        _ar.setPokemons(pokemons); // update pokemon's in the arena for the GUI
+        worldState.updatePokemons(pokemons);
     }
 }
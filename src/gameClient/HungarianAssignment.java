@@ -0,0 +1,120 @@
+package gameClient;
+
+import java.util.Arrays;
+
+/**
+ * This class solves the assignment problem - given a rows x columns cost matrix, it gives every row a different column
+ * so that the total cost is minimal (the Hungarian algorithm with row and column potentials, O(rows^2 * columns)).
+ * A cost that is not finite (Infinity or NaN) means the row can't take that column.
+ * The solver adds the rows one by one, and checks the deadline before every row: when the deadline has passed, the
+ * rows that are left take their cheapest free column (greedy), so a solve never runs much longer than its budget.
+ */
+public class HungarianAssignment {
+
+    private HungarianAssignment() {
+    }
+
+    /**
+     * Returns the optimal assignment - ans[row] is the column of the row, or -1 if the row got no column
+     * (there are more rows than columns, or all its free columns can't be taken).
+     */
+    public static int[] solve(double[][] cost) {
+        return solve(cost, Long.MAX_VALUE);
+    }
+
+    /**
+     * Returns the assignment of the rows, optimal if it was found before deadlineNanos (by System.nanoTime()).
+     */
+    public static int[] solve(double[][] cost, long deadlineNanos) {
+        int rows = cost.length;
+        int columns = rows == 0 ? 0 : cost[0].length;
+        int[] ans = new int[rows];
+        Arrays.fill(ans, -1);
+        if (rows == 0 || columns == 0) return ans;
+
+        //the algorithm needs rows <= columns, so with more rows it solves the transposed matrix
+        boolean transposed = rows > columns;
+        int n = transposed ? columns : rows;
+        int m = transposed ? rows : columns;
+        double forbidden = forbiddenCost(cost);
+        double[][] a = new double[n + 1][m + 1]; //1-based, with the forbidden costs replaced by a big finite cost
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < columns; j++) {
+                double c = Double.isFinite(cost[i][j]) ? cost[i][j] : forbidden;
+                if (transposed) a[j + 1][i + 1] = c;
+                else a[i + 1][j + 1] = c;
+            }
+        }
+
+        double[] u = new double[n + 1], v = new double[m + 1], minv = new double[m + 1];
+        int[] p = new int[m + 1]; //p[j] = the row of column j (0 = free)
+        int[] way = new int[m + 1];
+        boolean[] used = new boolean[m + 1];
+        int row = 1;
+        for (; row <= n && System.nanoTime() < deadlineNanos; row++) {
+            p[0] = row;
+            int j0 = 0;
+            Arrays.fill(minv, Double.POSITIVE_INFINITY);
+            Arrays.fill(used, false);
+            do { //grow the alternating tree until it gets to a free column
+                used[j0] = true;
+                int i0 = p[j0], j1 = 0;
+                double delta = Double.POSITIVE_INFINITY;
+                for (int j = 1; j <= m; j++) {
+                    if (used[j]) continue;
+                    double cur = a[i0][j] - u[i0] - v[j];
+                    if (cur < minv[j]) {
+                        minv[j] = cur;
+                        way[j] = j0;
+                    }
+                    if (minv[j] < delta) {
+                        delta = minv[j];
+                        j1 = j;
+                    }
+                }
+                for (int j = 0; j <= m; j++) {
+                    if (used[j]) {
+                        u[p[j]] += delta;
+                        v[j] -= delta;
+                    } else {
+                        minv[j] -= delta;
+                    }
+                }
+                j0 = j1;
+            } while (p[j0] != 0);
+            do { //flip the augmenting path
+                int j1 = way[j0];
+                p[j0] = p[j1];
+                j0 = j1;
+            } while (j0 != 0);
+        }
+        for (; row <= n; row++) { //out of time - the rest of the rows take their cheapest free column
+            int best = 0;
+            for (int j = 1; j <= m; j++) {
+                if (p[j] == 0 && (best == 0 || a[row][j] < a[row][best])) best = j;
+            }
+            p[best] = row;
+        }
+
+        for (int j = 1; j <= m; j++) {
+            if (p[j] == 0) continue;
+            int i = transposed ? j - 1 : p[j] - 1;
+            int c = transposed ? p[j] - 1 : j - 1;
+            if (Double.isFinite(cost[i][c])) ans[i] = c;
+        }
+        return ans;
+    }
+
+    /**
+     * Returns a cost that is bigger than any sum of finite costs of the matrix, for the pairs that can't be taken.
+     */
+    private static double forbiddenCost(double[][] cost) {
+        double sum = 0;
+        for (double[] line : cost) {
+            for (double c : line) {
+                if (Double.isFinite(c)) sum += Math.abs(c);
+            }
+        }
+        return (sum + 1) * 2;
+    }
+}
@@ -0,0 +1,87 @@
+package gameClient;
+
+import java.util.List;
+
+/**
+ * This class decides when the game loop calls game.move() next.
+ * Instead of moving every FIXED_PERIOD_MILLIS, it waits exactly until the next time something happens: an agent gets
+ * to a pokemon on its edge or to the dest of its edge (from CL_Agent.set_SDT, by a TravelTimeModel). when an agent waits for a new plan the
+ * game moves at once, and moves are never closer than 1000 / maxMovesPerSecond milliseconds.
+ * It also counts the moves that the fixed period loop would have made and this loop did not.
+ */
+public class MoveScheduler {
+
+    public static final long FIXED_PERIOD_MILLIS = 100; //the period of the old fixed loop
+    public static final double DEFAULT_MAX_MOVES_PER_SECOND = 20;
+
+    private final long minIntervalMillis;
+    private TravelTimeModel travelTimeModel; //null = the SpeedTravelTimeModel of the agents graph
+    private long moves;
+    private long scheduledMillis; //the total time that the loop waited between the moves
+
+    public MoveScheduler() {
+        this(DEFAULT_MAX_MOVES_PER_SECOND);
+    }
+
+    public MoveScheduler(double maxMovesPerSecond) {
+        if (maxMovesPerSecond <= 0) throw new IllegalArgumentException("maxMovesPerSecond must be positive: " + maxMovesPerSecond);
+        this.minIntervalMillis = Math.max(1, (long) Math.ceil(1000 / maxMovesPerSecond));
+    }
+
+    /**
+     * Returns the time (in milliseconds) to wait before the next move, right after a move.
+     * @param agents        - the agents, updated from the last move.
+     * @param pokemons      - the pokemons, with their edges.
+     * @param needsPlanning - true if an agent is waiting for a new plan.
+     * @param timeToEnd     - the time left in the game.
+     */
+    public long nextDelay(List<CL_Agent> agents, List<CL_Pokemon> pokemons, boolean needsPlanning, long timeToEnd) {
+        long delay;
+        if (needsPlanning) {
+            delay = minIntervalMillis;
+        } else {
+            delay = Long.MAX_VALUE;
+            for (CL_Agent agent : agents) {
+                if (!agent.isMoving()) continue; //the agent has nothing to do, it waits for a pokemon to be caught
+                if (travelTimeModel != null) agent.set_SDT(Long.MAX_VALUE, pokemons, travelTimeModel);
+                else agent.set_SDT(Long.MAX_VALUE, pokemons);
+                delay = Math.min(delay, agent.get_sg_dt());
+            }
+            if (delay == Long.MAX_VALUE) delay = FIXED_PERIOD_MILLIS; //nothing is going to happen - check every period
+            delay = Math.max(delay, minIntervalMillis);
+        }
+        if (timeToEnd > 0) delay = Math.min(delay, timeToEnd);
+        moves++;
+        scheduledMillis += delay;
+        return delay;
+    }
+
+    /**
+     * Sets the model of the agents times to the pokemons and to the nodes, that the moves are scheduled by.
+     */
+    public void setTravelTimeModel(TravelTimeModel travelTimeModel) {
+        this.travelTimeModel = travelTimeModel;
+    }
+
+    /**
+     * Returns the shortest time between two moves - the time to the next move while an agent waits for a plan.
+     */
+    public long getMinIntervalMillis() {
+        return this.minIntervalMillis;
+    }
+
+    /**
+     * Returns the number of moves that were scheduled.
+     */
+    public long getMoves() {
+        return this.moves;
+    }
+
+    /**
+     * Returns how many move() calls the fixed FIXED_PERIOD_MILLIS loop would have made more than this scheduler,
+     * over the same time.
+     */
+    public long getAvoidedMoves() {
+        return Math.max(0, scheduledMillis / FIXED_PERIOD_MILLIS - moves);
+    }
+}
@@ -0,0 +1,269 @@
+package gameClient;
+
+import api.directed_weighted_graph;
+import api.dw_graph_algorithms;
+import api.edge_data;
+import api.node_data;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * This class plans for every agent a route - an ordered list of pokemons to catch one after the other, so the agents
+ * don't need a new plan after every catch.
+ * The routes start from the first pokemons of the assignment, and the other pokemons are added by greedy insertion:
+ * every step adds the pokemon, agent and route position with the most value per added second, as long as it adds at
+ * least MIN_INSERTION_RATE of the value per second of the route. Then the order of every route is improved by 2-opt
+ * (reversing parts of the route).
+ * The time of a route is the time that the agent takes to catch all its pokemons, by the TravelTimeModel.
+ * Both stages check a deadline (and the interrupt flag of the thread), so planning never runs much longer than its budget.
+ */
+public class RoutePlanner {
+
+    private static final double MIN_TIME = 1e-9; //so a route that takes no time has a finite value per second
+    private static final double MIN_INSERTION_RATE = 0.5; //an insertion must add at least this part of the value per second of its route
+
+    private final directed_weighted_graph graph;
+    private final dw_graph_algorithms algo;
+    private final TravelTimeModel model;
+    private final HashMap<Integer, List<CL_Pokemon>> routes = new HashMap<>(); //the route of every agent, by agent id
+
+    public RoutePlanner(directed_weighted_graph graph, dw_graph_algorithms algo) {
+        this(graph, algo, new SpeedTravelTimeModel(graph));
+    }
+
+    public RoutePlanner(directed_weighted_graph graph, dw_graph_algorithms algo, TravelTimeModel model) {
+        this.graph = graph;
+        this.algo = algo;
+        this.model = model;
+    }
+
+    /**
+     * Plans new routes for all the agents.
+     * @param firstStops    - the first pokemon of every agent (in the order of the agents), null for no first pokemon.
+     * @param deadlineNanos - the System.nanoTime() to stop improving the routes at.
+     */
+    public void plan(List<CL_Agent> agents, List<CL_Pokemon> pokemons, CL_Pokemon[] firstStops, long deadlineNanos) {
+        setFirstStops(agents, firstStops);
+        insertPokemons(agents, pokemons, deadlineNanos);
+        improveRoutes(agents, deadlineNanos);
+    }
+
+    /**
+     * Starts new routes - every agent only goes to its first pokemon (null for no pokemon).
+     */
+    void setFirstStops(List<CL_Agent> agents, CL_Pokemon[] firstStops) {
+        routes.clear();
+        for (int i = 0; i < agents.size(); i++) {
+            List<CL_Pokemon> route = new ArrayList<>();
+            if (firstStops[i] != null) route.add(firstStops[i]);
+            routes.put(agents.get(i).getID(), route);
+        }
+    }
+
+    /**
+     * Updates the routes to the current pokemons (after a catch): the pokemons that are gone are removed from the routes,
+     * and the new pokemons are inserted to the routes.
+     * Returns false if an agent has no route left (a new plan is needed).
+     */
+    public boolean update(List<CL_Agent> agents, List<CL_Pokemon> pokemons, long deadlineNanos) {
+        if (!removeGoneStops(agents, pokemons)) return false;
+        insertPokemons(agents, pokemons, deadlineNanos);
+        improveRoutes(agents, deadlineNanos);
+        return true;
+    }
+
+    /**
+     * Removes the pokemons that are not in the given pokemons from the routes (the routes keep the current pokemon
+     * objects), returns false if an agent has no route left.
+     */
+    boolean removeGoneStops(List<CL_Agent> agents, List<CL_Pokemon> pokemons) {
+        HashMap<String, CL_Pokemon> current = new HashMap<>();
+        for (CL_Pokemon pokemon : pokemons) {
+            current.put(pokemon.getKey(), pokemon);
+        }
+        for (CL_Agent agent : agents) {
+            List<CL_Pokemon> route = routes.get(agent.getID());
+            if (route == null) return false;
+            List<CL_Pokemon> updated = new ArrayList<>(); //the same stops, as the pokemon objects of the current update
+            for (CL_Pokemon stop : route) {
+                CL_Pokemon pokemon = current.get(stop.getKey());
+                if (pokemon != null && pokemon.get_edge() != null) updated.add(pokemon);
+            }
+            if (updated.isEmpty()) return false;
+            routes.put(agent.getID(), updated);
+        }
+        return true;
+    }
+
+    /**
+     * Returns the planned route of the agent (empty if there is none).
+     */
+    public List<CL_Pokemon> getRoute(CL_Agent agent) {
+        List<CL_Pokemon> route = routes.get(agent.getID());
+        return route != null ? route : Collections.emptyList();
+    }
+
+    /**
+     * Returns the nodes that the agent goes through to catch all the pokemons of its route, from the node it plans from
+     * (not included) to the dest of the edge of the last pokemon.
+     */
+    public List<node_data> getPath(CL_Agent agent) {
+        List<node_data> path = new ArrayList<>();
+        int node = planNode(agent);
+        CL_Pokemon last = null;
+        for (CL_Pokemon stop : getRoute(agent)) {
+            edge_data edge = stop.get_edge();
+            boolean onTheWay = isOnTheWay(agent, last, stop);
+            last = stop;
+            if (onTheWay) continue; //the agent catches it on the edge that it is on anyway
+            if (node != edge.getSrc()) {
+                List<node_data> toSrc = algo.shortestPath(node, edge.getSrc());
+                if (toSrc == null || toSrc.isEmpty()) break; //the agent can't get there
+                path.addAll(toSrc.subList(1, toSrc.size()));
+            }
+            path.add(graph.getNode(edge.getDest()));
+            node = edge.getDest();
+        }
+        return path;
+    }
+
+    /**
+     * Returns the time (in milliseconds, by the TravelTimeModel) until the agent catches the last pokemon of the route,
+     * catching all the pokemons of the route in order.
+     */
+    double routeTime(CL_Agent agent, List<CL_Pokemon> route) {
+        double time = 0;
+        CL_Pokemon last = null;
+        for (CL_Pokemon stop : route) {
+            int src = stop.get_edge().getSrc();
+            if (last == null) {
+                double distance = isOnTheWay(agent, null, stop) ? 0 : distance(planNode(agent), src);
+                time += model.arrivalMillis(agent, stop, distance);
+            } else {
+                double distance = isOnTheWay(agent, last, stop) ? 0 : distance(last.get_edge().getDest(), src);
+                time += model.arrivalMillis(agent, last, stop, distance);
+            }
+            if (time == Double.POSITIVE_INFINITY) return time;
+            last = stop;
+        }
+        return time;
+    }
+
+    /**
+     * Returns true if the agent gets to the stop with no more nodes - the stop is ahead of the agent on its edge (for the
+     * first stop, last == null) or ahead of the last stop on its edge.
+     */
+    private boolean isOnTheWay(CL_Agent agent, CL_Pokemon last, CL_Pokemon stop) {
+        if (last == null) return model.millisOnEdge(agent, stop) != Double.POSITIVE_INFINITY;
+        return TravelTimeModel.isAheadOnEdge(last, stop);
+    }
+
+    private double distance(int src, int dest) {
+        return src == dest ? 0 : algo.shortestPathDist(src, dest);
+    }
+
+    /**
+     * Adds the pokemons that are in no route to the routes, one insertion at a time - the insertion with the most value
+     * per added second - until no insertion is worth it (see MIN_INSERTION_RATE) or the time is up.
+     * Returns true if a pokemon was inserted.
+     */
+    boolean insertPokemons(List<CL_Agent> agents, List<CL_Pokemon> pokemons, long deadlineNanos) {
+        HashSet<CL_Pokemon> routed = new HashSet<>();
+        for (List<CL_Pokemon> route : routes.values()) {
+            routed.addAll(route);
+        }
+        List<CL_Pokemon> free = new ArrayList<>();
+        for (CL_Pokemon pokemon : pokemons) {
+            if (!routed.contains(pokemon) && pokemon.get_edge() != null) free.add(pokemon);
+        }
+
+        boolean inserted = false;
+        while (!free.isEmpty() && hasTime(deadlineNanos)) {
+            double bestRate = 0;
+            List<CL_Pokemon> bestRoute = null;
+            int bestPosition = -1;
+            CL_Pokemon bestPokemon = null;
+            for (CL_Agent agent : agents) {
+                List<CL_Pokemon> route = routes.get(agent.getID());
+                double time = Math.max(routeTime(agent, route), MIN_TIME);
+                double minRate = route.isEmpty() ? 0 : MIN_INSERTION_RATE * routeValue(route) / time;
+                for (CL_Pokemon pokemon : free) {
+                    for (int position = 0; position <= route.size(); position++) {
+                        route.add(position, pokemon);
+                        double addedTime = Math.max(routeTime(agent, route) - time, MIN_TIME);
+                        route.remove(position);
+                        double rate = pokemon.getValue() / addedTime; //the value per second of this insertion
+                        if (rate >= minRate && rate > bestRate) {
+                            bestRate = rate;
+                            bestRoute = route;
+                            bestPosition = position;
+                            bestPokemon = pokemon;
+                        }
+                    }
+                }
+            }
+            if (bestRoute == null) break; //no insertion is worth it
+            bestRoute.add(bestPosition, bestPokemon);
+            free.remove(bestPokemon);
+            inserted = true;
+        }
+        return inserted;
+    }
+
+    /**
+     * Shortens every route by 2-opt: reverses a part of the route whenever that makes the route faster, until no
+     * reverse makes it faster or the time is up.
+     * Returns true if a route was changed.
+     */
+    boolean improveRoutes(List<CL_Agent> agents, long deadlineNanos) {
+        boolean changed = false;
+        for (CL_Agent agent : agents) {
+            List<CL_Pokemon> route = routes.get(agent.getID());
+            double time = routeTime(agent, route);
+            boolean improved = true;
+            while (improved && hasTime(deadlineNanos)) {
+                improved = false;
+                for (int i = 0; i < route.size() - 1; i++) {
+                    for (int j = i + 1; j < route.size(); j++) {
+                        Collections.reverse(route.subList(i, j + 1));
+                        double newTime = routeTime(agent, route);
+                        if (newTime < time) {
+                            time = newTime;
+                            improved = true;
+                            changed = true;
+                        } else {
+                            Collections.reverse(route.subList(i, j + 1)); //undo
+                        }
+                    }
+                }
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Returns true if the deadline did not pass and the planning thread was not interrupted.
+     */
+    static boolean hasTime(long deadlineNanos) {
+        return System.nanoTime() < deadlineNanos && !Thread.currentThread().isInterrupted();
+    }
+
+    private static double routeValue(List<CL_Pokemon> route) {
+        double value = 0;
+        for (CL_Pokemon pokemon : route) {
+            value += pokemon.getValue();
+        }
+        return value;
+    }
+
+    /**
+     * Returns the node that the agent plans from - the dest of its edge if it is moving, otherwise its node.
+     */
+    private static int planNode(CL_Agent agent) {
+        return agent.get_curr_edge() != null ? agent.get_curr_edge().getDest() : agent.getSrcNode();
+    }
+}
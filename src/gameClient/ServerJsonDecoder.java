@@ -0,0 +1,264 @@
+package gameClient;
+
+import api.NumberParser;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class decodes the agents and pokemons json of the game server:
+ * {"Agents":[{"Agent":{"id":0,"value":0.0,"src":0,"dest":-1,"speed":1.0,"pos":"35.18,32.10,0.0"}},...]}
+ * {"Pokemons":[{"Pokemon":{"value":5.0,"type":-1,"pos":"35.19,32.10,0.0"}},...]}
+ * It scans the json string once, with no json tree and no substrings, and writes the values into records that are
+ * reused between calls (the records of the last decode are overwritten by the next one, a field that is missing in
+ * the json is 0 - it is not left from an earlier decode).
+ * Note: a decoder is not thread safe - every game should use its own decoder.
+ */
+public class ServerJsonDecoder {
+
+    /**
+     * This class represents the fields of one agent in the agents json.
+     */
+    public static class AgentRecord {
+        public int id;
+        public double value;
+        public int src;
+        public int dest;
+        public double speed;
+        public double x, y, z;
+
+        private void clear() {
+            id = src = dest = 0;
+            value = speed = x = y = z = 0;
+        }
+    }
+
+    /**
+     * This class represents the fields of one pokemon in the pokemons json.
+     */
+    public static class PokemonRecord {
+        public double value;
+        public int type;
+        public double x, y, z;
+
+        private void clear() {
+            type = 0;
+            value = x = y = z = 0;
+        }
+    }
+
+    private final List<AgentRecord> agents = new ArrayList<>();
+    private final List<PokemonRecord> pokemons = new ArrayList<>();
+    private int numOfAgents;
+    private int numOfPokemons;
+    private final double[] position = new double[3];
+
+    private String json;
+    private int at; //the position of the scanner in the json
+
+    /**
+     * Decodes an agents json, returns the number of agents. the agents are read with getAgent(i).
+     */
+    public int decodeAgents(String json) {
+        start(json);
+        numOfAgents = 0;
+        readArrayOfWrapped("Agents", "Agent", true);
+        return numOfAgents;
+    }
+
+    /**
+     * Decodes a pokemons json, returns the number of pokemons. the pokemons are read with getPokemon(i).
+     */
+    public int decodePokemons(String json) {
+        start(json);
+        numOfPokemons = 0;
+        readArrayOfWrapped("Pokemons", "Pokemon", false);
+        return numOfPokemons;
+    }
+
+    public AgentRecord getAgent(int i) {
+        return agents.get(i);
+    }
+
+    public PokemonRecord getPokemon(int i) {
+        return pokemons.get(i);
+    }
+
+    // ------------------------------------------------ scanner ------------------------------------------------
+
+    private void start(String json) {
+        this.json = json;
+        this.at = 0;
+    }
+
+    /**
+     * Reads {"arrayName":[{"wrapperName":{...}},...]} and decodes every inner object as an agent or a pokemon.
+     */
+    private void readArrayOfWrapped(String arrayName, String wrapperName, boolean isAgent) {
+        expect('{');
+        while (!tryRead('}')) {
+            int nameStart = readStringStart();
+            int nameEnd = skipStringRest();
+            expect(':');
+            if (!nameIs(nameStart, nameEnd, arrayName)) {
+                skipValue();
+            } else {
+                expect('[');
+                while (!tryRead(']')) {
+                    expect('{');
+                    while (!tryRead('}')) {
+                        int wrapperStart = readStringStart();
+                        int wrapperEnd = skipStringRest();
+                        expect(':');
+                        if (!nameIs(wrapperStart, wrapperEnd, wrapperName)) skipValue();
+                        else if (isAgent) readAgent(nextAgent());
+                        else readPokemon(nextPokemon());
+                        tryRead(',');
+                    }
+                    tryRead(',');
+                }
+            }
+            tryRead(',');
+        }
+    }
+
+    private AgentRecord nextAgent() {
+        if (numOfAgents == agents.size()) agents.add(new AgentRecord());
+        AgentRecord agent = agents.get(numOfAgents++);
+        agent.clear();
+        return agent;
+    }
+
+    private PokemonRecord nextPokemon() {
+        if (numOfPokemons == pokemons.size()) pokemons.add(new PokemonRecord());
+        PokemonRecord pokemon = pokemons.get(numOfPokemons++);
+        pokemon.clear();
+        return pokemon;
+    }
+
+    private void readAgent(AgentRecord agent) {
+        expect('{');
+        while (!tryRead('}')) {
+            int nameStart = readStringStart();
+            int nameEnd = skipStringRest();
+            expect(':');
+            if (nameIs(nameStart, nameEnd, "id")) agent.id = (int) readNumber();
+            else if (nameIs(nameStart, nameEnd, "value")) agent.value = readNumber();
+            else if (nameIs(nameStart, nameEnd, "src")) agent.src = (int) readNumber();
+            else if (nameIs(nameStart, nameEnd, "dest")) agent.dest = (int) readNumber();
+            else if (nameIs(nameStart, nameEnd, "speed")) agent.speed = readNumber();
+            else if (nameIs(nameStart, nameEnd, "pos")) {
+                readPosition();
+                agent.x = position[0];
+                agent.y = position[1];
+                agent.z = position[2];
+            } else skipValue();
+            tryRead(',');
+        }
+    }
+
+    private void readPokemon(PokemonRecord pokemon) {
+        expect('{');
+        while (!tryRead('}')) {
+            int nameStart = readStringStart();
+            int nameEnd = skipStringRest();
+            expect(':');
+            if (nameIs(nameStart, nameEnd, "value")) pokemon.value = readNumber();
+            else if (nameIs(nameStart, nameEnd, "type")) pokemon.type = (int) readNumber();
+            else if (nameIs(nameStart, nameEnd, "pos")) {
+                readPosition();
+                pokemon.x = position[0];
+                pokemon.y = position[1];
+                pokemon.z = position[2];
+            } else skipValue();
+            tryRead(',');
+        }
+    }
+
+    private void readPosition() {
+        int start = readStringStart();
+        int end = skipStringRest();
+        NumberParser.parsePosition(json, start, end, position, 0);
+    }
+
+    private double readNumber() {
+        skipWhitespace();
+        int start = at;
+        while (at < json.length() && "+-.0123456789eE".indexOf(json.charAt(at)) != -1) at++;
+        if (start == at) throw error("a number");
+        return NumberParser.parseDouble(json, start, at);
+    }
+
+    /**
+     * Reads the opening quote of a string, returns the position of its first char.
+     */
+    private int readStringStart() {
+        expect('"');
+        return at;
+    }
+
+    /**
+     * Skips to the closing quote of a string (the opening quote was read), returns the position of the closing quote.
+     */
+    private int skipStringRest() {
+        while (at < json.length() && json.charAt(at) != '"') {
+            if (json.charAt(at) == '\\') at++; //skip the escaped char
+            at++;
+        }
+        if (at >= json.length()) throw error("'\"'");
+        return at++;
+    }
+
+    private boolean nameIs(int start, int end, String name) {
+        return end - start == name.length() && json.regionMatches(start, name, 0, name.length());
+    }
+
+    /**
+     * Skips one json value of any kind (object, array, string, number, true, false, null).
+     */
+    private void skipValue() {
+        skipWhitespace();
+        if (at >= json.length()) throw error("a value");
+        char c = json.charAt(at);
+        if (c == '"') {
+            at++;
+            skipStringRest();
+        } else if (c == '{' || c == '[') {
+            int depth = 0;
+            do {
+                c = json.charAt(at);
+                if (c == '"') {
+                    at++;
+                    skipStringRest();
+                    continue;
+                }
+                if (c == '{' || c == '[') depth++;
+                else if (c == '}' || c == ']') depth--;
+                at++;
+            } while (depth > 0 && at < json.length());
+        } else {
+            while (at < json.length() && ",}] \t\r\n".indexOf(json.charAt(at)) == -1) at++;
+        }
+    }
+
+    private void skipWhitespace() {
+        while (at < json.length() && Character.isWhitespace(json.charAt(at))) at++;
+    }
+
+    private void expect(char c) {
+        if (!tryRead(c)) throw error("'" + c + "'");
+    }
+
+    private boolean tryRead(char c) {
+        skipWhitespace();
+        if (at < json.length() && json.charAt(at) == c) {
+            at++;
+            return true;
+        }
+        return false;
+    }
+
+    private IllegalArgumentException error(String expected) {
+        return new IllegalArgumentException("bad server json: expected " + expected + " at " + at);
+    }
+}
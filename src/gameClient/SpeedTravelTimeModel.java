@@ -0,0 +1,39 @@
+package gameClient;
+
+import api.directed_weighted_graph;
+import api.edge_data;
+import api.geo_location;
+
+/**
+ * This class represents the travel time model of the game server: an agent goes over an edge at a constant speed -
+ * (edge weight / agent speed) seconds for the whole edge, and its progress on the edge is its position between the
+ * src and the dest of the edge.
+ */
+public class SpeedTravelTimeModel implements TravelTimeModel {
+
+    private final directed_weighted_graph graph;
+
+    public SpeedTravelTimeModel(directed_weighted_graph graph) {
+        this.graph = graph;
+    }
+
+    @Override
+    public double progress(CL_Agent agent) {
+        edge_data edge = agent.get_curr_edge();
+        if (edge == null) return 0;
+        geo_location src = graph.getNode(edge.getSrc()).getLocation();
+        geo_location dest = graph.getNode(edge.getDest()).getLocation();
+        double length = src.distance(dest);
+        if (length == 0) return 0;
+        return Math.max(0, Math.min(1, 1 - agent.getLocation().distance(dest) / length));
+    }
+
+    /**
+     * An agent with no speed yet (before the game started) is taken as speed 1, the speed of all the new agents.
+     */
+    @Override
+    public double millis(CL_Agent agent, double weight) {
+        double speed = agent.getSpeed() > 0 ? agent.getSpeed() : 1;
+        return 1000 * weight / speed;
+    }
+}
@@ -0,0 +1,81 @@
+package gameClient;
+
+import api.edge_data;
+
+/**
+ * This interface represents the model of how long it takes an agent to get somewhere, in milliseconds.
+ * A model gives two things - where the agent is on its edge (progress), and how long the agent takes to go a given
+ * weight (millis) - and the arrival times are built from them: the rest of the agent edge, the shortest path distance
+ * (from the caller, who knows the graph paths) and the part of the pokemon edge up to the pokemon (get_edge_ratio).
+ * All the planners and the move scheduling use one model, so they agree on when the agents get to the pokemons.
+ */
+public interface TravelTimeModel {
+
+    /**
+     * Returns the part [0,1] of its edge that the agent already passed, 0 if the agent is not moving.
+     */
+    double progress(CL_Agent agent);
+
+    /**
+     * Returns the time (in milliseconds) that the agent takes to go the given weight.
+     */
+    double millis(CL_Agent agent, double weight);
+
+    /**
+     * Returns the time until the agent gets to the dest of its edge, 0 if the agent is not moving.
+     */
+    default double millisToNode(CL_Agent agent) {
+        edge_data edge = agent.get_curr_edge();
+        if (edge == null) return 0;
+        return millis(agent, edge.getWeight() * (1 - progress(agent)));
+    }
+
+    /**
+     * Returns the time until the agent gets to the pokemon, if the pokemon is ahead of the agent on the edge that the
+     * agent is moving on - otherwise Infinity.
+     */
+    default double millisOnEdge(CL_Agent agent, CL_Pokemon pokemon) {
+        edge_data edge = agent.get_curr_edge();
+        edge_data pokemonEdge = pokemon.get_edge();
+        if (edge == null || pokemonEdge == null || edge.getSrc() != pokemonEdge.getSrc() || edge.getDest() != pokemonEdge.getDest())
+            return Double.POSITIVE_INFINITY;
+        double progress = progress(agent);
+        if (pokemon.get_edge_ratio() < progress) return Double.POSITIVE_INFINITY; //the agent already passed it
+        return millis(agent, edge.getWeight() * (pokemon.get_edge_ratio() - progress));
+    }
+
+    /**
+     * Returns the time until the agent gets to the pokemon.
+     * @param distanceToSrc - the shortest path distance from the node the agent plans from (the dest of its edge, or
+     *                      its node if it is not moving) to the src of the pokemon edge, negative or Infinity if there
+     *                      is no path.
+     */
+    default double arrivalMillis(CL_Agent agent, CL_Pokemon pokemon, double distanceToSrc) {
+        double onEdge = millisOnEdge(agent, pokemon);
+        if (onEdge != Double.POSITIVE_INFINITY) return onEdge;
+        if (distanceToSrc < 0 || Double.isInfinite(distanceToSrc)) return Double.POSITIVE_INFINITY;
+        return millisToNode(agent) + millis(agent, distanceToSrc + pokemon.get_edge().getWeight() * pokemon.get_edge_ratio());
+    }
+
+    /**
+     * Returns the time that the agent takes from one pokemon to the next one.
+     * @param distance - the shortest path distance from the dest of the edge of from to the src of the edge of to
+     *                 (ignored if to is ahead of from on the same edge).
+     */
+    default double arrivalMillis(CL_Agent agent, CL_Pokemon from, CL_Pokemon to, double distance) {
+        edge_data fromEdge = from.get_edge(), toEdge = to.get_edge();
+        if (isAheadOnEdge(from, to))
+            return millis(agent, fromEdge.getWeight() * (to.get_edge_ratio() - from.get_edge_ratio()));
+        if (distance < 0 || Double.isInfinite(distance)) return Double.POSITIVE_INFINITY;
+        return millis(agent, fromEdge.getWeight() * (1 - from.get_edge_ratio()) + distance + toEdge.getWeight() * to.get_edge_ratio());
+    }
+
+    /**
+     * Returns true if to is on the same edge as from, after it (an agent catches both on one pass over the edge).
+     */
+    static boolean isAheadOnEdge(CL_Pokemon from, CL_Pokemon to) {
+        edge_data fromEdge = from.get_edge(), toEdge = to.get_edge();
+        return fromEdge.getSrc() == toEdge.getSrc() && fromEdge.getDest() == toEdge.getDest()
+                && to.get_edge_ratio() >= from.get_edge_ratio();
+    }
+}
@@ -0,0 +1,101 @@
+package gameClient;
+
+import api.directed_weighted_graph;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * This class keeps the state of the game world between server updates.
+ * The agents are long lived CL_Agent objects (by id) that only get the changed fields from every server json,
+ * and instead of comparing the whole world every tick, the changes are reported to a listener as events:
+ * a pokemon was caught, an agent arrived at a node, a new pokemon appeared.
+ */
+public class WorldState {
+
+    /**
+     * This interface represents a listener for the changes in the game world.
+     */
+    public interface Listener {
+        /**
+         * The agent caught a pokemon - its value grew by the given amount.
+         */
+        default void onPokemonCaught(CL_Agent agent, double value) {}
+
+        /**
+         * The agent is standing on a node and waits for its next edge (also called once for every new agent).
+         */
+        default void onAgentArrived(CL_Agent agent, int node) {}
+
+        /**
+         * A pokemon that was not in the last pokemons update.
+         */
+        default void onNewPokemon(CL_Pokemon pokemon) {}
+    }
+
+    private final directed_weighted_graph graph;
+    private final Listener listener;
+    private final HashMap<Integer, CL_Agent> agentsById = new HashMap<>();
+    private final List<CL_Agent> agents = new ArrayList<>(); //the same list for the whole game, in the server order
+    private final ServerJsonDecoder decoder = new ServerJsonDecoder();
+    private HashSet<String> pokemonKeys = new HashSet<>(); //"type@position" of the pokemons in the last update
+
+    public WorldState(directed_weighted_graph graph, Listener listener) {
+        this.graph = graph;
+        this.listener = listener;
+    }
+
+    /**
+     * Applies an agents json of the server ({"Agents":[{"Agent":{...}},...]}) to the agents and reports the changes.
+     */
+    public void updateAgents(String json) {
+        try {
+            int count = decoder.decodeAgents(json);
+            for (int i = 0; i < count; i++) {
+                ServerJsonDecoder.AgentRecord record = decoder.getAgent(i);
+                CL_Agent agent = agentsById.get(record.id);
+                boolean isNew = agent == null;
+                if (isNew) {
+                    agent = new CL_Agent(graph, record.src);
+                    agentsById.put(record.id, agent);
+                    agents.add(agent);
+                }
+
+                double oldValue = agent.getValue();
+                boolean wasMoving = agent.isMoving();
+                int oldNode = agent.getSrcNode();
+                agent.update(record);
+
+                if (agent.getValue() > oldValue)
+                    listener.onPokemonCaught(agent, agent.getValue() - oldValue);
+                if (!agent.isMoving() && (isNew || wasMoving || oldNode != agent.getSrcNode()))
+                    listener.onAgentArrived(agent, agent.getSrcNode());
+            }
+        } catch (IllegalArgumentException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Compares the given pokemons to the last update and reports the new ones.
+     */
+    public void updatePokemons(List<CL_Pokemon> pokemons) {
+        HashSet<String> currentKeys = new HashSet<>();
+        for (CL_Pokemon pokemon : pokemons) {
+            String key = pokemon.getKey();
+            currentKeys.add(key);
+            if (!pokemonKeys.contains(key))
+                listener.onNewPokemon(pokemon);
+        }
+        pokemonKeys = currentKeys;
+    }
+
+    /**
+     * Returns the agents - the same list (and the same agent objects) for the whole game.
+     */
+    public List<CL_Agent> getAgents() {
+        return this.agents;
+    }
+}
@@ -118,6 +118,278 @@ class DWGraph_AlgoTest {
         assertEquals(list, null);
     }
 
+    @Test
+    void precomputeAllPairs() {
+
+        directed_weighted_graph g = createSmallGraphWithSomeConnections();
+        g.connect(0, 5, 2.6);
+        DWGraph_Algo ga = new DWGraph_Algo();
+        ga.init(g);
+
+        assertEquals(ga.precomputeAllPairs(), true);
+        assertEquals(ga.shortestPathDist(2, 5), 6.1, epsilon);
+        assertEquals(ga.shortestPathDist(5, 2), -1, epsilon);
+        List<node_data> list = ga.shortestPath(2, 5);
+        assertEquals(list.size(), 4);
+        assertEquals(list.get(1).getKey(), 4);
+        assertEquals(list.get(3).getWeight(), 6.1, epsilon);
+        assertEquals(ga.shortestPath(5, 2), null);
+
+        g.removeEdge(4, 0); //the table is no longer valid, the answer comes from a new search
+        assertEquals(ga.shortestPathDist(2, 5), -1, epsilon);
+    }
+
+    @Test
+    void shortestPathsFrom() {
+
+        directed_weighted_graph g = createSmallGraphWithSomeConnections();
+        g.connect(0, 5, 2.6);
+        DWGraph_Algo ga = new DWGraph_Algo();
+        ga.init(g);
+
+        Map<Integer, DWGraph_PathTree> trees = ga.shortestPathsFrom(new int[]{2, 5, 2, 7});
+        assertEquals(trees.size(), 2); //2 is a duplicate and 7 is not in the graph
+
+        DWGraph_PathTree fromTwo = trees.get(2);
+        assertEquals(fromTwo.shortestPathDist(5), 6.1, epsilon);
+        assertEquals(fromTwo.shortestPathDist(2), 0, epsilon);
+        List<node_data> list = fromTwo.shortestPath(5);
+        assertEquals(list.size(), 4);
+        assertEquals(list.get(2).getKey(), 0);
+
+        assertEquals(trees.get(5).shortestPathDist(2), -1, epsilon);
+        assertEquals(trees.get(5).shortestPath(2), null);
+    }
+
+    @Test
+    void shortestPathsFromInterrupted() {
+
+        directed_weighted_graph g = createSmallGraphWithSomeConnections();
+        DWGraph_Algo ga = new DWGraph_Algo();
+        ga.init(g);
+        Map<Integer, DWGraph_PathTree> cached = ga.shortestPathsFrom(new int[]{2});
+
+        Thread.currentThread().interrupt(); //like a cancelled planning request
+        Map<Integer, DWGraph_PathTree> trees = ga.shortestPathsFrom(new int[]{2, 0, 1, 3, 4, 5});
+        assertTrue(Thread.interrupted()); //the flag is kept (and cleared here for the next tests)
+        assertSame(trees.get(2), cached.get(2)); //the cached tree needs no search
+        for (DWGraph_PathTree tree : trees.values()) assertTrue(tree.isUpToDate());
+
+        trees = ga.shortestPathsFrom(new int[]{0, 1}); //not interrupted - all the trees
+        assertEquals(trees.size(), 2);
+    }
+
+    @Test
+    void pathTreeCache() {
+
+        directed_weighted_graph g = createSmallGraphWithSomeConnections();
+        g.connect(0, 5, 2.6);
+        DWGraph_Algo ga = new DWGraph_Algo();
+        ga.init(g);
+
+        assertEquals(ga.shortestPathDist(2, 5), 6.1, epsilon); //first miss - a search up to 5
+        assertEquals(ga.shortestPath(2, 5).size(), 4); //second miss - the full tree from 2 is kept
+        assertEquals(ga.shortestPathDist(2, 3), 6, epsilon);
+        assertEquals(ga.getPathTreeCacheMisses(), 2);
+        assertEquals(ga.getPathTreeCacheHits(), 1);
+
+        ga.shortestPathsFrom(new int[]{2, 0}); //the batch keeps its new trees at once
+        assertEquals(ga.getPathTreeCacheMisses(), 3);
+        assertEquals(ga.shortestPathDist(0, 5), 2.6, epsilon);
+        assertEquals(ga.getPathTreeCacheHits(), 3);
+
+        g.removeEdge(4, 0); //the graph changed (by MC) - all the trees are out of date
+        assertEquals(ga.shortestPathDist(2, 5), -1, epsilon);
+        assertEquals(ga.shortestPath(2, 5), null);
+        assertEquals(ga.getPathTreeCacheMisses(), 5);
+        assertEquals(ga.shortestPathDist(2, 4), 1.5, epsilon);
+        assertEquals(ga.getPathTreeCacheHits(), 4);
+
+        ga.setPathTreeCacheCapacity(1); //the least recently used tree goes first
+        ga.shortestPathsFrom(new int[]{0});
+        assertEquals(ga.shortestPathDist(0, 2), 4.5, epsilon);
+        assertEquals(ga.shortestPathDist(2, 4), 1.5, epsilon); //2 was removed
+        assertEquals(ga.getPathTreeCacheHits(), 5);
+        assertEquals(ga.getPathTreeCacheMisses(), 7);
+        assertEquals(ga.shortestPathDist(7, 0), -1, epsilon); //not in the graph
+        assertEquals(ga.shortestPath(7, 0), null);
+
+        ga.setPathTreeCacheCapacity(0); //no cache - a search up to dest for every query
+        long hits = ga.getPathTreeCacheHits(), misses = ga.getPathTreeCacheMisses();
+        assertEquals(ga.shortestPathDist(0, 2), 4.5, epsilon);
+        assertEquals(ga.getPathTreeCacheHits() + ga.getPathTreeCacheMisses(), hits + misses);
+        assertThrows(IllegalArgumentException.class, () -> ga.setPathTreeCacheCapacity(-1));
+    }
+
+    //Creates a size x size grid (both ways), every edge weighs its length
+    DWGraph_DS createGrid(int size) {
+        DWGraph_DS g = new DWGraph_DS();
+        for (int i = 0; i < size * size; i++) {
+            NodeData node = new NodeData(i);
+            node.setLocation(new Location(i % size, i / size, 0));
+            g.addNode(node);
+        }
+        for (int i = 0; i < size * size; i++) {
+            if (i % size + 1 < size) {
+                g.connect(i, i + 1, 1);
+                g.connect(i + 1, i, 1);
+            }
+            if (i + size < size * size) {
+                g.connect(i, i + size, 1);
+                g.connect(i + size, i, 1);
+            }
+        }
+        return g;
+    }
+
+    @Test
+    void searchModes() {
+
+        directed_weighted_graph g = createSmallGraphWithSomeConnections();
+        g.connect(0, 5, 2.6);
+        DWGraph_Algo ga = new DWGraph_Algo();
+        ga.init(g);
+        ga.setPathTreeCacheCapacity(0);
+        for (DWGraph_Algo.SearchMode mode : DWGraph_Algo.SearchMode.values()) {
+            ga.setSearchMode(mode);
+            assertEquals(ga.shortestPathDist(2, 5), 6.1, epsilon);
+            assertEquals(ga.shortestPathDist(5, 2), -1, epsilon);
+            assertEquals(ga.shortestPathDist(2, 7), -1, epsilon); //not in the graph
+            List<node_data> list = ga.shortestPath(2, 5);
+            assertEquals(list.size(), 4);
+            assertEquals(list.get(1).getKey(), 4);
+            assertEquals(list.get(2).getWeight(), 3.5, epsilon);
+            assertEquals(list.get(3).getTag(), 0);
+            assertEquals(ga.shortestPath(3, 3).size(), 1);
+            assertEquals(ga.shortestPath(5, 2), null);
+        }
+
+        //on a grid the point to point searches stop long before a dijkstra that grows a circle around src
+        DWGraph_DS grid = createGrid(30);
+        ga.init(grid);
+        long[] settled = new long[DWGraph_Algo.SearchMode.values().length];
+        for (DWGraph_Algo.SearchMode mode : DWGraph_Algo.SearchMode.values()) {
+            ga.setSearchMode(mode);
+            long before = ga.getSearchSettledNodes();
+            assertEquals(ga.shortestPathDist(0, 899), 58, epsilon);
+            assertEquals(ga.shortestPathDist(435, 440), 5, epsilon);
+            assertEquals(ga.shortestPath(899, 0).size(), 59);
+            settled[mode.ordinal()] = ga.getSearchSettledNodes() - before;
+        }
+        assertTrue(settled[DWGraph_Algo.SearchMode.A_STAR.ordinal()] < settled[DWGraph_Algo.SearchMode.DIJKSTRA.ordinal()]);
+        assertTrue(settled[DWGraph_Algo.SearchMode.BIDIRECTIONAL.ordinal()] < settled[DWGraph_Algo.SearchMode.DIJKSTRA.ordinal()]);
+        assertTrue(settled[DWGraph_Algo.SearchMode.ALT.ordinal()] < settled[DWGraph_Algo.SearchMode.DIJKSTRA.ordinal()]);
+    }
+
+    @Test
+    void landmarks() throws java.io.IOException {
+
+        DWGraph_DS g = createGrid(10);
+        DWGraph_Algo ga = new DWGraph_Algo();
+        ga.init(g);
+        ga.setPathTreeCacheCapacity(0);
+        ga.setSearchMode(DWGraph_Algo.SearchMode.ALT);
+        assertFalse(ga.hasLandmarks());
+        ga.precomputeLandmarks(4);
+        assertEquals(ga.getLandmarks().length, 4);
+        assertEquals(ga.getLandmarks()[0], 99); //the farthest node from node 0
+        assertEquals(ga.shortestPathDist(0, 99), 18, epsilon);
+        assertEquals(ga.shortestPath(23, 76).size(), 9);
+
+        java.io.File file = java.io.File.createTempFile("landmarks", ".bin");
+        file.deleteOnExit();
+        assertTrue(ga.saveLandmarks(file.getPath()));
+        DWGraph_Algo loaded = new DWGraph_Algo();
+        loaded.init(createGrid(10)); //the same graph
+        assertTrue(loaded.loadLandmarks(file.getPath()));
+        assertArrayEquals(loaded.getLandmarks(), ga.getLandmarks());
+        loaded.init(createGrid(9));
+        assertFalse(loaded.loadLandmarks(file.getPath())); //made for another graph
+
+        g.removeEdge(0, 1); //the landmarks are no longer valid
+        assertFalse(ga.hasLandmarks());
+        assertFalse(ga.saveLandmarks(file.getPath()));
+        assertEquals(ga.shortestPathDist(0, 1), 3, epsilon); //new landmarks for the new graph
+        assertTrue(ga.hasLandmarks());
+        assertEquals(ga.getLandmarks().length, DWGraph_Algo.DEFAULT_LANDMARKS);
+        assertThrows(IllegalArgumentException.class, () -> ga.precomputeLandmarks(0));
+    }
+
+    @Test
+    void contractionHierarchy() {
+
+        directed_weighted_graph g = createSmallGraphWithSomeConnections();
+        DWGraph_Algo ga = new DWGraph_Algo();
+        ga.init(g);
+        ga.setPathTreeCacheCapacity(0);
+        assertFalse(ga.hasContractionHierarchy());
+        ga.precomputeContractionHierarchy();
+        assertTrue(ga.hasContractionHierarchy());
+        assertEquals(ga.shortestPathDist(2, 3), 6, epsilon);
+        assertEquals(ga.shortestPathDist(0, 2), 4.5, epsilon);
+        assertEquals(ga.shortestPathDist(2, 5), -1, epsilon);
+        assertEquals(ga.shortestPath(2, 5), null);
+        assertEquals(ga.shortestPathDist(7, 0), -1, epsilon); //not in the graph
+        List<node_data> path = ga.shortestPath(2, 3);
+        assertEquals(path.get(0).getKey(), 2);
+        assertEquals(path.get(path.size() - 1).getKey(), 3);
+        assertEquals(path.get(path.size() - 1).getWeight(), 6, epsilon);
+
+        DWGraph_DS grid = createGrid(30);
+        ga.init(grid);
+        assertFalse(ga.hasContractionHierarchy()); //made for another graph
+        ga.precomputeContractionHierarchy();
+        long before = ga.getSearchSettledNodes();
+        assertEquals(ga.shortestPathDist(0, 899), 58, epsilon);
+        path = ga.shortestPath(899, 0);
+        assertEquals(path.size(), 59);
+        for (int i = 1; i < path.size(); i++) { //the shortcuts are unpacked back to the grid edges
+            assertNotNull(grid.getEdge(path.get(i - 1).getKey(), path.get(i).getKey()));
+            assertEquals(path.get(i).getTag(), path.get(i - 1).getKey());
+            assertEquals(path.get(i).getWeight(), i, epsilon);
+        }
+        assertTrue(ga.getSearchSettledNodes() - before < 2 * 900);
+
+        grid.removeEdge(0, 1); //the hierarchy is no longer valid
+        assertFalse(ga.hasContractionHierarchy());
+        assertEquals(ga.shortestPathDist(0, 1), 3, epsilon);
+        assertThrows(IllegalArgumentException.class, () -> DWGraph_ContractionHierarchy.build(null));
+    }
+
+    @Test
+    void contractionHierarchyOnJsonGraphs() {
+
+        java.io.File[] files = new java.io.File("src/api/json_files").listFiles((dir, name) -> name.endsWith(".json"));
+        assertNotNull(files);
+        Random random = new Random(1);
+        for (java.io.File file : files) {
+            DWGraph_Algo dijkstra = new DWGraph_Algo();
+            assertTrue(dijkstra.load(file.getPath()));
+            dijkstra.setPathTreeCacheCapacity(0);
+            directed_weighted_graph g = dijkstra.getGraph();
+            DWGraph_ContractionHierarchy ch = DWGraph_ContractionHierarchy.build(g);
+            int[] keys = g.getV().stream().mapToInt(node_data::getKey).toArray();
+            for (int q = 0; q < 200; q++) {
+                int src = keys[random.nextInt(keys.length)], dest = keys[random.nextInt(keys.length)];
+                double expected = dijkstra.shortestPathDist(src, dest);
+                assertEquals(ch.shortestPathDist(src, dest), expected, epsilon);
+                List<node_data> path = ch.shortestPath(src, dest);
+                if (expected == -1) {
+                    assertNull(path);
+                    continue;
+                }
+                assertEquals(path.get(0).getKey(), src);
+                assertEquals(path.get(path.size() - 1).getKey(), dest);
+                assertEquals(path.get(path.size() - 1).getWeight(), expected, epsilon);
+                for (int i = 1; i < path.size(); i++) {
+                    edge_data edge = g.getEdge(path.get(i - 1).getKey(), path.get(i).getKey());
+                    assertNotNull(edge);
+                    assertEquals(path.get(i).getWeight(), path.get(i - 1).getWeight() + edge.getWeight(), epsilon);
+                }
+            }
+        }
+    }
+
     @Test
     void save_and_load() {
         directed_weighted_graph g = createSmallGraphWithSomeConnections();
@@ -137,6 +409,60 @@ class DWGraph_AlgoTest {
         assertEquals(ga.getGraph().getEdge(0, 3).getWeight(), 2.5, epsilon);
     }
 
+    @Test
+    void loadJson() {
+        DWGraph_Algo ga = new DWGraph_Algo();
+        String json = "{\"Edges\":[{\"src\":0,\"w\":1.5,\"dest\":1},{\"src\":1,\"w\":2.5,\"dest\":0}],"
+                + "\"Nodes\":[{\"pos\":\"35.1,32.2,0.0\",\"id\":0},{\"pos\":\"35.3,32.4,0.0\",\"id\":1}]}";
+
+        assertEquals(ga.loadJson(json), true);
+        assertEquals(ga.getGraph().nodeSize(), 2);
+        assertEquals(ga.getGraph().getEdge(1, 0).getWeight(), 2.5, epsilon);
+        assertEquals(ga.getGraph().getNode(1).getLocation().x(), 35.3, epsilon);
+
+        directed_weighted_graph loaded = ga.getGraph();
+        assertEquals(ga.loadJson("{\"Nodes\":[{\"id\":"), false); //a broken json does not change the graph
+        assertEquals(ga.getGraph(), loaded);
+    }
+
+    @Test
+    void saveBinary_and_loadBinary() throws java.io.IOException {
+        directed_weighted_graph g = createSmallGraphWithSomeConnections();
+        g.getNode(3).setLocation(new Location(1.5, 2.5, 3.5));
+        DWGraph_Algo ga = new DWGraph_Algo();
+        ga.init(g);
+
+        java.io.File file = java.io.File.createTempFile("graph", ".bin");
+        file.deleteOnExit();
+        assertEquals(ga.saveBinary(file.getPath()), true);
+        g.connect(0, 3, 3.5);
+        assertEquals(ga.getGraph().getEdge(0, 3).getWeight(), 3.5, epsilon);
+
+        assertEquals(ga.loadBinary(file.getPath()), true);
+        assertTrue(ga.getGraph() instanceof DWGraph_CSR); //the graph is read from the mapped file, not copied
+        assertEquals(ga.getGraph().nodeSize(), 6);
+        assertEquals(ga.getGraph().edgeSize(), 6);
+        assertEquals(ga.getGraph().getEdge(0, 3).getWeight(), 2.5, epsilon);
+        assertNull(ga.getGraph().getEdge(3, 0));
+        assertEquals(ga.getGraph().getNode(3).getLocation().y(), 2.5, epsilon);
+        assertEquals(ga.getGraph().getNode(3).getLocation().z(), 3.5, epsilon);
+        assertEquals(ga.getGraph().getE(0).size(), 2);
+        assertEquals(ga.shortestPathDist(2, 3), 6, epsilon);
+        assertEquals(ga.shortestPath(1, 0).size(), 4);
+        assertEquals(ga.isConnected(), false);
+        assertEquals(ga.connected_component(5), Collections.singletonList(5));
+
+        DWGraph_DS mutable = ((DWGraph_CSR) ga.getGraph()).getSource(); //made only when it is asked for
+        assertEquals(((NodeData) mutable.getNode(0)).getEdgesConnectedToThisNode().size(), 1);
+        mutable.connect(5, 0, 1);
+        assertNull(ga.getGraph().getEdge(5, 0)); //a copy, the mapped graph does not change
+        assertEquals(ga.copy().edgeSize(), 7);
+
+        directed_weighted_graph loaded = ga.getGraph();
+        assertEquals(ga.loadBinary("no_such_graph.bin"), false);
+        assertEquals(ga.getGraph(), loaded);
+    }
+
     @Test
     void connected_components(){
 
@@ -155,6 +481,26 @@ class DWGraph_AlgoTest {
 
     }
 
+    @Test
+    void stronglyConnectedComponents() {
+
+        directed_weighted_graph g = createSmallGraphWithSomeConnections();
+        DWGraph_Algo ga = new DWGraph_Algo();
+        ga.init(g);
+
+        DWGraph_SCC scc = ga.stronglyConnectedComponents();
+        assertEquals(scc.getNumOfComponents(), 2);
+        assertEquals(scc.sameComponent(1, 3), true);
+        assertEquals(scc.sameComponent(0, 5), false);
+        assertEquals(scc.componentOf(7), -1);
+
+        g.connect(0, 5, 2.6);
+        g.connect(5, 0, 4.5);
+        scc = ga.stronglyConnectedComponents();
+        assertEquals(scc.getNumOfComponents(), 1);
+        assertEquals(scc.sameComponent(0, 5), true);
+    }
+
     @Test
     void connected_component() {
 
@@ -139,6 +139,18 @@ class DWGraph_DSTest {
         assertEquals(removedNode, n0);
         removedNode = g.removeNode(0);
         assertEquals(removedNode, null);
+
+        //a node with some outgoing and incoming edges
+        g.connect(1, 2, 1.0);
+        g.connect(1, 3, 1.0);
+        g.connect(1, 4, 1.0);
+        g.connect(5, 1, 1.0);
+        g.connect(2, 3, 1.0);
+        removedNode = g.removeNode(1);
+        assertEquals(removedNode, n1);
+        assertEquals(1, g.edgeSize());
+        assertNull(g.getEdge(5, 1));
+        assertEquals(0, g.getE(5).size());
     }
 
     @Test
@@ -199,6 +211,35 @@ class DWGraph_DSTest {
 
     }
 
+    @Test
+    void freeze() {
+
+        DWGraph_DS g = (DWGraph_DS) createSmallGraph();
+        g.connect(0, 1, 1.2);
+        g.connect(0, 3, 2.5);
+        g.connect(1, 2, 3.5);
+        g.connect(4, 0, 2.0);
+
+        DWGraph_CSR csr = g.freeze();
+        assertEquals(csr, g.freeze()); //no changes - same snapshot
+        assertEquals(11, csr.nodeSize());
+        assertEquals(4, csr.edgeSize());
+        assertEquals(g.getEdge(0, 3), csr.getEdge(0, 3));
+        assertEquals(null, csr.getEdge(3, 0));
+
+        int node0 = csr.indexOf(0);
+        assertEquals(2, csr.outStart(node0 + 1) - csr.outStart(node0));
+        assertEquals(1, csr.keyAt(csr.outTarget(csr.outStart(node0))));
+        assertEquals(1, csr.inStart(node0 + 1) - csr.inStart(node0));
+        assertEquals(4, csr.keyAt(csr.inSource(csr.inStart(node0))));
+        assertEquals(2.0, csr.inWeight(csr.inStart(node0)));
+
+        g.removeEdge(0, 3);
+        assertEquals(false, csr.isUpToDate());
+        assertEquals(3, g.freeze().edgeSize());
+        assertEquals(4, csr.edgeSize()); //the old snapshot does not change
+    }
+
     @AfterAll
     public static void endProgram() {
 
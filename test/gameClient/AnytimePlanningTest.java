@@ -0,0 +1,57 @@
+package gameClient;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AnytimePlanningTest {
+
+    /**
+     * A planner that gives a plan at once, and then a better plan every 5 milliseconds until it must stop.
+     */
+    private static final AnytimePlanner SLOW_PLANNER = (request, deadlineNanos, bestSoFar) -> {
+        bestSoFar.accept(new AnytimePlanner.Plan(request, null));
+        while (System.nanoTime() < deadlineNanos) {
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                return; //a newer request
+            }
+            bestSoFar.accept(new AnytimePlanner.Plan(request, null));
+        }
+    };
+
+    private static AnytimePlanner.Request request(AnytimePlanning planning) {
+        return new AnytimePlanner.Request(planning.nextRequestId(), new ArrayList<>(), new ArrayList<>(), true);
+    }
+
+    @Test
+    void onTheCallingThread() {
+        AnytimePlanning planning = new AnytimePlanning(SLOW_PLANNER, false);
+        AnytimePlanner.Request request = request(planning); //built first, so all the 200ms are left for the planner
+        planning.request(request, System.nanoTime() + 200_000_000);
+        assertFalse(planning.isPlanning());
+        assertEquals(0, planning.takeLatestPlan().getRequestId());
+        assertNull(planning.takeLatestPlan()); //taken
+        assertEquals(1, planning.getPlanningCount());
+        assertTrue(planning.getMaxPlanningNanos() >= 150_000_000); //the planner used (about) all its time
+    }
+
+    @Test
+    void inTheBackground() throws InterruptedException {
+        AnytimePlanning planning = new AnytimePlanning(SLOW_PLANNER, true);
+        long start = System.nanoTime();
+        planning.request(request(planning), start + 10_000_000_000L); //10 seconds
+        assertTrue(System.nanoTime() - start < 1_000_000_000L); //request does not wait for the planner
+        while (planning.takeLatestPlan() == null) Thread.sleep(1); //the first plan comes before the deadline
+
+        planning.request(request(planning), System.nanoTime() + 50_000_000); //interrupts the first request
+        while (planning.isPlanning()) Thread.sleep(1);
+        assertTrue(System.nanoTime() - start < 5_000_000_000L);
+        assertEquals(1, planning.takeLatestPlan().getRequestId());
+        assertEquals(2, planning.getPlanningCount());
+        planning.shutdown();
+    }
+}
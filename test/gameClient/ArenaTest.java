@@ -0,0 +1,119 @@
+package gameClient;
+
+import api.DWGraph_Algo;
+import api.directed_weighted_graph;
+import api.geo_location;
+import api.node_data;
+import gameClient.util.Point3D;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ArenaTest {
+
+    //a pokemon at the given part of the way from src to dest
+    static CL_Pokemon pokemon(directed_weighted_graph g, int src, int dest, double t) {
+        geo_location a = g.getNode(src).getLocation(), b = g.getNode(dest).getLocation();
+        Point3D p = new Point3D(a.x() + t * (b.x() - a.x()), a.y() + t * (b.y() - a.y()), 0);
+        return new CL_Pokemon(p, dest > src ? 1 : -1, 5, null);
+    }
+
+    @Test
+    void pokemonEdgeCache() {
+        DWGraph_Algo algo = new DWGraph_Algo();
+        assertTrue(algo.load("data/A0"));
+        directed_weighted_graph g = algo.getGraph();
+        Arena arena = new Arena();
+        arena.setGraph(g);
+
+        arena.updateEdges(Arrays.asList(pokemon(g, 0, 1, 0.25), pokemon(g, 10, 0, 0.5)));
+        assertEquals(2, arena.getPokemonEdgeCacheMisses());
+        assertEquals(0, arena.getPokemonEdgeCacheHits());
+
+        List<CL_Pokemon> again = Arrays.asList(pokemon(g, 0, 1, 0.25), pokemon(g, 10, 0, 0.5)); //the same pokemons, new objects
+        arena.updateEdges(again);
+        assertEquals(2, arena.getPokemonEdgeCacheMisses());
+        assertEquals(2, arena.getPokemonEdgeCacheHits());
+        assertEquals(1, again.get(0).get_edge().getDest()); //the cached edge is set on the new objects
+        assertEquals(0.25, again.get(0).get_edge_ratio(), 0.0000001);
+        assertEquals(10, again.get(1).get_edge().getSrc());
+        assertEquals(0.5, again.get(1).get_edge_ratio(), 0.0000001);
+
+        g.removeEdge(2, 1); //the graph changed (by MC) - the edges are searched again
+        arena.updateEdges(Arrays.asList(pokemon(g, 0, 1, 0.25)));
+        assertEquals(3, arena.getPokemonEdgeCacheMisses());
+        assertEquals(2, arena.getPokemonEdgeCacheHits());
+
+        arena.updateEdges(Arrays.asList(pokemon(g, 0, 1, 0.25), pokemon(g, 10, 0, 0.5))); //the second one left the game in between
+        assertEquals(4, arena.getPokemonEdgeCacheMisses());
+        assertEquals(3, arena.getPokemonEdgeCacheHits());
+
+        DWGraph_Algo other = new DWGraph_Algo();
+        assertTrue(other.load("data/A0"));
+        arena.setGraph(other.getGraph()); //another graph - the edges are searched again
+        List<CL_Pokemon> onOther = Arrays.asList(pokemon(g, 0, 1, 0.25));
+        arena.updateEdges(onOther);
+        assertEquals(5, arena.getPokemonEdgeCacheMisses());
+        assertSame(other.getGraph().getEdge(0, 1), onOther.get(0).get_edge());
+    }
+
+    @Test
+    void unreachablePokemon() {
+        DWGraph_Algo algo = new DWGraph_Algo();
+        assertTrue(algo.loadJson("{\"Edges\":["
+                + "{\"src\":0,\"w\":1,\"dest\":1},{\"src\":1,\"w\":1,\"dest\":0},{\"src\":1,\"w\":2,\"dest\":2},"
+                + "{\"src\":2,\"w\":1,\"dest\":3},{\"src\":3,\"w\":1,\"dest\":4}],\"Nodes\":["
+                + "{\"pos\":\"0,0,0\",\"id\":0},{\"pos\":\"1,0,0\",\"id\":1},{\"pos\":\"2,0,0\",\"id\":2},"
+                + "{\"pos\":\"3,0,0\",\"id\":3},{\"pos\":\"4,0,0\",\"id\":4}]}"));
+        directed_weighted_graph g = algo.getGraph();
+        Arena arena = new Arena();
+        arena.setGraph(g);
+        arena.setGraphAlgo(algo);
+
+        CL_Agent near = new CL_Agent(g, 0);
+        CL_Agent stuck = new CL_Agent(g, 4); //4 has no edges out - it can't get to any pokemon
+        CL_Pokemon pokemon = new CL_Pokemon(new Point3D(2.5, 0, 0), 1, 5, g.getEdge(2, 3));
+
+        assertSame(near, arena.searchForNearestAgent(pokemon, Arrays.asList(stuck, near)));
+        assertNull(stuck.getPath(pokemon));
+        List<node_data> path = near.getPath(pokemon);
+        assertEquals(3, path.get(path.size() - 1).getKey());
+        assertEquals(4, path.get(path.size() - 1).getWeight(), 0.0000001); //0 -> 1 -> 2 and the pokemon edge
+
+        assertNull(arena.searchForNearestAgent(pokemon, Arrays.asList(stuck)));
+    }
+
+    @Test
+    void binaryGraph() throws java.io.IOException {
+        DWGraph_Algo json = new DWGraph_Algo();
+        assertTrue(json.load("data/A0"));
+        java.io.File file = java.io.File.createTempFile("graph", ".bin");
+        file.deleteOnExit();
+        assertTrue(json.saveBinary(file.getPath()));
+
+        DWGraph_Algo algo = new DWGraph_Algo();
+        assertTrue(algo.loadBinary(file.getPath()));
+        directed_weighted_graph g = algo.getGraph(); //read-only, not a DWGraph_DS
+        Arena arena = new Arena();
+        arena.setGraph(g);
+        arena.setGraphAlgo(algo);
+
+        CL_Agent agent = new CL_Agent(g, 2);
+        List<CL_Agent> agents = Arrays.asList(agent);
+        List<CL_Pokemon> pokemons = Arrays.asList(pokemon(g, 0, 1, 0.25));
+        arena.updateEdges(pokemons);
+        CL_Pokemon onEdge = pokemons.get(0);
+        assertEquals(0, onEdge.get_edge().getSrc());
+
+        arena.updateAgentsPathTrees(agents);
+        assertSame(agent, arena.searchForNearestAgent(onEdge, agents));
+        List<node_data> path = agent.getPath(onEdge);
+        node_data last = path.get(path.size() - 1);
+        assertEquals(1, last.getKey());
+        assertEquals(algo.shortestPathDist(2, 0) + g.getEdge(0, 1).getWeight(), last.getWeight(), 0.0000001);
+        assertNotEquals(last.getWeight(), g.getNode(1).getWeight()); //a copy, the graph node is not changed
+    }
+}
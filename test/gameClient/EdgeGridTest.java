@@ -0,0 +1,119 @@
+package gameClient;
+
+import api.DWGraph_Algo;
+import api.directed_weighted_graph;
+import api.edge_data;
+import api.geo_location;
+import api.node_data;
+import gameClient.util.Point3D;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EdgeGridTest {
+
+    /**
+     * Returns the edge of the pokemon by the edge grid of the arena and by the scan of all the edges (Arena.updateEdge),
+     * they must be the same edge - the first edge of the graph order that the pokemon is on.
+     */
+    static void assertSameEdge(Arena arena, directed_weighted_graph g, Point3D p, int type) {
+        CL_Pokemon byGrid = new CL_Pokemon(p, type, 5, null);
+        CL_Pokemon byScan = new CL_Pokemon(p, type, 5, null);
+        arena.updateEdge(byGrid);
+        Arena.updateEdge(byScan, g);
+        if (byScan.get_edge() == null) {
+            assertNull(byGrid.get_edge(), "a pokemon at " + p + " that is on no edge");
+            return;
+        }
+        assertNotNull(byGrid.get_edge(), "a pokemon at " + p + " on " + byScan.get_edge());
+        assertEquals(byScan.get_edge().getSrc(), byGrid.get_edge().getSrc());
+        assertEquals(byScan.get_edge().getDest(), byGrid.get_edge().getDest());
+    }
+
+    @Test
+    void sameEdgeAsTheScanOnJsonGraphs() {
+        File[] files = new File("src/api/json_files").listFiles((dir, name) -> name.endsWith(".json"));
+        assertNotNull(files);
+        Random random = new Random(1);
+        for (File file : files) {
+            DWGraph_Algo algo = new DWGraph_Algo();
+            assertTrue(algo.load(file.getPath()));
+            directed_weighted_graph g = algo.getGraph();
+            Arena arena = new Arena();
+            arena.setGraph(g);
+
+            List<edge_data> edges = new ArrayList<>();
+            for (node_data node : g.getV()) edges.addAll(g.getE(node.getKey()));
+            List<node_data> nodes = new ArrayList<>(g.getV());
+            int pokemons = Math.min(200, 2 * edges.size());
+            int onEdges = 0;
+            for (int i = 0; i < pokemons; i++) {
+                int type = random.nextBoolean() ? 1 : -1;
+                Point3D p;
+                switch (i % 3) {
+                    case 0: { //on an edge
+                        edge_data edge = edges.get(random.nextInt(edges.size()));
+                        geo_location src = g.getNode(edge.getSrc()).getLocation();
+                        geo_location dest = g.getNode(edge.getDest()).getLocation();
+                        double t = random.nextDouble();
+                        p = new Point3D(src.x() + t * (dest.x() - src.x()), src.y() + t * (dest.y() - src.y()), 0);
+                        break;
+                    }
+                    case 1: { //at a node or very near it - on all its edges, the first one is taken
+                        geo_location node = nodes.get(random.nextInt(nodes.size())).getLocation();
+                        double offset = i % 2 == 0 ? 0 : 1e-9;
+                        p = new Point3D(node.x() + offset, node.y() - offset, 0);
+                        break;
+                    }
+                    default: { //anywhere near the graph, mostly on no edge
+                        geo_location a = nodes.get(random.nextInt(nodes.size())).getLocation();
+                        geo_location b = nodes.get(random.nextInt(nodes.size())).getLocation();
+                        double t = random.nextDouble();
+                        p = new Point3D(a.x() + t * (b.x() - a.x()), b.y() + t * (a.y() - b.y()), 0);
+                    }
+                }
+                CL_Pokemon check = new CL_Pokemon(p, type, 5, null);
+                Arena.updateEdge(check, g);
+                if (check.get_edge() != null) onEdges++;
+                assertSameEdge(arena, g, p, type);
+            }
+            assertTrue(onEdges > pokemons / 3, file.getName()); //most of the edge and node pokemons were found
+        }
+    }
+
+    @Test
+    void nodeOfManyEdges() {
+        //a star: 0 in the middle, an edge to and from every other node, so a pokemon at 0 is on all the edges
+        StringBuilder nodes = new StringBuilder(), edges = new StringBuilder();
+        for (int i = 0; i < 9; i++) {
+            double x = i == 0 ? 0 : Math.cos(i), y = i == 0 ? 0 : Math.sin(i);
+            nodes.append(i == 0 ? "" : ",").append("{\"id\":").append(i).append(",\"pos\":\"").append(x).append(',').append(y).append(",0.0\"}");
+            if (i > 0) {
+                edges.append(i == 1 ? "" : ",").append("{\"src\":0,\"w\":1,\"dest\":").append(i).append('}');
+                edges.append(",{\"src\":").append(i).append(",\"w\":1,\"dest\":0}");
+            }
+        }
+        DWGraph_Algo algo = new DWGraph_Algo();
+        assertTrue(algo.loadJson("{\"Edges\":[" + edges + "],\"Nodes\":[" + nodes + "]}"));
+        directed_weighted_graph g = algo.getGraph();
+        assertEquals(16, g.edgeSize());
+        Arena arena = new Arena();
+        arena.setGraph(g);
+        assertSameEdge(arena, g, new Point3D(0, 0, 0), 1);
+        assertSameEdge(arena, g, new Point3D(0, 0, 0), -1);
+        assertSameEdge(arena, g, new Point3D(1e-9, 0, 0), 1);
+        assertSameEdge(arena, g, new Point3D(Math.cos(3) / 2, Math.sin(3) / 2, 0), 1);
+        assertSameEdge(arena, g, new Point3D(5, 5, 0), 1); //far from the graph
+
+        EdgeGrid grid = new EdgeGrid(g, Arena.EPS2);
+        assertTrue(grid.isUpToDate(g));
+        assertNull(grid.find(new Point3D(0, 0, 0), edge -> false));
+        g.removeEdge(0, 1);
+        assertFalse(grid.isUpToDate(g));
+    }
+}
@@ -0,0 +1,94 @@
+package gameClient;
+
+import api.edge_data;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameSimulatorTest {
+
+    @Test
+    void levels() {
+        GameSimulator game = new GameSimulator(11, 0, GameClock.stepped());
+        String info = game.toString();
+        assertTrue(info.contains("\"graph\":\"data/A2\""));
+        assertTrue(info.contains("\"agents\":3"));
+        assertTrue(info.contains("\"pokemons\":6"));
+        assertThrows(IllegalArgumentException.class, () -> new GameSimulator(24, 0, GameClock.stepped()));
+    }
+
+    @Test
+    void seededPokemons() {
+        String pokemons = new GameSimulator(5, 42, GameClock.stepped()).getPokemons();
+        assertEquals(pokemons, new GameSimulator(5, 42, GameClock.stepped()).getPokemons());
+        assertNotEquals(pokemons, new GameSimulator(5, 43, GameClock.stepped()).getPokemons());
+        assertEquals(6, Arena.json2Pokemons(pokemons).size());
+    }
+
+    @Test
+    void addAgent() {
+        GameSimulator game = new GameSimulator(13, 0, GameClock.stepped()); //2 agents
+        assertFalse(game.addAgent(-5));
+        assertTrue(game.addAgent(0));
+        assertTrue(game.addAgent(1));
+        assertFalse(game.addAgent(2));
+        assertTrue(game.getAgents().contains("\"id\":1"));
+    }
+
+    @Test
+    void agentMovesByWeightAndSpeed() throws Exception {
+        GameClock clock = GameClock.stepped();
+        GameSimulator game = new GameSimulator(0, 0, clock);
+        game.login(0);
+        assertTrue(game.addAgent(0));
+        assertEquals(-1, game.timeToEnd());
+        game.startGame();
+        assertTrue(game.isRunning());
+
+        edge_data edge = game.getJava_Graph_Not_to_be_used().getE(0).iterator().next();
+        assertNotEquals(-1, game.chooseNextEdge(0, edge.getDest()));
+        assertEquals(-1, game.chooseNextEdge(0, edge.getDest())); //the agent is already on an edge
+
+        long edgeMillis = (long) (edge.getWeight() * 1000); //speed 1
+        clock.sleep(edgeMillis - 10);
+        JSONObject agent = new JSONObject(game.move()).getJSONArray("Agents").getJSONObject(0).getJSONObject("Agent");
+        assertEquals(edge.getDest(), agent.getInt("dest"));
+
+        clock.sleep(20);
+        agent = new JSONObject(game.move()).getJSONArray("Agents").getJSONObject(0).getJSONObject("Agent");
+        assertEquals(edge.getDest(), agent.getInt("src"));
+        assertEquals(-1, agent.getInt("dest"));
+        assertEquals(2, game.getMoves());
+
+        clock.sleep(GameSimulator.LEVEL_DURATION_MILLIS);
+        assertFalse(game.isRunning());
+        assertEquals(0, game.timeToEnd());
+    }
+
+    @Test
+    void agentThatArrivesCatchesThePokemonNearTheDest() throws Exception {
+        //a seed with a pokemon that is closer than GRAB_DISTANCE to the dest of its edge
+        for (long seed = 0; seed < 1000; seed++) {
+            GameClock clock = GameClock.stepped();
+            GameSimulator game = new GameSimulator(0, seed, clock);
+            api.directed_weighted_graph g = game.getJava_Graph_Not_to_be_used();
+            CL_Pokemon pokemon = Arena.json2Pokemons(game.getPokemons()).get(0);
+            Arena.updateEdge(pokemon, g);
+            edge_data edge = pokemon.get_edge();
+            if (edge == null || g.getNode(edge.getDest()).getLocation().distance(pokemon.getLocation()) >= GameSimulator.GRAB_DISTANCE)
+                continue;
+
+            game.login(0);
+            assertTrue(game.addAgent(edge.getSrc()));
+            game.startGame();
+            assertNotEquals(-1, game.chooseNextEdge(0, edge.getDest()));
+            clock.sleep((long) (edge.getWeight() * 1000) + 100); //past the pokemon, the agent stands on the dest
+            JSONObject agent = new JSONObject(game.move()).getJSONArray("Agents").getJSONObject(0).getJSONObject("Agent");
+            assertEquals(edge.getDest(), agent.getInt("src"));
+            assertEquals(pokemon.getValue(), agent.getDouble("value"), 0);
+            return;
+        }
+        fail("no seed with a pokemon near the dest of its edge");
+    }
+}
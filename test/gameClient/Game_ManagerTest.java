@@ -0,0 +1,42 @@
+package gameClient;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class Game_ManagerTest {
+
+    static Game_Manager manager(GameSimulator game, GameClock clock) {
+        Game_Manager manager = new Game_Manager();
+        manager.setGameData(0, 0);
+        manager.setGame(game, clock);
+        manager.setHeadless(true);
+        manager.setBackgroundPlanning(false);
+        return manager;
+    }
+
+    @Test
+    void playsALevel() {
+        GameClock clock = GameClock.stepped();
+        GameSimulator game = new GameSimulator(0, 0, clock, 5_000);
+        Game_Manager manager = manager(game, clock);
+        assertTrue(manager.play());
+        assertFalse(game.isRunning());
+        assertTrue(manager.getMoveCalls() > 0);
+    }
+
+    @Test
+    void brokenGraph() {
+        GameClock clock = GameClock.stepped();
+        GameSimulator game = new GameSimulator(0, 0, clock) {
+            @Override
+            public String getGraph() {
+                return "{\"Nodes\":[{\"id\":";
+            }
+        };
+        Game_Manager manager = manager(game, clock);
+        assertFalse(manager.play()); //the level is not started
+        assertEquals(-1, game.timeToEnd());
+        assertEquals(0, manager.getMoveCalls());
+    }
+}
@@ -0,0 +1,90 @@
+package gameClient;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HungarianAssignmentTest {
+
+    @Test
+    void greedyIsNotOptimal() {
+        //greedy gives row 0 its cheapest column 0, and row 1 has to take column 1 (total 101), the optimum is 3
+        double[][] cost = {{1, 2}, {1, 100}};
+        assertArrayEquals(new int[]{1, 0}, HungarianAssignment.solve(cost));
+    }
+
+    @Test
+    void randomMatrices() {
+        Random random = new Random(7);
+        for (int t = 0; t < 200; t++) {
+            int rows = 1 + random.nextInt(5), columns = 1 + random.nextInt(6);
+            double[][] cost = new double[rows][columns];
+            for (double[] line : cost) {
+                for (int j = 0; j < columns; j++) line[j] = random.nextInt(100);
+            }
+            int[] ans = HungarianAssignment.solve(cost);
+            assertEquals(Math.min(rows, columns), assigned(ans, columns));
+            assertEquals(bruteForce(cost, 0, new boolean[columns]), total(cost, ans), 1e-9);
+        }
+    }
+
+    @Test
+    void forbiddenPairs() {
+        double inf = Double.POSITIVE_INFINITY;
+        double[][] cost = {{inf, 5, inf}, {1, 2, 3}, {inf, inf, inf}};
+        int[] ans = HungarianAssignment.solve(cost);
+        assertEquals(1, ans[0]);
+        assertNotEquals(1, ans[1]);
+        assertEquals(-1, ans[2]);
+    }
+
+    @Test
+    void deadline() {
+        double[][] cost = {{1, 2, 3}, {1, 2, 3}, {1, 2, 3}};
+        int[] ans = HungarianAssignment.solve(cost, System.nanoTime() - 1); //no time at all - greedy
+        assertEquals(3, assigned(ans, 3));
+        assertEquals(0, HungarianAssignment.solve(new double[0][0]).length);
+    }
+
+    /**
+     * Returns the number of rows with a column, and checks that no two rows got the same column.
+     */
+    private static int assigned(int[] ans, int columns) {
+        boolean[] taken = new boolean[columns];
+        int count = 0;
+        for (int column : ans) {
+            if (column == -1) continue;
+            assertFalse(taken[column]);
+            taken[column] = true;
+            count++;
+        }
+        return count;
+    }
+
+    private static double total(double[][] cost, int[] ans) {
+        double sum = 0;
+        for (int i = 0; i < ans.length; i++) {
+            if (ans[i] != -1) sum += cost[i][ans[i]];
+        }
+        return sum;
+    }
+
+    /**
+     * Returns the minimal total cost of rows [row, rows) that each take a different free column (as many rows as possible).
+     */
+    private static double bruteForce(double[][] cost, int row, boolean[] taken) {
+        if (row == cost.length) return 0;
+        int free = 0;
+        for (boolean t : taken) if (!t) free++;
+        double best = free >= cost.length - row ? Double.MAX_VALUE : bruteForce(cost, row + 1, taken); //skip the row only if some must be skipped
+        for (int j = 0; j < taken.length; j++) {
+            if (taken[j]) continue;
+            taken[j] = true;
+            best = Math.min(best, cost[row][j] + bruteForce(cost, row + 1, taken));
+            taken[j] = false;
+        }
+        return best;
+    }
+}
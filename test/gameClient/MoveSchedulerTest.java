@@ -0,0 +1,59 @@
+package gameClient;
+
+import api.DWGraph_Algo;
+import api.directed_weighted_graph;
+import gameClient.util.Point3D;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoveSchedulerTest {
+
+    /**
+     * 0 -> 1 on the x axis, length 10 and weight 2 (2 seconds at speed 1).
+     */
+    private static directed_weighted_graph line() {
+        DWGraph_Algo algo = new DWGraph_Algo();
+        assertTrue(algo.loadJson("{\"Edges\":[{\"src\":0,\"w\":2,\"dest\":1}],"
+                + "\"Nodes\":[{\"pos\":\"0,0,0\",\"id\":0},{\"pos\":\"10,0,0\",\"id\":1}]}"));
+        return algo.getGraph();
+    }
+
+    @Test
+    void waitsForTheNextEvent() {
+        directed_weighted_graph g = line();
+        CL_Agent agent = new CL_Agent(g, 0);
+        agent.setSpeed(1);
+        agent.setNextNode(1);
+        List<CL_Agent> agents = new ArrayList<>();
+        agents.add(agent);
+        List<CL_Pokemon> pokemons = new ArrayList<>();
+
+        MoveScheduler scheduler = new MoveScheduler();
+        assertEquals(2000, scheduler.nextDelay(agents, pokemons, false, 30_000)); //to the dest of the edge
+        CL_Pokemon pokemon = new CL_Pokemon(new Point3D(2.5, 0, 0), 1, 5, g.getEdge(0, 1));
+        pokemon.set_edge_ratio(0.25);
+        pokemons.add(pokemon);
+        assertEquals(500, scheduler.nextDelay(agents, pokemons, false, 30_000)); //to the pokemon
+        assertEquals(300, scheduler.nextDelay(agents, pokemons, false, 300)); //to the end of the game
+        assertEquals(50, scheduler.nextDelay(agents, pokemons, true, 30_000)); //a new plan is needed
+        assertEquals(4, scheduler.getMoves());
+        assertEquals(28 - 4, scheduler.getAvoidedMoves());
+    }
+
+    @Test
+    void maxMovesPerSecond() {
+        directed_weighted_graph g = line();
+        CL_Agent agent = new CL_Agent(g, 0);
+        agent.setSpeed(1000);
+        agent.setNextNode(1);
+        List<CL_Agent> agents = new ArrayList<>();
+        agents.add(agent);
+        assertEquals(50, new MoveScheduler().nextDelay(agents, new ArrayList<>(), false, 30_000)); //not more than 20 moves a second
+        assertEquals(100, new MoveScheduler().nextDelay(new ArrayList<>(), new ArrayList<>(), false, 30_000)); //nothing moves
+        assertThrows(IllegalArgumentException.class, () -> new MoveScheduler(0));
+    }
+}
@@ -0,0 +1,73 @@
+package gameClient;
+
+import api.DWGraph_Algo;
+import api.directed_weighted_graph;
+import api.geo_location;
+import api.node_data;
+import gameClient.util.Point3D;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoutePlannerTest {
+
+    /**
+     * A line 0 - 1 - 2 - 3 (both ways, weight 1 per edge) and a far node 4 (weight 50 from 0 and back).
+     */
+    private static DWGraph_Algo graph() {
+        DWGraph_Algo algo = new DWGraph_Algo();
+        assertTrue(algo.loadJson("{\"Edges\":["
+                + "{\"src\":0,\"w\":1,\"dest\":1},{\"src\":1,\"w\":1,\"dest\":0},{\"src\":1,\"w\":1,\"dest\":2},"
+                + "{\"src\":2,\"w\":1,\"dest\":1},{\"src\":2,\"w\":1,\"dest\":3},{\"src\":3,\"w\":1,\"dest\":2},"
+                + "{\"src\":0,\"w\":50,\"dest\":4},{\"src\":4,\"w\":50,\"dest\":0}],\"Nodes\":["
+                + "{\"pos\":\"0,0,0\",\"id\":0},{\"pos\":\"1,0,0\",\"id\":1},{\"pos\":\"2,0,0\",\"id\":2},"
+                + "{\"pos\":\"3,0,0\",\"id\":3},{\"pos\":\"0,50,0\",\"id\":4}]}"));
+        return algo;
+    }
+
+    private static CL_Pokemon pokemon(directed_weighted_graph g, int src, int dest, double value) {
+        geo_location p0 = g.getNode(src).getLocation(), p1 = g.getNode(dest).getLocation();
+        Point3D pos = new Point3D((p0.x() + p1.x()) / 2, (p0.y() + p1.y()) / 2, 0);
+        CL_Pokemon pokemon = new CL_Pokemon(pos, src < dest ? 1 : -1, value, g.getEdge(src, dest));
+        pokemon.set_edge_ratio(0.5);
+        return pokemon;
+    }
+
+    private static List<Integer> keys(List<node_data> path) {
+        List<Integer> keys = new ArrayList<>();
+        for (node_data node : path) keys.add(node.getKey());
+        return keys;
+    }
+
+    @Test
+    void routeOverNearPokemons() {
+        DWGraph_Algo algo = graph();
+        directed_weighted_graph g = algo.getGraph();
+        CL_Agent agent = new CL_Agent(g, 0);
+        agent.setSpeed(1);
+        List<CL_Agent> agents = new ArrayList<>();
+        agents.add(agent);
+        CL_Pokemon near = pokemon(g, 0, 1, 5), next = pokemon(g, 2, 3, 5), far = pokemon(g, 0, 4, 5);
+        List<CL_Pokemon> pokemons = List.of(far, next, near);
+
+        RoutePlanner planner = new RoutePlanner(g, algo);
+        planner.plan(agents, pokemons, new CL_Pokemon[]{next}, Long.MAX_VALUE);
+        assertEquals(List.of(near, next), planner.getRoute(agent)); //the far pokemon is not worth it, near comes first
+        assertEquals(List.of(1, 2, 3), keys(planner.getPath(agent)));
+        assertEquals(2500, planner.routeTime(agent, planner.getRoute(agent)), 1e-9); //caught at the middle of their edges
+
+        //near was caught and a new pokemon came - the route keeps next and takes the new one too
+        CL_Pokemon back = pokemon(g, 2, 1, 5);
+        assertTrue(planner.update(agents, List.of(far, next, back), Long.MAX_VALUE));
+        List<String> route = new ArrayList<>();
+        for (CL_Pokemon stop : planner.getRoute(agent)) route.add(stop.getKey());
+        assertEquals(2, route.size());
+        assertTrue(route.contains(next.getKey()) && route.contains(back.getKey()));
+
+        //all the route was caught - a new plan is needed
+        assertFalse(planner.update(agents, List.of(far), Long.MAX_VALUE));
+    }
+}
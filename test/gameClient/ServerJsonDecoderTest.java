@@ -0,0 +1,118 @@
+package gameClient;
+
+import gameClient.util.Point3D;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ServerJsonDecoderTest {
+
+    static String position(Random random) {
+        return (35.18 + random.nextDouble() * 0.03) + "," + (32.10 + random.nextDouble() * 0.01) + ",0.0";
+    }
+
+    @Test
+    void agentsLikeOrgJson() throws Exception {
+        Random random = new Random(1);
+        ServerJsonDecoder decoder = new ServerJsonDecoder();
+        for (int round = 0; round < 20; round++) {
+            StringBuilder json = new StringBuilder("{\"Agents\":[");
+            int numOfAgents = 1 + random.nextInt(6);
+            for (int i = 0; i < numOfAgents; i++) {
+                if (i > 0) json.append(',');
+                json.append("{\"Agent\":{\"id\":").append(i)
+                        .append(",\"value\":").append(random.nextInt(1000) / 10.0)
+                        .append(",\"src\":").append(random.nextInt(40))
+                        .append(",\"dest\":").append(random.nextInt(41) - 1)
+                        .append(",\"speed\":").append(1.0 + random.nextInt(5))
+                        .append(",\"pos\":\"").append(position(random)).append("\"}}");
+            }
+            String agentsJson = json.append("]}").toString();
+
+            JSONArray agents = new JSONObject(agentsJson).getJSONArray("Agents");
+            assertEquals(agents.length(), decoder.decodeAgents(agentsJson));
+            for (int i = 0; i < agents.length(); i++) {
+                JSONObject expected = agents.getJSONObject(i).getJSONObject("Agent");
+                ServerJsonDecoder.AgentRecord actual = decoder.getAgent(i);
+                Point3D pos = new Point3D(expected.getString("pos"));
+                assertEquals(expected.getInt("id"), actual.id);
+                assertEquals(expected.getInt("src"), actual.src);
+                assertEquals(expected.getInt("dest"), actual.dest);
+                assertEquals(expected.getDouble("value"), actual.value, 0);
+                assertEquals(expected.getDouble("speed"), actual.speed, 0);
+                assertEquals(pos.x(), actual.x, 0);
+                assertEquals(pos.y(), actual.y, 0);
+                assertEquals(pos.z(), actual.z, 0);
+            }
+        }
+    }
+
+    @Test
+    void pokemonsLikeOrgJson() {
+        Random random = new Random(2);
+        ServerJsonDecoder decoder = new ServerJsonDecoder();
+        StringBuilder json = new StringBuilder("{\"Pokemons\":[");
+        for (int i = 0; i < 30; i++) {
+            if (i > 0) json.append(',');
+            json.append("{\"Pokemon\":{\"value\":").append(5.0 + random.nextInt(10))
+                    .append(",\"type\":").append(random.nextBoolean() ? 1 : -1)
+                    .append(",\"pos\":\"").append(position(random)).append("\"}}");
+        }
+        String pokemonsJson = json.append("]}").toString();
+
+        List<CL_Pokemon> expected = Arena.json2Pokemons(pokemonsJson);
+        List<CL_Pokemon> actual = Arena.json2Pokemons(pokemonsJson, decoder);
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getType(), actual.get(i).getType());
+            assertEquals(expected.get(i).getValue(), actual.get(i).getValue(), 0);
+            assertEquals(expected.get(i).getLocation().toString(), actual.get(i).getLocation().toString());
+        }
+    }
+
+    @Test
+    void otherLayouts() {
+        ServerJsonDecoder decoder = new ServerJsonDecoder();
+        String json = " { \"Other\" : [1, {\"a\":\"]}\"}] , \"Pokemons\" : [ { \"Pokemon\" : { \"pos\" : \"1.5,-2.25\" ,"
+                + " \"extra\" : {\"x\":[true,null]}, \"type\" : -1 , \"value\" : 1e1 } } ] } ";
+        assertEquals(1, decoder.decodePokemons(json));
+        ServerJsonDecoder.PokemonRecord pokemon = decoder.getPokemon(0);
+        assertEquals(-1, pokemon.type);
+        assertEquals(10, pokemon.value, 0);
+        assertEquals(1.5, pokemon.x, 0);
+        assertEquals(-2.25, pokemon.y, 0);
+        assertEquals(0, pokemon.z, 0); //a missing z
+
+        assertEquals(0, decoder.decodeAgents("{\"Agents\":[]}"));
+        assertThrows(IllegalArgumentException.class, () -> decoder.decodeAgents("{\"Agents\":[{\"Agent\":{\"id\":"));
+        assertThrows(IllegalArgumentException.class, () -> decoder.decodePokemons("[]"));
+    }
+
+    @Test
+    void recordsAreClearedOnReuse() {
+        ServerJsonDecoder decoder = new ServerJsonDecoder();
+        decoder.decodeAgents("{\"Agents\":[{\"Agent\":{\"id\":3,\"value\":7.5,\"src\":4,\"dest\":5,\"speed\":2.0,\"pos\":\"1,2,3\"}}]}");
+        ServerJsonDecoder.AgentRecord agent = decoder.getAgent(0);
+        assertEquals(5, agent.dest);
+
+        assertEquals(1, decoder.decodeAgents("{\"Agents\":[{\"Agent\":{\"id\":3,\"src\":6}}]}"));
+        assertSame(agent, decoder.getAgent(0)); //the same record
+        assertEquals(6, agent.src);
+        assertEquals(0, agent.dest); //not left from the last decode
+        assertEquals(0, agent.value, 0);
+        assertEquals(0, agent.speed, 0);
+        assertEquals(0, agent.x, 0);
+
+        decoder.decodePokemons("{\"Pokemons\":[{\"Pokemon\":{\"value\":5.0,\"type\":1,\"pos\":\"1,2,3\"}}]}");
+        decoder.decodePokemons("{\"Pokemons\":[{\"Pokemon\":{\"value\":6.0}}]}");
+        ServerJsonDecoder.PokemonRecord pokemon = decoder.getPokemon(0);
+        assertEquals(6, pokemon.value, 0);
+        assertEquals(0, pokemon.type);
+        assertEquals(0, pokemon.y, 0);
+    }
+}
@@ -0,0 +1,65 @@
+package gameClient;
+
+import api.DWGraph_Algo;
+import api.directed_weighted_graph;
+import gameClient.util.Point3D;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpeedTravelTimeModelTest {
+
+    /**
+     * A line 0 -> 1 -> 2 on the x axis, length 10 and weight 2 per edge.
+     */
+    private static DWGraph_Algo line() {
+        DWGraph_Algo algo = new DWGraph_Algo();
+        assertTrue(algo.loadJson("{\"Edges\":[{\"src\":0,\"w\":2,\"dest\":1},{\"src\":1,\"w\":2,\"dest\":2}],"
+                + "\"Nodes\":[{\"pos\":\"0,0,0\",\"id\":0},{\"pos\":\"10,0,0\",\"id\":1},{\"pos\":\"20,0,0\",\"id\":2}]}"));
+        return algo;
+    }
+
+    private static CL_Pokemon pokemon(directed_weighted_graph g, int src, int dest, double ratio) {
+        double x = g.getNode(src).getLocation().x() * (1 - ratio) + g.getNode(dest).getLocation().x() * ratio;
+        CL_Pokemon pokemon = new CL_Pokemon(new Point3D(x, 0, 0), 1, 5, g.getEdge(src, dest));
+        pokemon.set_edge_ratio(ratio);
+        return pokemon;
+    }
+
+    @Test
+    void partialEdgeProgress() {
+        directed_weighted_graph g = line().getGraph();
+        CL_Agent agent = new CL_Agent(g, 0);
+        agent.update("{\"Agent\":{\"id\":0,\"value\":0,\"src\":0,\"dest\":1,\"speed\":2,\"pos\":\"5,0,0\"}}");
+        TravelTimeModel model = new SpeedTravelTimeModel(g);
+
+        assertEquals(0.5, model.progress(agent), 1e-9);
+        assertEquals(500, model.millisToNode(agent), 1e-9); //half of weight 2 at speed 2
+        assertEquals(250, model.arrivalMillis(agent, pokemon(g, 0, 1, 0.75), 0), 1e-9); //ahead on the agent edge
+        //the agent already passed it - back to node 0 is not possible, so there is no path
+        assertEquals(Double.POSITIVE_INFINITY, model.arrivalMillis(agent, pokemon(g, 0, 1, 0.25), Double.POSITIVE_INFINITY));
+        assertEquals(500 + 250, model.arrivalMillis(agent, pokemon(g, 1, 2, 0.25), 0), 1e-9); //the rest of the edge and a quarter of the next
+        assertEquals(1000, model.arrivalMillis(agent, pokemon(g, 0, 1, 0.5), pokemon(g, 1, 2, 0.5), 0), 1e-9);
+        assertEquals(500, model.arrivalMillis(agent, pokemon(g, 1, 2, 0.25), pokemon(g, 1, 2, 0.75), -1), 1e-9);
+    }
+
+    @Test
+    void nearestAgentByArrivalTime() {
+        DWGraph_Algo algo = line();
+        directed_weighted_graph g = algo.getGraph();
+        Arena arena = new Arena();
+        arena.setGraph(g);
+        arena.setGraphAlgo(algo);
+        CL_Agent near = new CL_Agent(g, 1), fast = new CL_Agent(g, 0);
+        near.setSpeed(1);
+        fast.setSpeed(5);
+        CL_Pokemon pokemon = pokemon(g, 1, 2, 0.5);
+
+        //near is 1000ms away, fast goes a longer way (weight 3) in 600ms
+        assertSame(fast, arena.searchForNearestAgent(pokemon, List.of(near, fast)));
+        fast.setSpeed(2);
+        assertSame(near, arena.searchForNearestAgent(pokemon, List.of(near, fast)));
+    }
+}
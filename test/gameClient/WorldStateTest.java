@@ -0,0 +1,105 @@
+package gameClient;
+
+import api.DWGraph_Algo;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WorldStateTest {
+
+    //records every event as "caught <id> <value>", "arrived <id> <node>" or "new <pokemon key>"
+    static class EventLog implements WorldState.Listener {
+        final List<String> events = new ArrayList<>();
+
+        @Override
+        public void onPokemonCaught(CL_Agent agent, double value) {
+            events.add("caught " + agent.getID() + " " + value);
+        }
+
+        @Override
+        public void onAgentArrived(CL_Agent agent, int node) {
+            events.add("arrived " + agent.getID() + " " + node);
+        }
+
+        @Override
+        public void onNewPokemon(CL_Pokemon pokemon) {
+            events.add("new " + pokemon.getKey());
+        }
+
+        List<String> take() {
+            List<String> taken = new ArrayList<>(events);
+            events.clear();
+            return taken;
+        }
+    }
+
+    static String agent(int id, double value, int src, int dest) {
+        return "{\"Agent\":{\"id\":" + id + ",\"value\":" + value + ",\"src\":" + src + ",\"dest\":" + dest
+                + ",\"speed\":1.0,\"pos\":\"35.18,32.10,0.0\"}}";
+    }
+
+    static String agents(String... agents) {
+        return "{\"Agents\":[" + String.join(",", agents) + "]}";
+    }
+
+    static WorldState worldState(EventLog log) {
+        DWGraph_Algo algo = new DWGraph_Algo();
+        assertTrue(algo.load("data/A0"));
+        return new WorldState(algo.getGraph(), log);
+    }
+
+    @Test
+    void agentEvents() {
+        EventLog log = new EventLog();
+        WorldState world = worldState(log);
+
+        world.updateAgents(agents(agent(0, 0, 0, -1), agent(1, 0, 10, -1)));
+        assertEquals(Arrays.asList("arrived 0 0", "arrived 1 10"), log.take()); //new agents
+        List<CL_Agent> agentsList = world.getAgents();
+        CL_Agent first = agentsList.get(0), second = agentsList.get(1);
+
+        world.updateAgents(agents(agent(0, 0, 0, -1), agent(1, 0, 10, -1)));
+        assertEquals(Collections.emptyList(), log.take()); //nothing changed
+
+        world.updateAgents(agents(agent(0, 0, 0, 1), agent(1, 0, 10, -1)));
+        assertEquals(Collections.emptyList(), log.take()); //on its way
+        assertTrue(first.isMoving());
+
+        world.updateAgents(agents(agent(0, 5, 1, -1), agent(1, 0, 10, -1)));
+        assertEquals(Arrays.asList("caught 0 5.0", "arrived 0 1"), log.take());
+
+        assertSame(agentsList, world.getAgents()); //the same list and the same agents for the whole game
+        assertEquals(2, agentsList.size());
+        assertSame(first, agentsList.get(0));
+        assertSame(second, agentsList.get(1));
+        assertEquals(1, first.getSrcNode());
+        assertEquals(5, first.getValue(), 0.0000001);
+
+        world.updateAgents("{\"Agents\":[{\"Agent\":{\"id\":"); //a broken json changes nothing
+        assertEquals(Collections.emptyList(), log.take());
+    }
+
+    @Test
+    void newPokemons() {
+        EventLog log = new EventLog();
+        WorldState world = worldState(log);
+        String pokemonA = "{\"Pokemon\":{\"value\":5.0,\"type\":-1,\"pos\":\"35.188,32.104,0.0\"}}";
+        String pokemonB = "{\"Pokemon\":{\"value\":8.0,\"type\":1,\"pos\":\"35.195,32.105,0.0\"}}";
+
+        List<CL_Pokemon> pokemons = Arena.json2Pokemons("{\"Pokemons\":[" + pokemonA + "]}");
+        world.updatePokemons(pokemons);
+        assertEquals(Collections.singletonList("new " + pokemons.get(0).getKey()), log.take());
+
+        world.updatePokemons(Arena.json2Pokemons("{\"Pokemons\":[" + pokemonA + "]}"));
+        assertEquals(Collections.emptyList(), log.take()); //the same pokemon in a new object
+
+        pokemons = Arena.json2Pokemons("{\"Pokemons\":[" + pokemonA + "," + pokemonB + "]}");
+        world.updatePokemons(pokemons);
+        assertEquals(Collections.singletonList("new " + pokemons.get(1).getKey()), log.take());
+    }
+}